@@ -0,0 +1,38 @@
+package com.gameplatform.common;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * @author SakurazawaRyoko
+ * @version 1.0
+ * @date 2025/01/11 16:20
+ * @description TODO
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPage<T> {
+    private List<T> content;
+    // 下一页游标，没有更多数据时为null
+    private String nextCursor;
+    private boolean hasNext;
+    private int size;
+
+    public <R> CursorPage<R> map(Function<T, R> converter) {
+        List<R> converted = content.stream()
+                .map(converter)
+                .collect(Collectors.toList());
+        return new CursorPage<>(converted, nextCursor, hasNext, size);
+    }
+
+    // 整页转换，便于批量组装DTO
+    public <R> CursorPage<R> mapContent(Function<List<T>, List<R>> converter) {
+        return new CursorPage<>(converter.apply(content), nextCursor, hasNext, size);
+    }
+}
@@ -0,0 +1,61 @@
+package com.gameplatform.common;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+
+/**
+ * @author SakurazawaRyoko
+ * @version 1.0
+ * @date 2025/01/13 18:10
+ * @description TODO
+ */
+@Getter
+@RequiredArgsConstructor
+public class PushWindow {
+    // 与通知设置页面的默认值一致
+    public static final String DEFAULT_START = "08:00";
+    public static final String DEFAULT_END = "22:00";
+    public static final PushWindow DEFAULT = new PushWindow(LocalTime.parse(DEFAULT_START), LocalTime.parse(DEFAULT_END));
+
+    private final LocalTime start;
+    private final LocalTime end;
+
+    // 格式错误时回退到默认时段
+    public static PushWindow parse(String start, String end) {
+        try {
+            return new PushWindow(LocalTime.parse(start != null ? start : DEFAULT_START),
+                    LocalTime.parse(end != null ? end : DEFAULT_END));
+        } catch (DateTimeParseException e) {
+            return DEFAULT;
+        }
+    }
+
+    // 开始时间晚于结束时间表示跨越午夜，两者相同表示全天
+    public boolean isOpen(LocalTime time) {
+        if (start.equals(end)) {
+            return true;
+        }
+        if (start.isBefore(end)) {
+            return !time.isBefore(start) && time.isBefore(end);
+        }
+        return !time.isBefore(start) || time.isBefore(end);
+    }
+
+    public LocalDateTime nextOpening(LocalDateTime now) {
+        LocalDateTime opening = now.toLocalDate().atTime(start);
+        return opening.isAfter(now) ? opening : opening.plusDays(1);
+    }
+
+    public Duration length() {
+        if (start.equals(end)) {
+            return Duration.ofDays(1);
+        }
+        Duration length = Duration.between(start, end);
+        return length.isNegative() ? length.plusDays(1) : length;
+    }
+}
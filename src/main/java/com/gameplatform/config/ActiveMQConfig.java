@@ -1,8 +1,10 @@
 package com.gameplatform.config;
 
+import com.gameplatform.config.properties.NotificationProperties;
 import org.apache.activemq.ActiveMQConnectionFactory;
 import org.apache.activemq.RedeliveryPolicy;
 import org.apache.activemq.command.ActiveMQQueue;
+import org.apache.activemq.command.ActiveMQTopic;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -17,6 +19,7 @@ import org.springframework.jms.support.converter.MessageType;
 
 import javax.jms.ConnectionFactory;
 import javax.jms.Queue;
+import javax.jms.Topic;
 
 @Configuration
 @EnableJms
@@ -36,13 +39,23 @@ public class ActiveMQConfig {
         return new ActiveMQQueue("notification.queue");
     }
 
+    @Bean
+    public Queue notificationBatchQueue(NotificationProperties notificationProperties) {
+        return new ActiveMQQueue(notificationProperties.getBatchQueue());
+    }
+
     @Bean
     public Queue emailQueue() {
         return new ActiveMQQueue("email.queue");
     }
 
     @Bean
-    public ConnectionFactory connectionFactory() {
+    public Topic searchIndexTopic(@Value("${search.index-topic:search.index.topic}") String name) {
+        return new ActiveMQTopic(name);
+    }
+
+    @Bean
+    public ConnectionFactory connectionFactory(NotificationProperties notificationProperties) {
         ActiveMQConnectionFactory factory = new ActiveMQConnectionFactory();
         factory.setBrokerURL(brokerUrl);
         factory.setUserName(username);
@@ -56,12 +69,15 @@ public class ActiveMQConfig {
         redeliveryPolicy.setMaximumRedeliveries(3);
         factory.setRedeliveryPolicy(redeliveryPolicy);
 
+        // 批量消息体积较大，限制预取数量让消息在并发消费者之间均匀分配
+        factory.getPrefetchPolicy().setQueuePrefetch(notificationProperties.getJms().getPrefetch());
+
         return factory;
     }
 
     @Bean
-    public JmsTemplate jmsTemplate() {
-        JmsTemplate template = new JmsTemplate(connectionFactory());
+    public JmsTemplate jmsTemplate(ConnectionFactory connectionFactory) {
+        JmsTemplate template = new JmsTemplate(connectionFactory);
         template.setMessageConverter(jacksonJmsMessageConverter());
         template.setExplicitQosEnabled(true);
         template.setDeliveryPersistent(true);
@@ -72,11 +88,11 @@ public class ActiveMQConfig {
 
     @Bean
     public JmsListenerContainerFactory<?> jmsListenerContainerFactory(
-            ConnectionFactory connectionFactory) {
+            ConnectionFactory connectionFactory, NotificationProperties notificationProperties) {
         DefaultJmsListenerContainerFactory factory = new DefaultJmsListenerContainerFactory();
         factory.setConnectionFactory(connectionFactory);
         factory.setMessageConverter(jacksonJmsMessageConverter());
-        factory.setConcurrency("3-10");
+        factory.setConcurrency(notificationProperties.getJms().getConcurrency());
         factory.setSessionAcknowledgeMode(2);
         factory.setSessionTransacted(false);
         factory.setReceiveTimeout(10000L);
@@ -84,6 +100,18 @@ public class ActiveMQConfig {
         return factory;
     }
 
+    // 广播到所有实例的主题订阅，非持久订阅，实例离线期间的变更由全量重建补齐
+    @Bean
+    public DefaultJmsListenerContainerFactory topicListenerContainerFactory(ConnectionFactory connectionFactory) {
+        DefaultJmsListenerContainerFactory factory = new DefaultJmsListenerContainerFactory();
+        factory.setConnectionFactory(connectionFactory);
+        factory.setMessageConverter(jacksonJmsMessageConverter());
+        factory.setPubSubDomain(true);
+        factory.setConcurrency("1");
+        factory.setRecoveryInterval(5000L);
+        return factory;
+    }
+
     @Bean
     @Primary
     public MessageConverter jacksonJmsMessageConverter() {
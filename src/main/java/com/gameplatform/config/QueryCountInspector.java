@@ -0,0 +1,20 @@
+package com.gameplatform.config;
+
+import com.gameplatform.util.QueryCounter;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * @author SakurazawaRyoko
+ * @version 1.0
+ * @date 2025/01/11 18:15
+ * @description TODO
+ */
+// 通过 hibernate.session_factory.statement_inspector 注册，Hibernate每准备一条SQL调用一次
+public class QueryCountInspector implements StatementInspector {
+
+    @Override
+    public String inspect(String sql) {
+        QueryCounter.increment();
+        return sql;
+    }
+}
@@ -1,13 +1,19 @@
 package com.gameplatform.config;
 
+import com.gameplatform.config.properties.EmailProperties;
+import com.gameplatform.config.properties.GameProperties;
+import com.gameplatform.config.properties.NotificationProperties;
+import com.gameplatform.config.properties.PostProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.scheduling.config.ScheduledTaskRegistrar;
 
 import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
 
 /**
  * @author SakurazawaRyoko
@@ -28,4 +34,77 @@ public class SchedulingConfig implements SchedulingConfigurer {
     public Executor taskExecutor() {
         return Executors.newScheduledThreadPool(10);
     }
-}
\ No newline at end of file
+
+    // 流式导出专用线程池，队列满时拒绝，不占用请求线程
+    @Bean
+    public ThreadPoolTaskExecutor exportExecutor(GameProperties gameProperties) {
+        GameProperties.Export export = gameProperties.getExport();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(export.getWorkers());
+        executor.setMaxPoolSize(export.getWorkers());
+        executor.setQueueCapacity(export.getQueueCapacity());
+        executor.setThreadNamePrefix("export-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+
+    // 关注者通知推送专用线程池，队列满时拒绝，任务留在数据库中由补偿任务稍后领取
+    @Bean
+    public ThreadPoolTaskExecutor notificationFanOutExecutor(NotificationProperties notificationProperties) {
+        NotificationProperties.FanOut fanOut = notificationProperties.getFanOut();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(fanOut.getWorkers());
+        executor.setMaxPoolSize(fanOut.getWorkers());
+        executor.setQueueCapacity(fanOut.getQueueCapacity());
+        executor.setThreadNamePrefix("notify-fan-out-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+
+    // 时间线推送专用线程池，不占用定时任务线程
+    @Bean
+    public ThreadPoolTaskExecutor timelineFanOutExecutor(PostProperties postProperties) {
+        PostProperties.Timeline timeline = postProperties.getTimeline();
+        return broadcastStageExecutor(timeline.getFanOutWorkers(), timeline.getFanOutQueueCapacity(),
+                "timeline-fan-out-");
+    }
+
+    // 批量通知的WebSocket推送阶段，与消息队列阶段互不阻塞
+    @Bean
+    public ThreadPoolTaskExecutor notificationWebSocketExecutor(NotificationProperties notificationProperties) {
+        NotificationProperties.Broadcast broadcast = notificationProperties.getBroadcast();
+        return broadcastStageExecutor(broadcast.getWebsocketWorkers(), broadcast.getStageQueueCapacity(),
+                "notify-ws-");
+    }
+
+    // 批量通知的消息队列推送阶段
+    @Bean
+    public ThreadPoolTaskExecutor notificationJmsExecutor(NotificationProperties notificationProperties) {
+        NotificationProperties.Broadcast broadcast = notificationProperties.getBroadcast();
+        return broadcastStageExecutor(broadcast.getJmsWorkers(), broadcast.getStageQueueCapacity(),
+                "notify-jms-");
+    }
+
+    // 邮件发送线程池，每个线程发送时占用一个池化的SMTP连接
+    @Bean
+    public ThreadPoolTaskExecutor emailDispatchExecutor(EmailProperties emailProperties) {
+        EmailProperties.Dispatch dispatch = emailProperties.getDispatch();
+        int workers = Math.max(1, dispatch.getPoolSize() - dispatch.getReservedConnections());
+        return broadcastStageExecutor(workers, dispatch.getQueueCapacity(), "email-dispatch-");
+    }
+
+    // 队列满时由提交线程执行，写库速度自动降到推送阶段能承受的水平
+    private ThreadPoolTaskExecutor broadcastStageExecutor(int workers, int queueCapacity, String prefix) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix(prefix);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+}
@@ -0,0 +1,49 @@
+package com.gameplatform.config.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * @author SakurazawaRyoko
+ * @version 1.0
+ * @date 2025/01/13 17:05
+ * @description TODO
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "email")
+public class EmailProperties {
+    private Dispatch dispatch = new Dispatch();
+    private Digest digest = new Digest();
+
+    @Data
+    public static class Dispatch {
+        // 连接池中SMTP连接数
+        private Integer poolSize = 4;
+        // 为sendNow保留的连接数，汇总邮件的批量发送最多同时占用其余连接
+        private Integer reservedConnections = 1;
+        // 每次借出连接后连续发送的邮件数
+        private Integer batchSize = 50;
+        private Integer queueCapacity = 100;
+        // 空闲超过该时间（毫秒）的连接会被关闭，避免被服务器单方面断开
+        private Long maxIdle = 60000L;
+        // 待发送邮件的检查间隔（毫秒）
+        private Long flushInterval = 1000L;
+        // 每个收件域名每秒最多发送的邮件数，domain-rates 中可以按域名单独设置
+        private Integer defaultDomainRate = 20;
+        private Map<String, Integer> domainRates = new HashMap<>();
+    }
+
+    @Data
+    public static class Digest {
+        // 同一用户在该时间窗口（毫秒）内的通知合并为一封邮件；
+        // 汇总只保存在内存中，进程异常退出最多丢失一个窗口内的通知邮件
+        private Long window = 60000L;
+        // 汇总邮件中最多列出的通知条数
+        private Integer maxItems = 20;
+    }
+}
@@ -0,0 +1,117 @@
+package com.gameplatform.config.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * @author SakurazawaRyoko
+ * @version 1.0
+ * @date 2025/01/12 16:40
+ * @description TODO
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "game")
+public class GameProperties {
+    private Rating rating = new Rating();
+    private Popularity popularity = new Popularity();
+    private Recommendation recommendation = new Recommendation();
+    private Catalog catalog = new Catalog();
+    private PlayTime playTime = new PlayTime();
+    private Histogram histogram = new Histogram();
+    private Trend trend = new Trend();
+    private Export export = new Export();
+
+    @Data
+    public static class Rating {
+        // 评分聚合校准任务
+        private String reconcileCron = "0 45 4 * * ?";
+        // 每个校准事务覆盖的游戏ID区间大小
+        private Integer batchSize = 1000;
+    }
+
+    @Data
+    public static class Popularity {
+        // 人气值重算任务，全局唯一的调度入口
+        private String refreshCron = "0 */30 * * * ?";
+        // 每批处理的游戏数量
+        private Integer chunkSize = 1000;
+    }
+
+    @Data
+    public static class Recommendation {
+        // 推荐模型重建任务
+        private String rebuildCron = "0 15 * * * ?";
+        // 每个游戏保留的相似游戏数量
+        private Integer neighbors = 20;
+        // 扫描拥有关系时每批读取的行数
+        private Integer scanBatchSize = 5000;
+        // 拥有游戏超过该数量的用户不参与相似度计算，避免计算量平方级增长
+        private Integer maxUserItems = 500;
+        // 冷启动用户使用的热门游戏候选数量
+        private Integer popularCandidates = 100;
+    }
+
+    @Data
+    public static class Catalog {
+        // 内存目录全量重载间隔（毫秒），兜底同步批量任务和其他节点的修改
+        private Long reloadInterval = 600000L;
+        // 单个游戏变更合入快照的间隔（毫秒）
+        private Long applyInterval = 1000L;
+    }
+
+    @Data
+    public static class PlayTime {
+        // 合并后的游戏时长刷盘间隔（毫秒）
+        private Long flushInterval = 5000L;
+        // 预写日志目录，进程崩溃后启动时据此恢复未刷盘的时长
+        private String walPath = "./data/play-time-wal";
+        // 每个JDBC批次的语句数量
+        private Integer batchSize = 1000;
+        // 单次请求允许的心跳条数
+        private Integer maxHeartbeats = 500;
+    }
+
+    @Data
+    public static class Histogram {
+        // 游戏时长分布的区间上界（分钟，升序），最后还有一个无上界的区间；修改后启动时自动重建
+        private List<Integer> playTimeBuckets = new ArrayList<>(Arrays.asList(60, 300, 600));
+        // 分布全量重建任务，修正增量维护产生的偏差
+        private String rebuildCron = "0 0 5 * * ?";
+        // 每个重建事务覆盖的游戏ID区间大小
+        private Integer rebuildBatchSize = 1000;
+    }
+
+    @Data
+    public static class Trend {
+        // 小时、日区间的汇总周期（毫秒）
+        private Long rollupInterval = 300000L;
+        // 每条汇总语句重算的游戏数
+        private Integer rollupBatchSize = 500;
+        // 周区间汇总及过期数据清理任务
+        private String compactCron = "0 20 3 * * ?";
+        // 事件日志保留天数，不能少于14天，否则重算当前周区间时会缺少数据
+        private Integer eventRetentionDays = 14;
+        // 各粒度区间的保留天数，需覆盖对应的查询范围
+        private Integer hourRetentionDays = 8;
+        private Integer dayRetentionDays = 40;
+        private Integer weekRetentionDays = 400;
+        // 每个清理事务删除的行数
+        private Integer purgeBatchSize = 5000;
+    }
+
+    @Data
+    public static class Export {
+        // 每个导出占用一个流式数据库连接直到写完，线程数即同时进行的导出数上限
+        private Integer workers = 4;
+        // 等待中的导出数，超出后直接拒绝
+        private Integer queueCapacity = 8;
+        // 导出请求的异步超时（毫秒），只对导出接口生效
+        private Long timeout = 600000L;
+    }
+}
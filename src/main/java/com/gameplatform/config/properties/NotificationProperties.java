@@ -4,6 +4,8 @@ import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -18,7 +20,107 @@ import java.util.List;
 public class NotificationProperties {
     private List<String> emailTypes;
     private String queue;
+    private String batchQueue;
     private Integer maxRetries;
     private Integer retryDelay;
     private Boolean enableBatchProcessing;
-}
\ No newline at end of file
+    private FanOut fanOut = new FanOut();
+    private Broadcast broadcast = new Broadcast();
+    private Unread unread = new Unread();
+    private Retention retention = new Retention();
+    private Jms jms = new Jms();
+    private QuietHours quietHours = new QuietHours();
+
+    @Data
+    public static class FanOut {
+        // 每批读取的粉丝数量，同时也是一次批量插入的行数
+        private Integer chunkSize = 500;
+        // 并发执行推送任务的线程数
+        private Integer workers = 2;
+        private Integer queueCapacity = 200;
+        // 任务超过该时间（分钟）没有进展视为中断，由补偿任务重新领取
+        private Long staleMinutes = 5L;
+        private Integer maxAttempts = 5;
+        // 补偿任务执行间隔（毫秒）
+        private Long resumeInterval = 60000L;
+        // 执行中任务的续约间隔（毫秒），需远小于stale-minutes，推送变慢时租约也不会过期
+        private Long heartbeatInterval = 30000L;
+    }
+
+    @Data
+    public static class Broadcast {
+        // 每批写入的通知数量，也是交给推送阶段的最小单位
+        private Integer chunkSize = 1000;
+        // WebSocket和消息队列推送阶段各自的线程数
+        private Integer websocketWorkers = 2;
+        private Integer jmsWorkers = 2;
+        // 每个推送阶段最多排队的批次数，队列满时由写库线程自己执行，形成背压
+        private Integer stageQueueCapacity = 20;
+        // 进度日志输出间隔（毫秒）
+        private Long progressInterval = 5000L;
+        // 每秒最多写入的通知数，同时限制了推送阶段的速率，0表示不限制
+        private Integer maxRate = 5000;
+        // 广播任务超过该时间（分钟）没有进展视为中断，由补偿任务重新领取
+        private Long staleMinutes = 5L;
+        private Integer maxAttempts = 5;
+        // 补偿任务执行间隔（毫秒）
+        private Long resumeInterval = 60000L;
+        // 执行中任务的续约间隔（毫秒），写库线程被限流或推送阻塞时租约也不会过期
+        private Long heartbeatInterval = 30000L;
+    }
+
+    @Data
+    public static class Unread {
+        // 未读计数缓存有效期（小时），过期后从数据库重建，限制计数偏差的持续时间
+        private Long ttlHours = 24L;
+    }
+
+    @Data
+    public static class Retention {
+        // 过期通知清理任务
+        private String purgeCron = "0 30 3 * * ?";
+        private Integer retentionDays = 90;
+        // 删除前是否归档：NONE 直接删除，TABLE 写入压缩归档表，FILE 写入gzip文件
+        private ArchiveMode archiveMode = ArchiveMode.NONE;
+        private String archivePath = "./data/notification-archive";
+        // 每个事务处理的ID区间大小
+        private Integer chunkSize = 2000;
+        // 两批之间的暂停时间（毫秒），给在线查询让出锁和IO
+        private Long pauseMillis = 100L;
+    }
+
+    @Data
+    public static class Jms {
+        // 每条批量消息携带的最大接收者数量
+        private Integer maxRecipients = 500;
+        // 监听器并发消费者数量，格式为 "最小-最大"
+        private String concurrency = "3-10";
+        // 每个消费者预取的消息数，批量消息较大，预取过多会让个别消费者积压
+        private Integer prefetch = 10;
+        // 邮件偏好本地缓存有效期（秒）和最大条数
+        private Long preferenceCacheTtl = 300L;
+        private Integer preferenceCacheSize = 100000;
+    }
+
+    @Data
+    public static class QuietHours {
+        // 关闭后忽略用户的推送时段，全部立即推送
+        private Boolean enabled = true;
+        // 不受推送时段限制的通知类型，只有活动提醒有时效性；系统通知包含每日登录提醒等批量推送，需要延后
+        private List<String> exemptTypes = new ArrayList<>(Collections.singletonList("EVENT_REMINDER"));
+        // 到期推送的检查间隔（毫秒）和所有节点合计每秒最多释放的推送数
+        private Long releaseInterval = 5000L;
+        private Integer releaseRate = 2000;
+        private Integer batchSize = 500;
+        // 推送时段开始后，按用户分散在该时间（分钟）内释放，避免集中在整点
+        private Integer spreadMinutes = 60;
+        // 延迟推送内容的保留时间（小时），需大于最长的等待时间
+        private Long payloadTtlHours = 48L;
+    }
+
+    public enum ArchiveMode {
+        NONE,
+        TABLE,
+        FILE
+    }
+}
@@ -0,0 +1,85 @@
+package com.gameplatform.config.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * @author SakurazawaRyoko
+ * @version 1.0
+ * @date 2025/01/10 14:20
+ * @description TODO
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "post")
+public class PostProperties {
+    private ViewCount viewCount = new ViewCount();
+    private Like like = new Like();
+    private Hot hot = new Hot();
+    private Timeline timeline = new Timeline();
+    private CommentTree commentTree = new CommentTree();
+    private CommentCount commentCount = new CommentCount();
+
+    @Data
+    public static class ViewCount {
+        // 浏览量增量刷盘间隔（毫秒）
+        private Long flushInterval = 10000L;
+    }
+
+    @Data
+    public static class Like {
+        // 点赞增量刷盘间隔（毫秒）
+        private Long flushInterval = 5000L;
+        // 点赞计数校准任务
+        private String reconcileCron = "0 */10 * * * ?";
+        // 最近该时间（毫秒）内有点赞变动的计数暂不校准，需大于刷盘间隔，留出各节点刷盘的时间
+        private Long reconcileQuietPeriod = 30000L;
+        // 点赞用户集合在Redis中的过期时间（分钟）
+        private Long membershipTtl = 1440L;
+    }
+
+    @Data
+    public static class Hot {
+        // 热度半衰期（小时）
+        private Double halfLifeHours = 24.0;
+        private Double postWeight = 1.0;
+        private Double likeWeight = 3.0;
+        private Double commentWeight = 5.0;
+        private Double viewWeight = 0.1;
+        // 每个排行保留的帖子数量
+        private Integer capacity = 10000;
+        // 衰减任务的执行间隔（分钟），需与decayCron一致
+        private Long decayIntervalMinutes = 60L;
+        private String decayCron = "0 0 * * * ?";
+    }
+
+    @Data
+    public static class Timeline {
+        // 每个用户时间线保留的帖子数量
+        private Integer capacity = 800;
+        // 粉丝数超过该值的作者不推送，改为读取时拉取
+        private Long fanOutThreshold = 5000L;
+        private Integer fanOutBatchSize = 1000;
+        private Long ttlDays = 7L;
+        // 推送线程数和排队的帖子数，队列满时由发帖线程自己推送
+        private Integer fanOutWorkers = 2;
+        private Integer fanOutQueueCapacity = 500;
+    }
+
+    @Data
+    public static class CommentTree {
+        // 评论列表中每条一级评论附带的回复数量
+        private Integer previewReplies = 3;
+        // 允许的最大回复层级，受path字段长度限制
+        private Integer maxDepth = 50;
+    }
+
+    @Data
+    public static class CommentCount {
+        // 评论数与回复数校准任务
+        private String reconcileCron = "0 30 4 * * ?";
+        // 每个校准事务覆盖的ID区间大小
+        private Integer batchSize = 5000;
+    }
+}
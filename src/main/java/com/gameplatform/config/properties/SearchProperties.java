@@ -0,0 +1,29 @@
+package com.gameplatform.config.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * @author SakurazawaRyoko
+ * @version 1.0
+ * @date 2025/01/11 14:30
+ * @description TODO
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "search")
+public class SearchProperties {
+    // 索引文件目录，帖子和游戏分别存放在posts/、games/子目录
+    private String indexPath = "./search-index";
+    // 索引快照（commit）落盘间隔（毫秒）
+    private Long commitInterval = 30000L;
+    // 全量重建索引任务，用于修正宕机时丢失的未提交更新
+    private String rebuildCron = "0 30 4 * * ?";
+    // 重建索引时每批读取的记录数
+    private Integer rebuildBatchSize = 500;
+    // 单次查询最多翻到的结果数
+    private Integer maxResults = 1000;
+    // 索引变更广播主题，多实例部署时各实例据此更新本地索引
+    private String indexTopic = "search.index.topic";
+}
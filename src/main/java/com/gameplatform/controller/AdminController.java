@@ -1,11 +1,14 @@
 package com.gameplatform.controller;
 
 import com.gameplatform.common.Result;
+import com.gameplatform.config.properties.GameProperties;
 import com.gameplatform.model.dto.StatisticsDTO;
 import com.gameplatform.model.dto.UserDTO;
+import com.gameplatform.service.GameExportService;
 import com.gameplatform.service.StatisticsService;
 import com.gameplatform.service.SettingsService;
 import com.gameplatform.service.UserService;
+import com.gameplatform.util.ExportUtils;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -15,7 +18,9 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncTask;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 import java.util.Map;
 import java.util.Set;
@@ -37,6 +42,8 @@ public class AdminController {
     private final UserService userService;
     private final StatisticsService statisticsService;
     private final SettingsService settingsService;
+    private final GameExportService gameExportService;
+    private final GameProperties gameProperties;
 
     @Operation(summary = "获取用户列表", description = "分页获取用户列表，支持关键字搜索")
     @GetMapping("/users")
@@ -104,4 +111,13 @@ public class AdminController {
     public Result<Map<String, Object>> getDashboardStats() {
         return Result.success(statisticsService.getAdminDashboardStatistics());
     }
-}
\ No newline at end of file
+
+    @Operation(summary = "导出全部游戏库", description = "流式导出所有用户的游戏列表，可选gzip压缩")
+    @GetMapping("/games/export")
+    public WebAsyncTask<Void> exportAllGames(
+            @Parameter(description = "是否gzip压缩") @RequestParam(defaultValue = "true") boolean gzip,
+            HttpServletResponse response) {
+        return ExportUtils.csv(response, "user-games", gzip, gameProperties.getExport().getTimeout(),
+                gameExportService.exportAllUserGames(gzip));
+    }
+}
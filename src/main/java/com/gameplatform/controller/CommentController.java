@@ -1,6 +1,7 @@
 package com.gameplatform.controller;
 
 import com.gameplatform.annotation.RequirePermission;
+import com.gameplatform.common.CursorPage;
 import com.gameplatform.common.Result;
 import com.gameplatform.model.dto.CommentDTO;
 import com.gameplatform.service.CommentService;
@@ -92,6 +93,32 @@ public class CommentController {
         return Result.success(commentService.getUserComments(userId, pageable));
     }
 
+    @Operation(summary = "滚动加载帖子评论", description = "基于游标获取帖子的一级评论，按时间倒序")
+    @GetMapping("/post/{postId}/scroll")
+    public Result<CursorPage<CommentDTO>> scrollPostComments(
+            @Parameter(description = "帖子ID", required = true) @PathVariable Long postId,
+            @Parameter(description = "上一页返回的游标，第一页不传") @RequestParam(required = false) String cursor,
+            @Parameter(description = "每页数量") @RequestParam(defaultValue = "10") int size) {
+        return Result.success(commentService.getPostCommentsByCursor(postId, cursor, size));
+    }
+
+    @Operation(summary = "滚动加载用户评论", description = "基于游标获取用户的评论，按时间倒序")
+    @GetMapping("/user/{userId}/scroll")
+    public Result<CursorPage<CommentDTO>> scrollUserComments(
+            @Parameter(description = "用户ID", required = true) @PathVariable Long userId,
+            @Parameter(description = "上一页返回的游标，第一页不传") @RequestParam(required = false) String cursor,
+            @Parameter(description = "每页数量") @RequestParam(defaultValue = "10") int size) {
+        return Result.success(commentService.getUserCommentsByCursor(userId, cursor, size));
+    }
+
+    @Operation(summary = "获取帖子评论树", description = "一次返回帖子的完整评论树，可限制回复层级")
+    @GetMapping("/post/{postId}/thread")
+    public Result<List<CommentDTO>> getCommentThread(
+            @Parameter(description = "帖子ID", required = true) @PathVariable Long postId,
+            @Parameter(description = "最大层级，一级评论为0，不传返回全部") @RequestParam(required = false) Integer maxDepth) {
+        return Result.success(commentService.getCommentThread(postId, maxDepth));
+    }
+
     @Operation(summary = "获取评论回复列表", description = "获取指定评论的回复列表")
     @GetMapping("/{id}/replies")
     public Result<List<CommentDTO>> getCommentReplies(
@@ -2,9 +2,14 @@ package com.gameplatform.controller;
 
 import com.gameplatform.annotation.RequirePermission;
 import com.gameplatform.common.Result;
+import com.gameplatform.config.properties.GameProperties;
 import com.gameplatform.model.dto.GameDTO;
 import com.gameplatform.model.dto.GameSearchDTO;
+import com.gameplatform.model.dto.PlayHeartbeatDTO;
+import com.gameplatform.service.GameExportService;
 import com.gameplatform.service.GameService;
+import com.gameplatform.service.PlayTimeService;
+import com.gameplatform.util.ExportUtils;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
@@ -13,18 +18,18 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncTask;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 import javax.validation.constraints.Max;
 import javax.validation.constraints.Min;
 import java.util.List;
+import java.util.Map;
 
 /**
  * @author SakurazawaRyoko
@@ -40,6 +45,9 @@ import java.util.List;
 @SecurityRequirement(name = "Bearer Authentication")
 public class GameController {
     private final GameService gameService;
+    private final PlayTimeService playTimeService;
+    private final GameExportService gameExportService;
+    private final GameProperties gameProperties;
 
     @Operation(summary = "搜索游戏", description = "根据条件搜索游戏列表")
     @GetMapping
@@ -64,6 +72,14 @@ public class GameController {
         return Result.success(gameService.getAllCategories());
     }
 
+    @Operation(summary = "获取分类统计", description = "按搜索条件统计各分类下的游戏数量")
+    @GetMapping("/facets")
+    public Result<Map<String, Long>> getCategoryFacets(
+            @Parameter(description = "搜索条件")
+            GameSearchDTO searchDTO) {
+        return Result.success(gameService.getCategoryFacets(searchDTO));
+    }
+
     @Operation(summary = "评价游戏", description = "为游戏评分")
     @PostMapping("/{id}/rate")
     @RequirePermission("game:rate")
@@ -78,17 +94,26 @@ public class GameController {
         return Result.success();
     }
 
-    @Operation(summary = "导出游戏列表", description = "导出用户的游戏列表")
+    @Operation(summary = "上报游戏时长", description = "批量上报游戏心跳，时长在服务端合并后异步写入")
+    @PostMapping("/play-time")
+    public Result<Void> reportPlayTime(
+            @RequestBody List<@Valid PlayHeartbeatDTO> heartbeats,
+            @AuthenticationPrincipal UserDetails userDetails) {
+        Long userId = Long.parseLong(userDetails.getUsername());
+        playTimeService.recordHeartbeats(userId, heartbeats);
+        return Result.success();
+    }
+
+    @Operation(summary = "导出游戏列表", description = "流式导出用户的游戏列表，可选gzip压缩")
     @GetMapping("/export")
     @RequirePermission("game:export")
-    public ResponseEntity<byte[]> exportGames(
-            @AuthenticationPrincipal UserDetails userDetails) {
+    public WebAsyncTask<Void> exportGames(
+            @Parameter(description = "是否gzip压缩") @RequestParam(defaultValue = "false") boolean gzip,
+            @AuthenticationPrincipal UserDetails userDetails,
+            HttpServletResponse response) {
         Long userId = Long.parseLong(userDetails.getUsername());
-        byte[] content = gameService.exportUserGames(userId);
-        return ResponseEntity.ok()
-                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"games.csv\"")
-                .contentType(MediaType.parseMediaType("text/csv;charset=UTF-8"))
-                .body(content);
+        return ExportUtils.csv(response, "games", gzip, gameProperties.getExport().getTimeout(),
+                gameExportService.exportUserGames(userId, gzip));
     }
 
     @Operation(summary = "获取用户游戏列表", description = "获取用户拥有的游戏列表")
@@ -1,6 +1,7 @@
 package com.gameplatform.controller;
 
 import com.gameplatform.annotation.RequirePermission;
+import com.gameplatform.common.CursorPage;
 import com.gameplatform.common.Result;
 import com.gameplatform.model.dto.NotificationDTO;
 import com.gameplatform.model.dto.NotificationSettingsDTO;
@@ -51,6 +52,21 @@ public class NotificationController {
         return Result.success(notificationService.getUserNotifications(userId, pageable));
     }
 
+    @Operation(summary = "滚动加载通知", description = "基于游标获取通知列表，支持按类型过滤")
+    @GetMapping("/scroll")
+    @RequirePermission("notification:view")
+    public Result<CursorPage<NotificationDTO>> scrollNotifications(
+            @Parameter(description = "通知类型")
+            @RequestParam(required = false) Notification.NotificationType type,
+            @Parameter(description = "上一页返回的游标，第一页不传")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "每页数量")
+            @RequestParam(defaultValue = "10") int size,
+            @AuthenticationPrincipal UserDetails userDetails) {
+        Long userId = Long.parseLong(userDetails.getUsername());
+        return Result.success(notificationService.getNotificationsByCursor(userId, type, cursor, size));
+    }
+
     @Operation(summary = "获取未读通知数量", description = "获取未读通知数量统计")
     @GetMapping("/unread")
     @RequirePermission("notification:view")
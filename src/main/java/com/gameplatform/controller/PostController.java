@@ -1,6 +1,7 @@
 package com.gameplatform.controller;
 
 import com.gameplatform.annotation.RequirePermission;
+import com.gameplatform.common.CursorPage;
 import com.gameplatform.common.Result;
 import com.gameplatform.model.dto.CommentDTO;
 import com.gameplatform.model.dto.PostDTO;
@@ -63,6 +64,27 @@ public class PostController {
         }
     }
 
+    @Operation(summary = "滚动加载帖子", description = "基于游标的帖子列表，按发布时间倒序，适用于无限滚动")
+    @GetMapping("/scroll")
+    public Result<CursorPage<PostDTO>> scrollPosts(
+            @Parameter(description = "游戏ID")
+            @RequestParam(required = false) Long gameId,
+            @Parameter(description = "上一页返回的游标，第一页不传")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "每页数量")
+            @RequestParam(defaultValue = "10") int size) {
+        return Result.success(postService.getPostsByCursor(gameId, cursor, size));
+    }
+
+    @Operation(summary = "获取关注动态", description = "获取关注用户发布的帖子")
+    @GetMapping("/feed")
+    public Result<Page<PostDTO>> getFollowingFeed(
+            @AuthenticationPrincipal UserDetails userDetails,
+            @PageableDefault(size = 10) Pageable pageable) {
+        Long userId = Long.parseLong(userDetails.getUsername());
+        return Result.success(postService.getFollowingFeed(userId, pageable));
+    }
+
     @Operation(summary = "获取帖子详情", description = "获取指定帖子的详细信息")
     @GetMapping("/{id}")
     public Result<PostDTO> getPost(
@@ -157,10 +179,12 @@ public class PostController {
         return Result.success();
     }
 
-    @Operation(summary = "获取热门帖子", description = "获取热门帖子列表")
+    @Operation(summary = "获取热门帖子", description = "获取热门帖子列表，支持按游戏ID查看分榜")
     @GetMapping("/hot")
     public Result<Page<PostDTO>> getHotPosts(
+            @Parameter(description = "游戏ID")
+            @RequestParam(required = false) Long gameId,
             @PageableDefault(size = 10) Pageable pageable) {
-        return Result.success(postService.getHotPosts(pageable));
+        return Result.success(postService.getHotPosts(gameId, pageable));
     }
 }
\ No newline at end of file
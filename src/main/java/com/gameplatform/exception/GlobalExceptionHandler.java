@@ -2,6 +2,7 @@ package com.gameplatform.exception;
 
 import com.gameplatform.common.Result;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -109,6 +110,15 @@ public class GlobalExceptionHandler {
                 .body(Result.error(BusinessException.ErrorCode.INVALID_PARAMETER, "上传文件过大"));
     }
 
+    // 导出线程池和等待队列已满
+    @ExceptionHandler(TaskRejectedException.class)
+    public ResponseEntity<Result<Void>> handleTaskRejectedException(TaskRejectedException ex) {
+        log.warn("异步任务被拒绝: {}", ex.getMessage());
+        return ResponseEntity
+                .status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body(Result.error(BusinessException.ErrorCode.OPERATION_FAILED, "导出任务过多，请稍后再试"));
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<Result<Void>> handleException(Exception ex) {
         log.error("系统异常: ", ex);
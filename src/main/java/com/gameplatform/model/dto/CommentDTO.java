@@ -17,6 +17,9 @@ public class CommentDTO {
     private String authorName;
     private String authorAvatar;
     private Long parentId;
+    private Integer depth;
+    // 直接回复数
+    private Integer replyCount;
     private Integer likeCount;
     private boolean isReported;
     private LocalDateTime createdAt;
@@ -0,0 +1,25 @@
+package com.gameplatform.model.dto;
+
+import lombok.Data;
+
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+
+/**
+ * @author SakurazawaRyoko
+ * @version 1.0
+ * @date 2025/01/12 20:00
+ * @description TODO
+ */
+@Data
+public class PlayHeartbeatDTO {
+    @NotNull
+    private Long gameId;
+
+    // 距上次心跳新增的游戏时长（分钟）
+    @NotNull
+    @Min(1)
+    @Max(60)
+    private Integer minutes;
+}
@@ -30,5 +30,6 @@ public class PostDTO {
     private List<CommentDTO> comments;
     private Integer viewCount;
     private Integer likeCount;
+    private Integer commentCount;
     private LocalDateTime createdAt;
 }
\ No newline at end of file
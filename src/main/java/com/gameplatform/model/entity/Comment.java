@@ -16,7 +16,12 @@ import java.util.List;
  */
 @Data
 @Entity
-@Table(name = "comments")
+@Table(name = "comments", indexes = {
+        @Index(name = "idx_comments_post_parent_created", columnList = "post_id, parent_id, createdAt, id"),
+        @Index(name = "idx_comments_user_created", columnList = "user_id, createdAt, id"),
+        @Index(name = "idx_comments_post_path", columnList = "post_id, path"),
+        @Index(name = "idx_comments_root_path", columnList = "rootId, path")
+})
 public class Comment {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -40,9 +45,24 @@ public class Comment {
     @OneToMany(mappedBy = "parentComment")
     private List<Comment> replies = new ArrayList<>();
 
-    @Column(nullable = false)
+    // 物化路径：各级祖先ID（定长36进制）依次拼接，按path排序即为先序遍历
+    @Column(length = 512)
+    private String path;
+
+    // 一级评论为0
+    private Integer depth;
+
+    // 所属一级评论ID
+    private Long rootId;
+
+    // 计数只通过原子增量语句修改，保存实体时不写回，避免覆盖并发的增量
+    @Column(nullable = false, updatable = false)
     private Integer likeCount = 0;
 
+    // 直接回复数，随回复增删原子更新，定时校准
+    @Column(nullable = false, updatable = false)
+    private Integer replyCount = 0;
+
     @Column(nullable = false)
     private boolean isReported = false;
 
@@ -47,6 +47,29 @@ public class Game {
     @Column(nullable = false)
     private Integer ratingCount = 0;
 
+    // 评分总和，与ratingCount一起增量维护平均分
+    @Column(nullable = false)
+    private Double ratingSum = 0.0;
+
+    // 各星级的评分人数，星级取评分的整数部分
+    @Column(nullable = false)
+    private Integer star0Count = 0;
+
+    @Column(nullable = false)
+    private Integer star1Count = 0;
+
+    @Column(nullable = false)
+    private Integer star2Count = 0;
+
+    @Column(nullable = false)
+    private Integer star3Count = 0;
+
+    @Column(nullable = false)
+    private Integer star4Count = 0;
+
+    @Column(nullable = false)
+    private Integer star5Count = 0;
+
     @Column(nullable = false)
     private Integer popularity = 0;
 
@@ -0,0 +1,37 @@
+package com.gameplatform.model.entity;
+
+import lombok.Data;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * @author SakurazawaRyoko
+ * @version 1.0
+ * @date 2025/01/13 09:30
+ * @description TODO
+ */
+@Data
+@Entity
+@Table(name = "game_play_events", indexes = {
+        @Index(name = "idx_play_events_played_at", columnList = "playedAt"),
+        @Index(name = "idx_play_events_game", columnList = "gameId")
+})
+public class GamePlayEvent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long gameId;
+
+    @Column(nullable = false)
+    private Long userId;
+
+    // 本次新增的游戏时长（分钟）
+    @Column(nullable = false)
+    private Integer minutes;
+
+    @Column(nullable = false)
+    private LocalDateTime playedAt;
+}
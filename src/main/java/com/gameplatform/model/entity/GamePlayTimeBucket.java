@@ -0,0 +1,32 @@
+package com.gameplatform.model.entity;
+
+import lombok.Data;
+
+import javax.persistence.*;
+
+/**
+ * @author SakurazawaRyoko
+ * @version 1.0
+ * @date 2025/01/12 21:00
+ * @description TODO
+ */
+@Data
+@Entity
+@Table(name = "game_play_time_buckets", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_play_time_buckets_game_bound", columnNames = {"gameId", "upperBound"})
+})
+public class GamePlayTimeBucket {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long gameId;
+
+    // 区间上界（分钟，含），最后一个区间为Integer.MAX_VALUE
+    @Column(nullable = false)
+    private Integer upperBound;
+
+    @Column(nullable = false)
+    private Long playerCount = 0L;
+}
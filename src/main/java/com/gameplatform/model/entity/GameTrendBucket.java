@@ -0,0 +1,87 @@
+package com.gameplatform.model.entity;
+
+import lombok.Data;
+
+import javax.persistence.*;
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+
+/**
+ * @author SakurazawaRyoko
+ * @version 1.0
+ * @date 2025/01/13 09:30
+ * @description TODO
+ */
+@Data
+@Entity
+@Table(name = "game_trend_buckets", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_trend_buckets_game_granularity_start",
+                columnNames = {"gameId", "granularity", "bucketStart"})
+}, indexes = {
+        @Index(name = "idx_trend_buckets_granularity_start", columnList = "granularity, bucketStart")
+})
+public class GameTrendBucket {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long gameId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 8)
+    private Granularity granularity;
+
+    @Column(nullable = false)
+    private LocalDateTime bucketStart;
+
+    // 区间内的游戏总时长（分钟）
+    @Column(nullable = false)
+    private Long playTime = 0L;
+
+    // 区间内游玩过的去重玩家数
+    @Column(nullable = false)
+    private Long playerCount = 0L;
+
+    public enum Granularity {
+        HOUR("DATE_FORMAT(played_at, '%Y-%m-%d %H:00:00')"),
+        DAY("DATE(played_at)"),
+        // 以周一为一周的开始
+        WEEK("DATE_SUB(DATE(played_at), INTERVAL WEEKDAY(played_at) DAY)");
+
+        private final String sqlExpression;
+
+        Granularity(String sqlExpression) {
+            this.sqlExpression = sqlExpression;
+        }
+
+        // 由played_at计算区间起点的SQL表达式，需与truncate保持一致
+        public String sqlExpression() {
+            return sqlExpression;
+        }
+
+        public LocalDateTime truncate(LocalDateTime time) {
+            switch (this) {
+                case HOUR:
+                    return time.truncatedTo(ChronoUnit.HOURS);
+                case DAY:
+                    return time.truncatedTo(ChronoUnit.DAYS);
+                default:
+                    return time.truncatedTo(ChronoUnit.DAYS).with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            }
+        }
+
+        public LocalDateTime plus(LocalDateTime time, long steps) {
+            switch (this) {
+                case HOUR:
+                    return time.plusHours(steps);
+                case DAY:
+                    return time.plusDays(steps);
+                default:
+                    return time.plusWeeks(steps);
+            }
+        }
+    }
+}
@@ -14,7 +14,11 @@ import java.time.LocalDateTime;
  */
 @Data
 @Entity
-@Table(name = "notifications")
+@Table(name = "notifications", indexes = {
+        @Index(name = "idx_notifications_user_created", columnList = "user_id, createdAt, id"),
+        @Index(name = "idx_notifications_user_type_created", columnList = "user_id, type, createdAt, id"),
+        @Index(name = "idx_notifications_created", columnList = "createdAt")
+})
 public class Notification {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
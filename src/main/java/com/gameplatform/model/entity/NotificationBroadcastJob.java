@@ -0,0 +1,83 @@
+package com.gameplatform.model.entity;
+
+import lombok.Data;
+import org.hibernate.annotations.CreationTimestamp;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * @author SakurazawaRyoko
+ * @version 1.0
+ * @date 2025/01/13 11:30
+ * @description TODO
+ */
+@Data
+@Entity
+@Table(name = "notification_broadcast_jobs", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_broadcast_jobs_key", columnNames = {"jobKey"})
+}, indexes = {
+        @Index(name = "idx_broadcast_jobs_status_updated", columnList = "status, updatedAt")
+})
+public class NotificationBroadcastJob {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // 业务唯一键，如每日提醒按日期区分，同一个键只会广播一次
+    @Column(nullable = false, length = 100)
+    private String jobKey;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Audience audience;
+
+    @Column(nullable = false)
+    private String title;
+
+    @Column(columnDefinition = "TEXT", nullable = false)
+    private String content;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Notification.NotificationType type;
+
+    @Column(nullable = false)
+    private String targetType;
+
+    private Long targetId;
+
+    // 已写入通知的最后一个用户ID，重启后从这里继续
+    @Column(nullable = false)
+    private Long lastUserId = 0L;
+
+    @Column(nullable = false)
+    private Long deliveredCount = 0L;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private JobStatus status = JobStatus.PENDING;
+
+    @Column(nullable = false)
+    private Integer attempts = 0;
+
+    private String lastError;
+
+    @CreationTimestamp
+    private LocalDateTime createdAt;
+
+    // 每处理完一批刷新一次，用于判断执行中的任务是否已中断
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+
+    public enum Audience {
+        ACTIVE_USERS     // 所有状态正常的用户
+    }
+
+    public enum JobStatus {
+        PENDING,     // 等待执行
+        RUNNING,     // 执行中
+        COMPLETED,   // 已完成
+        FAILED       // 重试次数用尽
+    }
+}
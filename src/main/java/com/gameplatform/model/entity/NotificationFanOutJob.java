@@ -0,0 +1,66 @@
+package com.gameplatform.model.entity;
+
+import lombok.Data;
+import org.hibernate.annotations.CreationTimestamp;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * @author SakurazawaRyoko
+ * @version 1.0
+ * @date 2025/01/12 10:10
+ * @description TODO
+ */
+@Data
+@Entity
+@Table(name = "notification_fan_out_jobs", indexes = {
+        @Index(name = "idx_fan_out_jobs_status_updated", columnList = "status, updatedAt")
+})
+public class NotificationFanOutJob {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long postId;
+
+    @Column(nullable = false)
+    private Long authorId;
+
+    @Column(nullable = false)
+    private String title;
+
+    @Column(columnDefinition = "TEXT", nullable = false)
+    private String content;
+
+    // 已写入通知的最后一个粉丝ID，重启后从这里继续
+    @Column(nullable = false)
+    private Long lastFollowerId = 0L;
+
+    @Column(nullable = false)
+    private Integer deliveredCount = 0;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private JobStatus status = JobStatus.PENDING;
+
+    @Column(nullable = false)
+    private Integer attempts = 0;
+
+    private String lastError;
+
+    @CreationTimestamp
+    private LocalDateTime createdAt;
+
+    // 每处理完一批刷新一次，用于判断执行中的任务是否已中断
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+
+    public enum JobStatus {
+        PENDING,     // 等待执行
+        RUNNING,     // 执行中
+        COMPLETED,   // 已完成
+        FAILED       // 重试次数用尽
+    }
+}
@@ -17,7 +17,10 @@ import java.util.List;
  */
 @Data
 @Entity
-@Table(name = "posts")
+@Table(name = "posts", indexes = {
+        @Index(name = "idx_posts_game_created", columnList = "game_id, createdAt, id"),
+        @Index(name = "idx_posts_created", columnList = "createdAt, id")
+})
 public class Post {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -37,12 +40,17 @@ public class Post {
     @JoinColumn(name = "game_id")
     private Game game;
 
-    @Column(nullable = false)
+    // 以下计数只通过原子增量语句修改，保存实体时不写回，避免覆盖并发的增量
+    @Column(nullable = false, updatable = false)
     private Integer viewCount = 0;
 
-    @Column(nullable = false)
+    @Column(nullable = false, updatable = false)
     private Integer likeCount = 0;
 
+    // 评论总数（含回复），随评论增删原子更新，定时校准
+    @Column(nullable = false, updatable = false)
+    private Integer commentCount = 0;
+
     @Column(nullable = false)
     private boolean isReported = false;
 
@@ -14,7 +14,8 @@ import java.time.LocalDateTime;
  */
 @Data
 @Entity
-@Table(name = "post_likes")
+@Table(name = "post_likes",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"post_id", "user_id"}))
 public class PostLike {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
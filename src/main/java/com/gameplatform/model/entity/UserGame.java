@@ -13,7 +13,9 @@ import java.time.LocalDateTime;
  */
 @Data
 @Entity
-@Table(name = "user_games")
+@Table(name = "user_games", indexes = {
+        @Index(name = "idx_user_game_user_game", columnList = "user_id, game_id")
+})
 public class UserGame {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -0,0 +1,33 @@
+package com.gameplatform.model.message;
+
+import com.gameplatform.model.dto.NotificationDTO;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * @author SakurazawaRyoko
+ * @version 1.0
+ * @date 2025/01/13 16:10
+ * @description TODO
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationBatchMessage implements Serializable {
+    // 同一条通知的所有接收者，内容只序列化一次
+    private List<Long> userIds;
+    private String type;
+    private String title;
+    private String content;
+
+    public NotificationBatchMessage(List<Long> userIds, NotificationDTO notificationDTO) {
+        this.userIds = userIds;
+        this.type = notificationDTO.getType().toString();
+        this.title = notificationDTO.getTitle();
+        this.content = notificationDTO.getContent();
+    }
+}
@@ -0,0 +1,24 @@
+package com.gameplatform.model.message;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * @author SakurazawaRyoko
+ * @version 1.0
+ * @date 2025/01/13 18:50
+ * @description TODO
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SearchIndexMessage implements Serializable {
+    // 发出变更的实例，收到自己发出的消息时忽略
+    private String node;
+    // POST 或 GAME
+    private String type;
+    private Long id;
+}
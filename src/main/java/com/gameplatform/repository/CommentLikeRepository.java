@@ -2,9 +2,11 @@ package com.gameplatform.repository;
 
 import com.gameplatform.model.entity.CommentLike;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -22,4 +24,11 @@ public interface CommentLikeRepository extends JpaRepository<CommentLike, Long>
     long countByCommentId(@Param("commentId") Long commentId);
 
     void deleteByCommentIdAndUserId(Long commentId, Long userId);
+
+    @Query("SELECT cl.user.id FROM CommentLike cl WHERE cl.comment.id = :commentId")
+    List<Long> findUserIdsByCommentId(@Param("commentId") Long commentId);
+
+    @Modifying
+    @Query("DELETE FROM CommentLike cl WHERE cl.comment.id = :commentId AND cl.user.id = :userId")
+    int removeLike(@Param("commentId") Long commentId, @Param("userId") Long userId);
 }
\ No newline at end of file
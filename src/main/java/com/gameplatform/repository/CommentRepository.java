@@ -4,10 +4,12 @@ import com.gameplatform.model.entity.Comment;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 
@@ -40,10 +42,86 @@ public interface CommentRepository extends JpaRepository<Comment, Long> {
 
     List<Comment> findByPostIdOrderByCreatedAtDesc(Long postId);
 
+    @Modifying
+    @Query("UPDATE Comment c SET c.likeCount = c.likeCount + :delta WHERE c.id = :commentId")
+    int addLikeCount(@Param("commentId") Long commentId, @Param("delta") Long delta);
+
+    @Modifying
+    @Query(value = "UPDATE comments c SET c.like_count = " +
+            "(SELECT COUNT(*) FROM comment_likes cl WHERE cl.comment_id = c.id) " +
+            "WHERE c.id IN (:commentIds)", nativeQuery = true)
+    int reconcileLikeCounts(@Param("commentIds") List<Long> commentIds);
+
     @Query("SELECT c FROM Comment c WHERE c.post.id = :postId AND c.parentComment IS NULL " +
             "ORDER BY c.likeCount DESC, c.createdAt DESC")
     Page<Comment> findTopLevelCommentsByPostId(
             @Param("postId") Long postId,
             Pageable pageable
     );
-}
\ No newline at end of file
+
+    // 游标分页：按(createdAt, id)倒序取游标之后的记录
+    @Query("SELECT c FROM Comment c WHERE c.post.id = :postId AND c.parentComment IS NULL " +
+            "AND c.createdAt <= :createdAt AND (c.createdAt < :createdAt OR c.id < :id) " +
+            "ORDER BY c.createdAt DESC, c.id DESC")
+    List<Comment> findTopLevelCommentsBefore(@Param("postId") Long postId,
+                                             @Param("createdAt") LocalDateTime createdAt,
+                                             @Param("id") Long id,
+                                             Pageable pageable);
+
+    @Query("SELECT c FROM Comment c WHERE c.author.id = :authorId " +
+            "AND c.createdAt <= :createdAt AND (c.createdAt < :createdAt OR c.id < :id) " +
+            "ORDER BY c.createdAt DESC, c.id DESC")
+    List<Comment> findByAuthorBefore(@Param("authorId") Long authorId,
+                                     @Param("createdAt") LocalDateTime createdAt,
+                                     @Param("id") Long id,
+                                     Pageable pageable);
+
+    // 评论树：按物化路径排序，一次查询取出整棵树或子树
+    @Query("SELECT c FROM Comment c WHERE c.post.id = :postId AND c.depth <= :maxDepth ORDER BY c.path")
+    List<Comment> findThread(@Param("postId") Long postId, @Param("maxDepth") int maxDepth);
+
+    @Query("SELECT c FROM Comment c WHERE c.post.id = :postId AND c.path LIKE CONCAT(:path, '%') " +
+            "AND c.depth <= :maxDepth ORDER BY c.path")
+    List<Comment> findSubtree(@Param("postId") Long postId,
+                              @Param("path") String path,
+                              @Param("maxDepth") int maxDepth);
+
+    // 每个一级评论按先序取前N条回复，祖先一定排在子孙前面，截断后仍是完整的树
+    @Query(value = "SELECT t.* FROM (" +
+            "SELECT c.*, ROW_NUMBER() OVER (PARTITION BY c.root_id ORDER BY c.path) AS rn " +
+            "FROM comments c WHERE c.root_id IN (:rootIds) AND c.depth > 0 AND c.depth <= :maxDepth" +
+            ") t WHERE t.rn <= :limit ORDER BY t.path", nativeQuery = true)
+    List<Comment> findReplyPreviews(@Param("rootIds") Collection<Long> rootIds,
+                                    @Param("maxDepth") int maxDepth,
+                                    @Param("limit") int limit);
+
+    // 存量数据回填路径：先处理一级评论，再逐层处理子评论
+    @Modifying
+    @Query(value = "UPDATE comments SET path = CONCAT(LPAD(CONV(id, 10, 36), 8, '0'), '/'), " +
+            "depth = 0, root_id = id WHERE parent_id IS NULL AND path IS NULL", nativeQuery = true)
+    int backfillRootPaths();
+
+    @Modifying
+    @Query(value = "UPDATE comments c JOIN comments p ON c.parent_id = p.id " +
+            "SET c.path = CONCAT(p.path, LPAD(CONV(c.id, 10, 36), 8, '0'), '/'), " +
+            "c.depth = p.depth + 1, c.root_id = p.root_id " +
+            "WHERE c.path IS NULL AND p.path IS NOT NULL", nativeQuery = true)
+    int backfillChildPaths();
+
+    @Modifying
+    @Query("UPDATE Comment c SET c.replyCount = c.replyCount + :delta WHERE c.id = :commentId")
+    int addReplyCount(@Param("commentId") Long commentId, @Param("delta") int delta);
+
+    @Query("SELECT MAX(c.id) FROM Comment c")
+    Long findMaxId();
+
+    // 按ID区间批量校准回复数，派生表先物化，可以引用同一张表
+    @Modifying
+    @Query(value = "UPDATE comments c LEFT JOIN (" +
+            "SELECT r.parent_id, COUNT(*) AS cnt FROM comments r " +
+            "WHERE r.parent_id BETWEEN :fromId AND :toId GROUP BY r.parent_id" +
+            ") t ON t.parent_id = c.id " +
+            "SET c.reply_count = COALESCE(t.cnt, 0) " +
+            "WHERE c.id BETWEEN :fromId AND :toId AND c.reply_count <> COALESCE(t.cnt, 0)", nativeQuery = true)
+    int reconcileReplyCounts(@Param("fromId") Long fromId, @Param("toId") Long toId);
+}
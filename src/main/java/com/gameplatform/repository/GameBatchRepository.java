@@ -0,0 +1,60 @@
+package com.gameplatform.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author SakurazawaRyoko
+ * @version 1.0
+ * @date 2025/01/12 17:30
+ * @description TODO
+ */
+@Repository
+@RequiredArgsConstructor
+public class GameBatchRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private static final String UPDATE_POPULARITY_SQL =
+            "UPDATE games SET popularity = ?, version = version + 1 WHERE id = ?";
+
+    private static final String APPLY_PLAY_TIME_BUCKET_SQL = "INSERT INTO game_play_time_buckets " +
+            "(game_id, upper_bound, player_count) VALUES (?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE player_count = player_count + VALUES(player_count)";
+
+    // 批量写回人气值，key为游戏ID
+    public int[] updatePopularity(Map<Long, Integer> popularity) {
+        List<Map.Entry<Long, Integer>> entries = new ArrayList<>(popularity.entrySet());
+        return jdbcTemplate.batchUpdate(UPDATE_POPULARITY_SQL, entries, entries.size(), (ps, entry) -> {
+            ps.setInt(1, entry.getValue());
+            ps.setLong(2, entry.getKey());
+        })[0];
+    }
+
+    // 每行为 {gameId, 区间上界, 人数增量}
+    public int[] applyPlayTimeBucketDeltas(List<long[]> deltas) {
+        return jdbcTemplate.batchUpdate(APPLY_PLAY_TIME_BUCKET_SQL, deltas, deltas.size(), (ps, delta) -> {
+            ps.setLong(1, delta[0]);
+            ps.setInt(2, (int) delta[1]);
+            ps.setLong(3, delta[2]);
+        })[0];
+    }
+
+    // 按给定区间从user_games重新统计ID在[fromId, toId]内游戏的时长分布
+    public int rebuildPlayTimeBuckets(int[] upperBounds, long fromId, long toId) {
+        StringBuilder bucket = new StringBuilder("CASE");
+        for (int bound : upperBounds) {
+            bucket.append(" WHEN COALESCE(play_time, 0) <= ").append(bound).append(" THEN ").append(bound);
+        }
+        bucket.append(" ELSE ").append(Integer.MAX_VALUE).append(" END");
+        jdbcTemplate.update("DELETE FROM game_play_time_buckets WHERE game_id BETWEEN ? AND ?", fromId, toId);
+        return jdbcTemplate.update("INSERT INTO game_play_time_buckets (game_id, upper_bound, player_count) " +
+                "SELECT game_id, " + bucket + " AS bound, COUNT(*) FROM user_games " +
+                "WHERE game_id BETWEEN ? AND ? GROUP BY game_id, bound", fromId, toId);
+    }
+}
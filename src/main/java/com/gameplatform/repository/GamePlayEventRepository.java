@@ -0,0 +1,37 @@
+package com.gameplatform.repository;
+
+import com.gameplatform.model.entity.GamePlayEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * @author SakurazawaRyoko
+ * @version 1.0
+ * @date 2025/01/13 09:30
+ * @description TODO
+ */
+public interface GamePlayEventRepository extends JpaRepository<GamePlayEvent, Long> {
+    @Query("SELECT MAX(e.id) FROM GamePlayEvent e")
+    Long findMaxId();
+
+    // 上次汇总之后写入的事件中最早的游玩时间，补报的旧事件也能被重新汇总
+    @Query("SELECT MIN(e.playedAt) FROM GamePlayEvent e WHERE e.id > :afterId AND e.id <= :toId")
+    LocalDateTime findEarliestPlayedAt(@Param("afterId") Long afterId, @Param("toId") Long toId);
+
+    // 指定ID区间内有新事件的游戏，汇总时只重算这些游戏的区间
+    @Query("SELECT DISTINCT e.gameId FROM GamePlayEvent e WHERE e.id > :afterId AND e.id <= :toId")
+    List<Long> findGameIdsBetween(@Param("afterId") Long afterId, @Param("toId") Long toId);
+
+    @Modifying
+    @Query("DELETE FROM GamePlayEvent e WHERE e.gameId = :gameId")
+    int deleteByGameId(@Param("gameId") Long gameId);
+
+    @Modifying
+    @Query(value = "DELETE FROM game_play_events WHERE played_at < :before LIMIT :limit", nativeQuery = true)
+    int deleteOlderThan(@Param("before") LocalDateTime before, @Param("limit") int limit);
+}
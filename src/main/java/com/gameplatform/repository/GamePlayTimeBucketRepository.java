@@ -0,0 +1,26 @@
+package com.gameplatform.repository;
+
+import com.gameplatform.model.entity.GamePlayTimeBucket;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+/**
+ * @author SakurazawaRyoko
+ * @version 1.0
+ * @date 2025/01/12 21:00
+ * @description TODO
+ */
+public interface GamePlayTimeBucketRepository extends JpaRepository<GamePlayTimeBucket, Long> {
+    List<GamePlayTimeBucket> findByGameId(Long gameId);
+
+    @Query("SELECT DISTINCT b.upperBound FROM GamePlayTimeBucket b")
+    List<Integer> findDistinctUpperBounds();
+
+    @Modifying
+    @Query("DELETE FROM GamePlayTimeBucket b WHERE b.gameId = :gameId")
+    int deleteByGameId(@Param("gameId") Long gameId);
+}
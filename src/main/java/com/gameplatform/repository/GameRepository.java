@@ -4,6 +4,7 @@ import com.gameplatform.model.entity.Game;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
@@ -38,6 +39,19 @@ public interface GameRepository extends JpaRepository<Game, Long> {
     @Query("SELECT DISTINCT c FROM Game g JOIN g.categories c")
     List<String> findAllCategories();
 
+    @Query("SELECT c, COUNT(g) FROM Game g JOIN g.categories c WHERE " +
+            "(:title IS NULL OR LOWER(g.title) LIKE LOWER(CONCAT('%', :title, '%'))) AND " +
+            "(:minRating IS NULL OR g.rating >= :minRating) " +
+            "GROUP BY c")
+    List<Object[]> countByCategory(@Param("title") String title, @Param("minRating") Double minRating);
+
+    // 目录快照加载：分类随游戏一次取出，截图单独一条查询，避免逐个游戏加载集合
+    @Query("SELECT DISTINCT g FROM Game g LEFT JOIN FETCH g.categories")
+    List<Game> findAllWithCategories();
+
+    @Query("SELECT g.id, s FROM Game g JOIN g.screenshots s")
+    List<Object[]> findAllScreenshots();
+
     List<Game> findTop10ByOrderByPopularityDesc();
 
     @Query("SELECT COUNT(g) FROM Game g WHERE g.rating >= :rating")
@@ -61,4 +75,67 @@ public interface GameRepository extends JpaRepository<Game, Long> {
 
     @Query("SELECT DISTINCT g FROM Game g JOIN g.categories c WHERE c = :category")
     Page<Game> findByCategory(@Param("category") String category, Pageable pageable);
-}
\ No newline at end of file
+
+    // 按ID游标分批读取，用于重建搜索索引
+    List<Game> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    @Query("SELECT MAX(g.id) FROM Game g")
+    Long findMaxId();
+
+    @Query("SELECT g.id FROM Game g ORDER BY g.id")
+    List<Long> findAllIdsOrderById();
+
+    // 只取计算人气所需的列，按ID游标分批读取
+    @Query("SELECT g.id, g.rating, g.popularity FROM Game g WHERE g.id > :afterId ORDER BY g.id")
+    List<Object[]> findPopularityInputs(@Param("afterId") Long afterId, Pageable pageable);
+
+    // MySQL按书写顺序执行赋值，rating和rating_sum需排在rating_count之前以读取旧值；
+    // 星级参数为-1表示没有旧评分或新评分
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "UPDATE games SET " +
+            "rating = CASE WHEN rating_count + :countDelta > 0 " +
+            "THEN (rating_sum + :sumDelta) / (rating_count + :countDelta) ELSE 0 END, " +
+            "rating_sum = CASE WHEN rating_count + :countDelta > 0 THEN rating_sum + :sumDelta ELSE 0 END, " +
+            "rating_count = rating_count + :countDelta, " +
+            "star0_count = star0_count + (:newStar = 0) - (:oldStar = 0), " +
+            "star1_count = star1_count + (:newStar = 1) - (:oldStar = 1), " +
+            "star2_count = star2_count + (:newStar = 2) - (:oldStar = 2), " +
+            "star3_count = star3_count + (:newStar = 3) - (:oldStar = 3), " +
+            "star4_count = star4_count + (:newStar = 4) - (:oldStar = 4), " +
+            "star5_count = star5_count + (:newStar = 5) - (:oldStar = 5), " +
+            "version = version + 1 " +
+            "WHERE id = :gameId", nativeQuery = true)
+    int applyRatingDelta(@Param("gameId") Long gameId,
+                         @Param("sumDelta") double sumDelta,
+                         @Param("countDelta") int countDelta,
+                         @Param("oldStar") int oldStar,
+                         @Param("newStar") int newStar);
+
+    // 有评分但星级分布全为0的游戏，说明评分总和与星级分布尚未回填
+    @Query(value = "SELECT id FROM games WHERE rating_count > 0 AND star0_count + star1_count + star2_count + " +
+            "star3_count + star4_count + star5_count = 0 ORDER BY id", nativeQuery = true)
+    List<Long> findIdsWithoutRatingAggregates();
+
+    // 按ID区间用用户评分重新汇总，只改写有偏差的行
+    @Modifying
+    @Query(value = "UPDATE games g LEFT JOIN (" +
+            "SELECT ug.game_id, SUM(ug.user_rating) AS total, COUNT(*) AS cnt, " +
+            "SUM(FLOOR(ug.user_rating) = 0) AS s0, SUM(FLOOR(ug.user_rating) = 1) AS s1, " +
+            "SUM(FLOOR(ug.user_rating) = 2) AS s2, SUM(FLOOR(ug.user_rating) = 3) AS s3, " +
+            "SUM(FLOOR(ug.user_rating) = 4) AS s4, SUM(FLOOR(ug.user_rating) = 5) AS s5 " +
+            "FROM user_games ug WHERE ug.game_id BETWEEN :fromId AND :toId AND ug.user_rating IS NOT NULL " +
+            "GROUP BY ug.game_id" +
+            ") r ON r.game_id = g.id " +
+            "SET g.rating = COALESCE(r.total / r.cnt, 0), g.rating_sum = COALESCE(r.total, 0), " +
+            "g.rating_count = COALESCE(r.cnt, 0), " +
+            "g.star0_count = COALESCE(r.s0, 0), g.star1_count = COALESCE(r.s1, 0), " +
+            "g.star2_count = COALESCE(r.s2, 0), g.star3_count = COALESCE(r.s3, 0), " +
+            "g.star4_count = COALESCE(r.s4, 0), g.star5_count = COALESCE(r.s5, 0), " +
+            "g.version = g.version + 1 " +
+            "WHERE g.id BETWEEN :fromId AND :toId AND (" +
+            "g.rating_count <> COALESCE(r.cnt, 0) OR ABS(g.rating_sum - COALESCE(r.total, 0)) > 0.0001 " +
+            "OR g.star0_count <> COALESCE(r.s0, 0) OR g.star1_count <> COALESCE(r.s1, 0) " +
+            "OR g.star2_count <> COALESCE(r.s2, 0) OR g.star3_count <> COALESCE(r.s3, 0) " +
+            "OR g.star4_count <> COALESCE(r.s4, 0) OR g.star5_count <> COALESCE(r.s5, 0))", nativeQuery = true)
+    int reconcileRatings(@Param("fromId") Long fromId, @Param("toId") Long toId);
+}
@@ -0,0 +1,59 @@
+package com.gameplatform.repository;
+
+import com.gameplatform.model.entity.GameTrendBucket;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * @author SakurazawaRyoko
+ * @version 1.0
+ * @date 2025/01/13 09:30
+ * @description TODO
+ */
+@Repository
+@RequiredArgsConstructor
+public class GameTrendBatchRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private static final String INSERT_EVENT_SQL =
+            "INSERT INTO game_play_events (user_id, game_id, minutes, played_at) VALUES (?, ?, ?, ?)";
+
+    // 每行为 {userId, gameId, 新增分钟数, 游玩时间戳(毫秒)}
+    public int[][] insertPlayEvents(List<long[]> rows, int batchSize) {
+        return jdbcTemplate.batchUpdate(INSERT_EVENT_SQL, rows, batchSize, (ps, row) -> {
+            ps.setLong(1, row[0]);
+            ps.setLong(2, row[1]);
+            ps.setInt(3, (int) row[2]);
+            ps.setTimestamp(4, new Timestamp(row[3]));
+        });
+    }
+
+    // 用事件日志重新计算from之后的区间，结果覆盖旧值，可重复执行；gameIds为空时重算全部游戏
+    public int rollup(GameTrendBucket.Granularity granularity, LocalDateTime from, List<Long> gameIds) {
+        String bucket = granularity.sqlExpression();
+        StringBuilder sql = new StringBuilder("INSERT INTO game_trend_buckets " +
+                "(game_id, granularity, bucket_start, play_time, player_count) " +
+                "SELECT game_id, ?, " + bucket + " AS bucket_start, SUM(minutes), COUNT(DISTINCT user_id) " +
+                "FROM game_play_events WHERE played_at >= ?");
+        Object[] args = new Object[gameIds.size() + 2];
+        args[0] = granularity.name();
+        args[1] = Timestamp.valueOf(from);
+        if (!gameIds.isEmpty()) {
+            sql.append(" AND game_id IN (");
+            for (int i = 0; i < gameIds.size(); i++) {
+                sql.append(i == 0 ? "?" : ", ?");
+                args[i + 2] = gameIds.get(i);
+            }
+            sql.append(")");
+        }
+        sql.append(" GROUP BY game_id, bucket_start " +
+                "ON DUPLICATE KEY UPDATE play_time = VALUES(play_time), player_count = VALUES(player_count)");
+        return jdbcTemplate.update(sql.toString(), args);
+    }
+}
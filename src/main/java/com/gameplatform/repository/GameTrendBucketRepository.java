@@ -0,0 +1,34 @@
+package com.gameplatform.repository;
+
+import com.gameplatform.model.entity.GameTrendBucket;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * @author SakurazawaRyoko
+ * @version 1.0
+ * @date 2025/01/13 09:30
+ * @description TODO
+ */
+public interface GameTrendBucketRepository extends JpaRepository<GameTrendBucket, Long> {
+    @Query("SELECT b FROM GameTrendBucket b WHERE b.gameId = :gameId AND b.granularity = :granularity " +
+            "AND b.bucketStart >= :from ORDER BY b.bucketStart")
+    List<GameTrendBucket> findSeries(@Param("gameId") Long gameId,
+                                     @Param("granularity") GameTrendBucket.Granularity granularity,
+                                     @Param("from") LocalDateTime from);
+
+    @Modifying
+    @Query("DELETE FROM GameTrendBucket b WHERE b.gameId = :gameId")
+    int deleteByGameId(@Param("gameId") Long gameId);
+
+    @Modifying
+    @Query(value = "DELETE FROM game_trend_buckets WHERE granularity = :granularity AND bucket_start < :before " +
+            "LIMIT :limit", nativeQuery = true)
+    int deleteOlderThan(@Param("granularity") String granularity, @Param("before") LocalDateTime before,
+                        @Param("limit") int limit);
+}
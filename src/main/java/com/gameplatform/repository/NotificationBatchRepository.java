@@ -0,0 +1,48 @@
+package com.gameplatform.repository;
+
+import com.gameplatform.model.entity.Notification;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * @author SakurazawaRyoko
+ * @version 1.0
+ * @date 2025/01/12 10:20
+ * @description TODO
+ */
+@Repository
+@RequiredArgsConstructor
+public class NotificationBatchRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private static final String INSERT_SQL = "INSERT INTO notifications " +
+            "(user_id, title, content, type, target_type, target_id, is_read, created_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, false, ?)";
+
+    // 同一条通知批量写给多个用户，配合rewriteBatchedStatements合并为多值INSERT
+    public int[] insertForUsers(List<Long> userIds, String title, String content,
+                                Notification.NotificationType type, String targetType, Long targetId,
+                                LocalDateTime createdAt) {
+        Timestamp timestamp = Timestamp.valueOf(createdAt);
+        return jdbcTemplate.batchUpdate(INSERT_SQL, userIds, userIds.size(), (ps, userId) -> {
+            ps.setLong(1, userId);
+            ps.setString(2, title);
+            ps.setString(3, content);
+            ps.setString(4, type.name());
+            ps.setString(5, targetType);
+            if (targetId != null) {
+                ps.setLong(6, targetId);
+            } else {
+                ps.setNull(6, Types.BIGINT);
+            }
+            ps.setTimestamp(7, timestamp);
+        })[0];
+    }
+}
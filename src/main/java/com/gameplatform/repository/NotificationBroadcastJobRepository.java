@@ -0,0 +1,66 @@
+package com.gameplatform.repository;
+
+import com.gameplatform.model.entity.NotificationBroadcastJob;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * @author SakurazawaRyoko
+ * @version 1.0
+ * @date 2025/01/13 11:30
+ * @description TODO
+ */
+public interface NotificationBroadcastJobRepository extends JpaRepository<NotificationBroadcastJob, Long> {
+
+    Optional<NotificationBroadcastJob> findByJobKey(String jobKey);
+
+    // 抢占任务：只有等待中或心跳超时的任务能被领取，保证同一时间只有一个执行者
+    @Modifying
+    @Query("UPDATE NotificationBroadcastJob j SET j.status = com.gameplatform.model.entity.NotificationBroadcastJob.JobStatus.RUNNING, " +
+            "j.attempts = j.attempts + 1, j.updatedAt = :now " +
+            "WHERE j.id = :id AND (j.status = com.gameplatform.model.entity.NotificationBroadcastJob.JobStatus.PENDING " +
+            "OR (j.status = com.gameplatform.model.entity.NotificationBroadcastJob.JobStatus.RUNNING AND j.updatedAt < :staleBefore))")
+    int claim(@Param("id") Long id, @Param("now") LocalDateTime now, @Param("staleBefore") LocalDateTime staleBefore);
+
+    // 以下更新都带上领取时的attempts作为租约标记，租约被其他执行者接管后返回0
+    @Modifying
+    @Query("UPDATE NotificationBroadcastJob j SET j.lastUserId = :lastUserId, " +
+            "j.deliveredCount = j.deliveredCount + :delivered, j.updatedAt = :now " +
+            "WHERE j.id = :id AND j.attempts = :attempt " +
+            "AND j.status = com.gameplatform.model.entity.NotificationBroadcastJob.JobStatus.RUNNING")
+    int advance(@Param("id") Long id,
+                @Param("attempt") int attempt,
+                @Param("lastUserId") Long lastUserId,
+                @Param("delivered") int delivered,
+                @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE NotificationBroadcastJob j SET j.updatedAt = :now " +
+            "WHERE j.id = :id AND j.attempts = :attempt " +
+            "AND j.status = com.gameplatform.model.entity.NotificationBroadcastJob.JobStatus.RUNNING")
+    int heartbeat(@Param("id") Long id, @Param("attempt") int attempt, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE NotificationBroadcastJob j SET j.status = :status, j.lastError = :error, j.updatedAt = :now " +
+            "WHERE j.id = :id AND j.attempts = :attempt " +
+            "AND j.status = com.gameplatform.model.entity.NotificationBroadcastJob.JobStatus.RUNNING")
+    int updateStatus(@Param("id") Long id,
+                     @Param("attempt") int attempt,
+                     @Param("status") NotificationBroadcastJob.JobStatus status,
+                     @Param("error") String error,
+                     @Param("now") LocalDateTime now);
+
+    // 等待中或执行中断超过一定时间的任务，由补偿任务重新领取
+    @Query("SELECT j.id FROM NotificationBroadcastJob j " +
+            "WHERE j.status IN (com.gameplatform.model.entity.NotificationBroadcastJob.JobStatus.PENDING, " +
+            "com.gameplatform.model.entity.NotificationBroadcastJob.JobStatus.RUNNING) " +
+            "AND j.updatedAt < :staleBefore ORDER BY j.id")
+    List<Long> findStalledJobIds(@Param("staleBefore") LocalDateTime staleBefore, Pageable pageable);
+}
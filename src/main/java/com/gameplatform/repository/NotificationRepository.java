@@ -36,15 +36,33 @@ public interface NotificationRepository extends JpaRepository<Notification, Long
             @Param("type") Notification.NotificationType type
     );
 
+    // 一次查询得到各类型的未读数量，用于重建未读计数
+    @Query("SELECT n.type, COUNT(n) FROM Notification n WHERE n.user.id = :userId AND n.isRead = false " +
+            "GROUP BY n.type")
+    List<Object[]> countUnreadGroupByType(@Param("userId") Long userId);
+
     @Modifying
     @Query("UPDATE Notification n SET n.isRead = true WHERE n.user.id = :userId")
     void markAllAsRead(@Param("userId") Long userId);
 
+    // 只有从未读变为已读时返回1，并发标记同一条通知时只有一个事务会调整未读计数
     @Modifying
-    @Query("UPDATE Notification n SET n.isRead = true WHERE n.id = :id AND n.user.id = :userId")
-    void markAsRead(@Param("id") Long id, @Param("userId") Long userId);
+    @Query("UPDATE Notification n SET n.isRead = true, n.readAt = :readAt " +
+            "WHERE n.id = :id AND n.user.id = :userId AND n.isRead = false")
+    int markAsRead(@Param("id") Long id, @Param("userId") Long userId, @Param("readAt") LocalDateTime readAt);
 
     @Modifying
-    @Query("DELETE FROM Notification n WHERE n.createdAt < :threshold")
-    int deleteByCreatedAtBefore(@Param("threshold") LocalDateTime threshold);
+    @Query("DELETE FROM Notification n WHERE n.id = :id AND n.user.id = :userId")
+    int deleteByIdAndUserId(@Param("id") Long id, @Param("userId") Long userId);
+
+    // 游标分页：按(createdAt, id)倒序取游标之后的记录，type为空时不过滤类型
+    @Query("SELECT n FROM Notification n WHERE n.user.id = :userId " +
+            "AND (:type IS NULL OR n.type = :type) " +
+            "AND n.createdAt <= :createdAt AND (n.createdAt < :createdAt OR n.id < :id) " +
+            "ORDER BY n.createdAt DESC, n.id DESC")
+    List<Notification> findByUserBefore(@Param("userId") Long userId,
+                                        @Param("type") Notification.NotificationType type,
+                                        @Param("createdAt") LocalDateTime createdAt,
+                                        @Param("id") Long id,
+                                        Pageable pageable);
 }
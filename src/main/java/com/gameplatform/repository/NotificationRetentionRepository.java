@@ -0,0 +1,80 @@
+package com.gameplatform.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * @author SakurazawaRyoko
+ * @version 1.0
+ * @date 2025/01/13 15:20
+ * @description TODO
+ */
+@Repository
+@RequiredArgsConstructor
+public class NotificationRetentionRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private static final String COLUMNS =
+            "id, user_id, title, content, type, target_type, target_id, is_read, created_at, read_at";
+
+    // 以下语句都限定在ID区间内，只锁住本批的行
+    private static final String RANGE = " FROM notifications WHERE id BETWEEN ? AND ? AND created_at < ?";
+
+    private static final String CREATE_ARCHIVE_TABLE_SQL = "CREATE TABLE IF NOT EXISTS notifications_archive (" +
+            "id BIGINT NOT NULL PRIMARY KEY, " +
+            "user_id BIGINT, " +
+            "title VARCHAR(255) NOT NULL, " +
+            "content TEXT NOT NULL, " +
+            "type VARCHAR(255) NOT NULL, " +
+            "target_type VARCHAR(255) NOT NULL, " +
+            "target_id BIGINT, " +
+            "is_read BIT NOT NULL, " +
+            "created_at DATETIME(6), " +
+            "read_at DATETIME(6), " +
+            "archived_at DATETIME(6) NOT NULL, " +
+            "KEY idx_notifications_archive_user_created (user_id, created_at)" +
+            ") ROW_FORMAT=COMPRESSED";
+
+    // 过期通知的ID范围，走created_at索引，只扫描需要清理的部分；没有过期通知时返回null
+    public long[] findExpiredIdRange(LocalDateTime threshold) {
+        return jdbcTemplate.query("SELECT MIN(id), MAX(id) FROM notifications WHERE created_at < ?",
+                rs -> {
+                    rs.next();
+                    long min = rs.getLong(1);
+                    return rs.wasNull() ? null : new long[]{min, rs.getLong(2)};
+                }, Timestamp.valueOf(threshold));
+    }
+
+    public void ensureArchiveTable() {
+        jdbcTemplate.execute(CREATE_ARCHIVE_TABLE_SQL);
+    }
+
+    // 重试时已归档的行直接跳过
+    public int archiveToTable(long fromId, long toId, LocalDateTime threshold, LocalDateTime archivedAt) {
+        return jdbcTemplate.update("INSERT IGNORE INTO notifications_archive (" + COLUMNS + ", archived_at) " +
+                        "SELECT " + COLUMNS + ", ?" + RANGE,
+                Timestamp.valueOf(archivedAt), fromId, toId, Timestamp.valueOf(threshold));
+    }
+
+    public void streamRange(long fromId, long toId, LocalDateTime threshold, RowCallbackHandler handler) {
+        jdbcTemplate.query("SELECT " + COLUMNS + RANGE + " ORDER BY id", handler,
+                fromId, toId, Timestamp.valueOf(threshold));
+    }
+
+    // 删除后需要失效未读计数的用户
+    public List<Long> findUnreadUserIds(long fromId, long toId, LocalDateTime threshold) {
+        return jdbcTemplate.queryForList("SELECT DISTINCT user_id" + RANGE + " AND is_read = false",
+                Long.class, fromId, toId, Timestamp.valueOf(threshold));
+    }
+
+    public int deleteRange(long fromId, long toId, LocalDateTime threshold) {
+        return jdbcTemplate.update("DELETE" + RANGE, fromId, toId, Timestamp.valueOf(threshold));
+    }
+}
@@ -9,6 +9,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -34,6 +35,9 @@ public interface PostRepository extends JpaRepository<Post, Long> {
     @Query("SELECT COUNT(p) FROM Post p WHERE p.game.id = :gameId")
     long countByGameId(@Param("gameId") Long gameId);
 
+    @Query("SELECT p.game.id, COUNT(p) FROM Post p WHERE p.game.id BETWEEN :fromId AND :toId GROUP BY p.game.id")
+    List<Object[]> countByGameIdRange(@Param("fromId") Long fromId, @Param("toId") Long toId);
+
     @Query("SELECT COUNT(p) FROM Post p WHERE p.createdAt BETWEEN :start AND :end")
     long countByCreatedAtBetween(
             @Param("start") LocalDateTime start,
@@ -52,6 +56,13 @@ public interface PostRepository extends JpaRepository<Post, Long> {
     @Query("SELECT p FROM Post p ORDER BY p.likeCount DESC, p.viewCount DESC, p.createdAt DESC")
     Page<Post> findHotPosts(Pageable pageable);
 
+    @Query("SELECT p FROM Post p WHERE p.game.id = :gameId " +
+            "ORDER BY p.likeCount DESC, p.viewCount DESC, p.createdAt DESC")
+    Page<Post> findHotPostsByGameId(@Param("gameId") Long gameId, Pageable pageable);
+
+    @Query("SELECT p.id, g.id FROM Post p LEFT JOIN p.game g WHERE p.id IN :postIds")
+    List<Object[]> findGameIdsByPostIds(@Param("postIds") Collection<Long> postIds);
+
     @Query("SELECT p FROM Post p WHERE p.game.id = :gameId ORDER BY p.createdAt DESC")
     List<Post> findRecentPostsByGameId(@Param("gameId") Long gameId, Pageable pageable);
 
@@ -60,6 +71,20 @@ public interface PostRepository extends JpaRepository<Post, Long> {
     @Query("UPDATE Post p SET p.viewCount = p.viewCount + 1 WHERE p.id = :postId")
     void incrementViewCount(@Param("postId") Long postId);
 
+    @Modifying
+    @Query("UPDATE Post p SET p.viewCount = p.viewCount + :delta WHERE p.id = :postId")
+    int addViewCount(@Param("postId") Long postId, @Param("delta") Long delta);
+
+    @Modifying
+    @Query("UPDATE Post p SET p.likeCount = p.likeCount + :delta WHERE p.id = :postId")
+    int addLikeCount(@Param("postId") Long postId, @Param("delta") Long delta);
+
+    @Modifying
+    @Query(value = "UPDATE posts p SET p.like_count = " +
+            "(SELECT COUNT(*) FROM post_likes pl WHERE pl.post_id = p.id) " +
+            "WHERE p.id IN (:postIds)", nativeQuery = true)
+    int reconcileLikeCounts(@Param("postIds") List<Long> postIds);
+
     @Modifying
     @Query("UPDATE Post p SET p.status = :status WHERE p.id = :postId")
     void updateStatus(@Param("postId") Long postId, @Param("status") Post.PostStatus status);
@@ -84,6 +109,11 @@ public interface PostRepository extends JpaRepository<Post, Long> {
             "(SELECT f.id FROM User u JOIN u.following f WHERE u.id = :userId)")
     Page<Post> findPostsByFollowedUsers(@Param("userId") Long userId, Pageable pageable);
 
+    @Query("SELECT p.id, p.createdAt FROM Post p WHERE p.author.id IN " +
+            "(SELECT f.id FROM User u JOIN u.following f WHERE u.id = :userId) " +
+            "ORDER BY p.createdAt DESC")
+    List<Object[]> findFeedEntriesByFollower(@Param("userId") Long userId, Pageable pageable);
+
     // 批量操作
     @Modifying
     @Query("UPDATE Post p SET p.status = :status WHERE p.id IN :postIds")
@@ -102,4 +132,41 @@ public interface PostRepository extends JpaRepository<Post, Long> {
             @Param("endTime") LocalDateTime endTime,
             @Param("gameId") Long gameId
     );
-}
\ No newline at end of file
+
+    // 按ID游标分批读取，用于重建搜索索引
+    List<Post> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    // 游标分页：按(createdAt, id)倒序取游标之后的记录
+    @Query("SELECT p FROM Post p WHERE p.status = com.gameplatform.model.entity.Post.PostStatus.NORMAL " +
+            "AND p.createdAt <= :createdAt AND (p.createdAt < :createdAt OR p.id < :id) " +
+            "ORDER BY p.createdAt DESC, p.id DESC")
+    List<Post> findPostsBefore(@Param("createdAt") LocalDateTime createdAt,
+                               @Param("id") Long id,
+                               Pageable pageable);
+
+    @Query("SELECT p FROM Post p WHERE p.game.id = :gameId " +
+            "AND p.status = com.gameplatform.model.entity.Post.PostStatus.NORMAL " +
+            "AND p.createdAt <= :createdAt AND (p.createdAt < :createdAt OR p.id < :id) " +
+            "ORDER BY p.createdAt DESC, p.id DESC")
+    List<Post> findPostsByGameBefore(@Param("gameId") Long gameId,
+                                     @Param("createdAt") LocalDateTime createdAt,
+                                     @Param("id") Long id,
+                                     Pageable pageable);
+
+    @Modifying
+    @Query("UPDATE Post p SET p.commentCount = p.commentCount + :delta WHERE p.id = :postId")
+    int addCommentCount(@Param("postId") Long postId, @Param("delta") int delta);
+
+    @Query("SELECT MAX(p.id) FROM Post p")
+    Long findMaxId();
+
+    // 按ID区间批量校准评论数，只改写有偏差的行
+    @Modifying
+    @Query(value = "UPDATE posts p LEFT JOIN (" +
+            "SELECT c.post_id, COUNT(*) AS cnt FROM comments c " +
+            "WHERE c.post_id BETWEEN :fromId AND :toId GROUP BY c.post_id" +
+            ") r ON r.post_id = p.id " +
+            "SET p.comment_count = COALESCE(r.cnt, 0) " +
+            "WHERE p.id BETWEEN :fromId AND :toId AND p.comment_count <> COALESCE(r.cnt, 0)", nativeQuery = true)
+    int reconcileCommentCounts(@Param("fromId") Long fromId, @Param("toId") Long toId);
+}
@@ -0,0 +1,57 @@
+package com.gameplatform.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author SakurazawaRyoko
+ * @version 1.0
+ * @date 2025/01/12 20:00
+ * @description TODO
+ */
+@Repository
+@RequiredArgsConstructor
+public class UserGameBatchRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private static final String ADD_PLAY_TIME_SQL = "UPDATE user_games SET " +
+            "play_time = COALESCE(play_time, 0) + ?, " +
+            "last_played_at = GREATEST(COALESCE(last_played_at, ?), ?) " +
+            "WHERE user_id = ? AND game_id = ?";
+
+    // 按(用户, 游戏)读取当前时长并加锁，每行返回 {userId, gameId, playTime}
+    public List<long[]> findPlayTimesForUpdate(List<long[]> keys) {
+        if (keys.isEmpty()) {
+            return new ArrayList<>();
+        }
+        StringBuilder sql = new StringBuilder(
+                "SELECT user_id, game_id, COALESCE(play_time, 0) FROM user_games WHERE (user_id, game_id) IN (");
+        Object[] args = new Object[keys.size() * 2];
+        for (int i = 0; i < keys.size(); i++) {
+            sql.append(i == 0 ? "(?, ?)" : ", (?, ?)");
+            args[i * 2] = keys.get(i)[0];
+            args[i * 2 + 1] = keys.get(i)[1];
+        }
+        sql.append(") FOR UPDATE");
+        return jdbcTemplate.query(sql.toString(),
+                (rs, rowNum) -> new long[]{rs.getLong(1), rs.getLong(2), rs.getLong(3)}, args);
+    }
+
+    // 每行为 {userId, gameId, 新增分钟数, 最后游玩时间戳(毫秒)}，未拥有的游戏不会更新任何行
+    public int[][] addPlayTime(List<long[]> rows, int batchSize) {
+        return jdbcTemplate.batchUpdate(ADD_PLAY_TIME_SQL, rows, batchSize, (ps, row) -> {
+            Timestamp playedAt = new Timestamp(row[3]);
+            ps.setLong(1, row[2]);
+            ps.setTimestamp(2, playedAt);
+            ps.setTimestamp(3, playedAt);
+            ps.setLong(4, row[0]);
+            ps.setLong(5, row[1]);
+        });
+    }
+}
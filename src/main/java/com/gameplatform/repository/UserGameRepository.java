@@ -4,13 +4,18 @@ import com.gameplatform.model.entity.UserGame;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * @author SakurazawaRyoko
@@ -21,6 +26,11 @@ import java.util.Optional;
 public interface UserGameRepository extends JpaRepository<UserGame, Long> {
     Optional<UserGame> findByGameIdAndUserId(Long gameId, Long userId);
 
+    // 修改评分前锁定记录，保证同一用户并发评分时旧值读取正确
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT ug FROM UserGame ug WHERE ug.game.id = :gameId AND ug.user.id = :userId")
+    Optional<UserGame> findForUpdate(@Param("gameId") Long gameId, @Param("userId") Long userId);
+
     List<UserGame> findByGameId(Long gameId);
 
     List<UserGame> findByUserId(Long userId);
@@ -34,9 +44,42 @@ public interface UserGameRepository extends JpaRepository<UserGame, Long> {
     @Query("SELECT COUNT(ug) FROM UserGame ug WHERE ug.game.id = :gameId")
     long countByGameId(@Param("gameId") Long gameId);
 
+    @Query("SELECT ug.game.id, COUNT(ug) FROM UserGame ug WHERE ug.game.id BETWEEN :fromId AND :toId GROUP BY ug.game.id")
+    List<Object[]> countByGameIdRange(@Param("fromId") Long fromId, @Param("toId") Long toId);
+
     @Query("SELECT COUNT(ug) FROM UserGame ug WHERE ug.user.id = :userId")
     long countByUserId(@Param("userId") Long userId);
 
+    @Modifying
+    @Query("UPDATE UserGame ug SET ug.playTime = :playTime, ug.lastPlayedAt = :playedAt " +
+            "WHERE ug.game.id = :gameId AND ug.user.id = :userId")
+    int updateProgress(@Param("gameId") Long gameId, @Param("userId") Long userId,
+                       @Param("playTime") Integer playTime, @Param("playedAt") LocalDateTime playedAt);
+
+    // 导出用的只读投影，游戏名称在同一查询中取出；MySQL驱动需要 fetchSize=Integer.MIN_VALUE 才会逐行流式读取
+    @QueryHints({
+            @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "-2147483648"),
+            @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_READONLY, value = "true")
+    })
+    @Query("SELECT ug.user.id, g.title, ug.purchasedAt, ug.playTime, ug.lastPlayedAt, ug.userRating " +
+            "FROM UserGame ug JOIN ug.game g WHERE ug.user.id = :userId ORDER BY ug.id")
+    Stream<Object[]> streamExportRowsByUserId(@Param("userId") Long userId);
+
+    @QueryHints({
+            @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "-2147483648"),
+            @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_READONLY, value = "true")
+    })
+    @Query("SELECT ug.user.id, g.title, ug.purchasedAt, ug.playTime, ug.lastPlayedAt, ug.userRating " +
+            "FROM UserGame ug JOIN ug.game g ORDER BY ug.id")
+    Stream<Object[]> streamAllExportRows();
+
+    // 按(用户, 游戏)顺序分批扫描拥有关系，用于构建推荐模型
+    @Query("SELECT ug.user.id, ug.game.id, ug.playTime FROM UserGame ug " +
+            "WHERE ug.user.id > :userId OR (ug.user.id = :userId AND ug.game.id > :gameId) " +
+            "ORDER BY ug.user.id, ug.game.id")
+    List<Object[]> findOwnershipAfter(@Param("userId") Long userId, @Param("gameId") Long gameId,
+                                      Pageable pageable);
+
     @Query("SELECT SUM(ug.playTime) FROM UserGame ug WHERE ug.user.id = :userId")
     Long sumPlayTimeByUserId(@Param("userId") Long userId);
 
@@ -54,7 +97,5 @@ public interface UserGameRepository extends JpaRepository<UserGame, Long> {
 
     Long sumPlayTimeByAll();
     Long sumPlayTimeInTimeRange(LocalDateTime start, LocalDateTime end);
-    Map<String, Long> getPlayTimeDistribution(Long gameId);
-    Map<Integer, Long> getRatingDistribution(Long gameId);
     void deleteByGameId(Long gameId);
 }
\ No newline at end of file
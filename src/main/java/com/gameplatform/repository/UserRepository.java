@@ -8,6 +8,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -69,4 +70,39 @@ public interface UserRepository extends JpaRepository<User, Long> {
     boolean isUserBlocked(@Param("userId") Long userId, @Param("targetUserId") Long targetUserId);
 
     long countDailyActiveUsers(LocalDateTime start, LocalDateTime end);
+
+    // 关注关系查询
+    @Query("SELECT COUNT(f) FROM User u JOIN u.followers f WHERE u.id = :userId")
+    long countFollowersByUserId(@Param("userId") Long userId);
+
+    @Query("SELECT f.id FROM User u JOIN u.followers f " +
+            "WHERE u.id = :userId AND f.id > :afterId ORDER BY f.id")
+    List<Long> findFollowerIdsAfter(
+            @Param("userId") Long userId,
+            @Param("afterId") Long afterId,
+            Pageable pageable
+    );
+
+    @Query("SELECT u.id FROM User u WHERE u.status = :status AND u.id > :afterId ORDER BY u.id")
+    List<Long> findIdsByStatusAfter(@Param("status") User.UserStatus status,
+                                    @Param("afterId") Long afterId,
+                                    Pageable pageable);
+
+    @Query("SELECT u.id FROM User u WHERE u.id IN :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT f.id FROM User u JOIN u.following f WHERE u.id = :userId")
+    List<Long> findFollowingIds(@Param("userId") Long userId);
+
+    // 批量加载作者，同时取出立即加载的角色集合，避免逐个补查
+    @Query("SELECT DISTINCT u FROM User u LEFT JOIN FETCH u.roles WHERE u.id IN :ids")
+    List<User> findAllWithRolesByIdIn(@Param("ids") Collection<Long> ids);
+
+    // 只取展示评论作者所需的字段：id, nickname, avatar
+    @Query("SELECT u.id, u.nickname, u.avatar FROM User u WHERE u.id IN :ids")
+    List<Object[]> findProfilesByIdIn(@Param("ids") Collection<Long> ids);
+
+    // 批量发送邮件时只取收件地址：id, email
+    @Query("SELECT u.id, u.email FROM User u WHERE u.id IN :ids")
+    List<Object[]> findEmailsByIdIn(@Param("ids") Collection<Long> ids);
 }
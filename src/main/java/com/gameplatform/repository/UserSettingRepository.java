@@ -3,6 +3,7 @@ package com.gameplatform.repository;
 import com.gameplatform.model.entity.UserSetting;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -16,4 +17,5 @@ public interface UserSettingRepository extends JpaRepository<UserSetting, Long>
     List<UserSetting> findByUserId(Long userId);
     Optional<UserSetting> findByUserIdAndKey(Long userId, String key);
     boolean existsByUserIdAndKey(Long userId, String key);
+    List<UserSetting> findByKeyInAndUserIdIn(Collection<String> keys, Collection<Long> userIds);
 }
@@ -1,5 +1,6 @@
 package com.gameplatform.service;
 
+import com.gameplatform.common.CursorPage;
 import com.gameplatform.model.dto.CommentDTO;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -19,7 +20,10 @@ public interface CommentService {
     CommentDTO getCommentById(Long commentId);
     Page<CommentDTO> getPostComments(Long postId, Pageable pageable);
     Page<CommentDTO> getUserComments(Long userId, Pageable pageable);
+    CursorPage<CommentDTO> getPostCommentsByCursor(Long postId, String cursor, int size);
+    CursorPage<CommentDTO> getUserCommentsByCursor(Long userId, String cursor, int size);
     List<CommentDTO> getCommentReplies(Long commentId);
+    List<CommentDTO> getCommentThread(Long postId, Integer maxDepth);
     void likeComment(Long commentId, Long userId);
     void unlikeComment(Long commentId, Long userId);
     void reportComment(Long commentId, Long userId, String reason);
@@ -0,0 +1,23 @@
+package com.gameplatform.service;
+
+import com.gameplatform.model.dto.CommentDTO;
+import com.gameplatform.model.entity.Comment;
+
+import java.util.List;
+
+/**
+ * @author SakurazawaRyoko
+ * @version 1.0
+ * @date 2025/01/12 14:10
+ * @description TODO
+ */
+public interface CommentTreeService {
+    void attach(Comment comment);
+    void onCommentCreated(Comment comment);
+    void onCommentDeleted(Comment comment);
+    List<CommentDTO> getThread(Long postId, Integer maxDepth);
+    CommentDTO getSubtree(Long commentId, Integer maxDepth);
+    List<CommentDTO> withReplyPreviews(List<Comment> roots);
+    void backfillPaths();
+    void reconcileCounters();
+}
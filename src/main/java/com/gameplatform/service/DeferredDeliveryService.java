@@ -0,0 +1,17 @@
+package com.gameplatform.service;
+
+import com.gameplatform.model.dto.NotificationDTO;
+
+import java.util.List;
+
+/**
+ * @author SakurazawaRyoko
+ * @version 1.0
+ * @date 2025/01/13 18:20
+ * @description TODO
+ */
+public interface DeferredDeliveryService {
+    // 返回当前处于推送时段、可以立即推送的用户，其余用户的推送延后到各自时段开始
+    List<Long> deferOutsideWindow(List<Long> userIds, NotificationDTO notification);
+    int releaseDue();
+}
@@ -0,0 +1,17 @@
+package com.gameplatform.service;
+
+/**
+ * @author SakurazawaRyoko
+ * @version 1.0
+ * @date 2025/01/13 17:10
+ * @description TODO
+ */
+public interface EmailDispatchService {
+    // 立即通过池化连接发送，用于验证码等不能延迟的邮件
+    void sendNow(String to, String subject, String html);
+    // 加入汇总队列，窗口结束后与该用户的其他通知合并为一封邮件。
+    // 汇总只保存在内存中，调用方的JMS消息此时已确认：正常关闭时会全部发出，
+    // 进程异常退出则丢失尚未发出的通知邮件（站内通知已落库，不受影响）
+    void enqueueNotification(Long userId, String to, String title, String content);
+    void flush();
+}
@@ -0,0 +1,28 @@
+package com.gameplatform.service;
+
+import com.gameplatform.model.dto.GameDTO;
+import com.gameplatform.model.dto.GameSearchDTO;
+import com.gameplatform.model.entity.Game;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author SakurazawaRyoko
+ * @version 1.0
+ * @date 2025/01/12 19:00
+ * @description TODO
+ */
+public interface GameCatalogService {
+    void upsert(Game game);
+    void remove(Long gameId);
+    void reload();
+    void applyPending();
+    // 以下查询在目录尚未加载或条件不支持时返回null，由调用方回退到数据库
+    Page<GameDTO> search(GameSearchDTO searchDTO, Pageable pageable);
+    Map<String, Long> countByCategory(GameSearchDTO searchDTO);
+    List<String> getCategories();
+    List<GameDTO> getByIds(List<Long> gameIds);
+}
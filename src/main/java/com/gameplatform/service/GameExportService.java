@@ -0,0 +1,14 @@
+package com.gameplatform.service;
+
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * @author SakurazawaRyoko
+ * @version 1.0
+ * @date 2025/01/12 21:40
+ * @description TODO
+ */
+public interface GameExportService {
+    StreamingResponseBody exportUserGames(Long userId, boolean gzip);
+    StreamingResponseBody exportAllUserGames(boolean gzip);
+}
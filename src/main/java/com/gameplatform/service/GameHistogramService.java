@@ -0,0 +1,20 @@
+package com.gameplatform.service;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author SakurazawaRyoko
+ * @version 1.0
+ * @date 2025/01/12 21:00
+ * @description TODO
+ */
+public interface GameHistogramService {
+    // 游戏时长为null表示未拥有该游戏
+    void onPlayTimeChanged(Long gameId, Integer oldPlayTime, Integer newPlayTime);
+    // 每行为 {userId, gameId, 新增分钟数, ...}，需在写入时长的同一事务中先于更新调用
+    void onPlayTimeAdded(List<long[]> rows);
+    Map<String, Long> getPlayTimeDistribution(Long gameId);
+    Map<Integer, Long> getRatingDistribution(Long gameId);
+    void rebuildPlayTimeHistogram();
+}
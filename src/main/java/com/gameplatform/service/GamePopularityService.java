@@ -0,0 +1,11 @@
+package com.gameplatform.service;
+
+/**
+ * @author SakurazawaRyoko
+ * @version 1.0
+ * @date 2025/01/12 17:30
+ * @description TODO
+ */
+public interface GamePopularityService {
+    int refreshPopularity();
+}
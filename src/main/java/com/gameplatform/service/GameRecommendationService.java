@@ -0,0 +1,15 @@
+package com.gameplatform.service;
+
+import java.util.List;
+
+/**
+ * @author SakurazawaRyoko
+ * @version 1.0
+ * @date 2025/01/12 18:10
+ * @description TODO
+ */
+public interface GameRecommendationService {
+    // 模型尚未构建时返回null，由调用方回退到数据库查询
+    List<Long> recommend(Long userId, int limit);
+    void rebuildModel();
+}
@@ -21,6 +21,7 @@ public interface GameService {
     void deleteGame(Long gameId);
     Page<GameDTO> searchGames(GameSearchDTO searchDTO, Pageable pageable);
     List<String> getAllCategories();
+    Map<String, Long> getCategoryFacets(GameSearchDTO searchDTO);
     Page<GameDTO> getGamesByCategory(String category, Pageable pageable);
     Page<GameDTO> getUserGames(Long userId, Pageable pageable);
     List<GameDTO> getHotGames();
@@ -35,12 +36,11 @@ public interface GameService {
     void removeGameFromUser(Long gameId, Long userId);
     void updateGameProgress(Long gameId, Long userId, Integer progress);
     void updatePlayTime(Long gameId, Long userId, Integer minutes);
-    void updatePopularGames();
+    void reconcileRatings();
     long getGamePlayerCount(Long gameId);
     Map<String, Object> getGameStatistics(Long gameId);
     Map<String, Long> getPlayTimeDistribution(Long gameId);
     Map<Integer, Long> getRatingDistribution(Long gameId);
-    byte[] exportUserGames(Long userId);
     Map<String, Object> generateGameReport(Long gameId);
     Map<String, Object> generateUserGamingReport(Long userId);
     List<Map<String, Object>> getGameTrends(Long gameId, String timeRange);
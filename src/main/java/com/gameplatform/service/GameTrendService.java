@@ -0,0 +1,18 @@
+package com.gameplatform.service;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author SakurazawaRyoko
+ * @version 1.0
+ * @date 2025/01/13 09:30
+ * @description TODO
+ */
+public interface GameTrendService {
+    // 每行为 {userId, gameId, 新增分钟数, 游玩时间戳(毫秒)}，随游戏时长在同一事务中写入
+    void recordPlayEvents(List<long[]> rows);
+    List<Map<String, Object>> getTrends(Long gameId, String timeRange);
+    void rollup();
+    void compact();
+}
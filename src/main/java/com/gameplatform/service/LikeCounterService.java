@@ -0,0 +1,19 @@
+package com.gameplatform.service;
+
+/**
+ * @author SakurazawaRyoko
+ * @version 1.0
+ * @date 2025/01/10 16:20
+ * @description TODO
+ */
+public interface LikeCounterService {
+    boolean hasLikedPost(Long postId, Long userId);
+    boolean tryLikePost(Long postId, Long userId);
+    boolean tryUnlikePost(Long postId, Long userId);
+    long getPendingPostLikes(Long postId);
+    boolean tryLikeComment(Long commentId, Long userId);
+    boolean tryUnlikeComment(Long commentId, Long userId);
+    long getPendingCommentLikes(Long commentId);
+    void flushPendingLikes();
+    void reconcileLikeCounts();
+}
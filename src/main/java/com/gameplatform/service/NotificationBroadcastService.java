@@ -0,0 +1,27 @@
+package com.gameplatform.service;
+
+import com.gameplatform.model.dto.NotificationDTO;
+import com.gameplatform.model.entity.NotificationBroadcastJob;
+
+import java.util.List;
+
+/**
+ * @author SakurazawaRyoko
+ * @version 1.0
+ * @date 2025/01/13 10:40
+ * @description TODO
+ */
+public interface NotificationBroadcastService {
+    // 按ID游标读取接收者：返回ID大于afterId的最多limit个用户ID，按ID升序
+    @FunctionalInterface
+    interface RecipientSource {
+        List<Long> next(Long afterId, int limit);
+    }
+
+    long broadcast(NotificationDTO notification, List<Long> userIds);
+    long broadcast(NotificationDTO notification, RecipientSource recipients);
+    // 同一个jobKey只广播一次，进度持久化，中断后从检查点继续
+    void broadcastOnce(String jobKey, NotificationDTO notification, NotificationBroadcastJob.Audience audience);
+    void processJob(Long jobId);
+    void resumeStalledJobs();
+}
@@ -0,0 +1,15 @@
+package com.gameplatform.service;
+
+import com.gameplatform.model.entity.Post;
+
+/**
+ * @author SakurazawaRyoko
+ * @version 1.0
+ * @date 2025/01/12 10:30
+ * @description TODO
+ */
+public interface NotificationFanOutService {
+    void enqueueNewPost(Post post);
+    void processJob(Long jobId);
+    void resumeStalledJobs();
+}
@@ -0,0 +1,19 @@
+package com.gameplatform.service;
+
+import com.gameplatform.common.PushWindow;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * @author SakurazawaRyoko
+ * @version 1.0
+ * @date 2025/01/13 16:15
+ * @description TODO
+ */
+public interface NotificationPreferenceService {
+    Set<Long> findEmailEnabled(Collection<Long> userIds);
+    Map<Long, PushWindow> findPushWindows(Collection<Long> userIds);
+    void evict(Long userId);
+}
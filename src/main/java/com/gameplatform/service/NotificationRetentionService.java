@@ -0,0 +1,11 @@
+package com.gameplatform.service;
+
+/**
+ * @author SakurazawaRyoko
+ * @version 1.0
+ * @date 2025/01/13 15:20
+ * @description TODO
+ */
+public interface NotificationRetentionService {
+    long purgeExpired();
+}
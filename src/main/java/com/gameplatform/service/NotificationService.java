@@ -1,5 +1,6 @@
 package com.gameplatform.service;
 
+import com.gameplatform.common.CursorPage;
 import com.gameplatform.model.dto.NotificationDTO;
 import com.gameplatform.model.dto.NotificationSettingsDTO;
 import com.gameplatform.model.dto.UnreadCountDTO;
@@ -19,6 +20,8 @@ public interface NotificationService {
     void sendNotification(Long userId, NotificationDTO notificationDTO);
     Page<NotificationDTO> getUserNotifications(Long userId, Pageable pageable);
     Page<NotificationDTO> getNotificationsByType(Long userId, Notification.NotificationType type, Pageable pageable);
+    CursorPage<NotificationDTO> getNotificationsByCursor(Long userId, Notification.NotificationType type,
+                                                         String cursor, int size);
     void markAsRead(Long notificationId, Long userId);
     void markAllAsRead(Long userId);
     void deleteNotification(Long notificationId, Long userId);
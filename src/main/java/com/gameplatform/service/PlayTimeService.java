@@ -0,0 +1,16 @@
+package com.gameplatform.service;
+
+import com.gameplatform.model.dto.PlayHeartbeatDTO;
+
+import java.util.List;
+
+/**
+ * @author SakurazawaRyoko
+ * @version 1.0
+ * @date 2025/01/12 20:00
+ * @description TODO
+ */
+public interface PlayTimeService {
+    void recordHeartbeats(Long userId, List<PlayHeartbeatDTO> heartbeats);
+    void flushPendingPlayTime();
+}
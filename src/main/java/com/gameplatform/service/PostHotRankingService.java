@@ -0,0 +1,25 @@
+package com.gameplatform.service;
+
+import com.gameplatform.model.entity.Post;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.util.Map;
+
+/**
+ * @author SakurazawaRyoko
+ * @version 1.0
+ * @date 2025/01/11 10:15
+ * @description TODO
+ */
+public interface PostHotRankingService {
+    void onPostCreated(Post post);
+    void onPostDeleted(Long postId, Long gameId);
+    void onPostMoved(Long postId, Long oldGameId, Long newGameId);
+    void onPostLiked(Post post, boolean liked);
+    void onPostCommented(Post post);
+    void onPostsViewed(Map<Long, Long> viewDeltas);
+    Page<Long> getHotPostIds(Long gameId, Pageable pageable);
+    void decayScores();
+    void rebuildRanking();
+}
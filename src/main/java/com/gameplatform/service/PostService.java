@@ -1,4 +1,5 @@
 package com.gameplatform.service;
+import com.gameplatform.common.CursorPage;
 import com.gameplatform.model.dto.CommentDTO;
 import com.gameplatform.model.dto.PostDTO;
 import com.gameplatform.model.dto.ReportDTO;
@@ -18,6 +19,7 @@ public interface PostService {
     void deletePost(Long postId, Long userId);
     PostDTO getPostById(Long postId);
     Page<PostDTO> getPostsByGame(Long gameId, Pageable pageable);
+    CursorPage<PostDTO> getPostsByCursor(Long gameId, String cursor, int size);
     Page<PostDTO> searchPosts(String keyword, Pageable pageable);
     CommentDTO addComment(Long postId, CommentDTO commentDTO, Long userId);
     CommentDTO replyToComment(Long commentId, CommentDTO replyDTO, Long userId);
@@ -26,5 +28,6 @@ public interface PostService {
     void likePost(Long postId, Long userId);
     void unlikePost(Long postId, Long userId);
     void collectPost(Long postId, Long userId);
-    Page<PostDTO> getHotPosts(Pageable pageable);
+    Page<PostDTO> getHotPosts(Long gameId, Pageable pageable);
+    Page<PostDTO> getFollowingFeed(Long userId, Pageable pageable);
 }
\ No newline at end of file
@@ -0,0 +1,13 @@
+package com.gameplatform.service;
+
+/**
+ * @author SakurazawaRyoko
+ * @version 1.0
+ * @date 2025/01/10 14:22
+ * @description TODO
+ */
+public interface PostViewCountService {
+    void recordView(Long postId);
+    long getPendingViews(Long postId);
+    void flushPendingViews();
+}
@@ -0,0 +1,43 @@
+package com.gameplatform.service;
+
+import com.gameplatform.model.dto.GameSearchDTO;
+import com.gameplatform.model.entity.Game;
+import com.gameplatform.model.entity.Post;
+import com.gameplatform.model.message.SearchIndexMessage;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+/**
+ * @author SakurazawaRyoko
+ * @version 1.0
+ * @date 2025/01/11 14:35
+ * @description TODO
+ */
+public interface SearchIndexService {
+    // 按全文检索相关度排序，不对应实体属性
+    String SORT_RELEVANCE = "relevance";
+
+    void indexPost(Post post);
+    void removePost(Long postId);
+    void indexGame(Game game);
+    void removeGame(Long gameId);
+    // 只支持按相关度排序，其他排序返回null由调用方回退
+    Page<Long> searchPosts(String keyword, Pageable pageable);
+    Page<Long> searchGames(GameSearchDTO searchDTO, Pageable pageable);
+    // 其他实例发来的变更，从数据库读取最新状态后更新本地索引
+    void applyRemoteChange(SearchIndexMessage message);
+    void commit();
+    void rebuildIndex();
+
+    // 未指定排序或只按相关度排序
+    static boolean isRelevanceOrder(Pageable pageable) {
+        return pageable.getSort().stream().allMatch(order -> SORT_RELEVANCE.equalsIgnoreCase(order.getProperty()));
+    }
+
+    // 相关度不是实体属性，回退到数据库或内存目录时去掉
+    static Pageable withoutRelevance(Pageable pageable) {
+        return isRelevanceOrder(pageable) && pageable.getSort().isSorted()
+                ? PageRequest.of(pageable.getPageNumber(), pageable.getPageSize()) : pageable;
+    }
+}
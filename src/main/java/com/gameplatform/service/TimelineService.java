@@ -0,0 +1,18 @@
+package com.gameplatform.service;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDateTime;
+
+/**
+ * @author SakurazawaRyoko
+ * @version 1.0
+ * @date 2025/01/11 15:30
+ * @description TODO
+ */
+public interface TimelineService {
+    void fanOutPost(Long postId, Long authorId, LocalDateTime createdAt);
+    Page<Long> getTimelinePostIds(Long userId, Pageable pageable);
+    void invalidateTimeline(Long userId);
+}
@@ -0,0 +1,22 @@
+package com.gameplatform.service;
+
+import com.gameplatform.model.dto.UnreadCountDTO;
+import com.gameplatform.model.entity.Notification;
+
+import java.util.List;
+
+/**
+ * @author SakurazawaRyoko
+ * @version 1.0
+ * @date 2025/01/13 14:10
+ * @description TODO
+ */
+public interface UnreadCounterService {
+    // 以下变更均在当前事务提交后生效
+    void onCreated(Long userId, Notification.NotificationType type);
+    void onCreated(List<Long> userIds, Notification.NotificationType type);
+    void onRead(Long userId, Notification.NotificationType type);
+    void onAllRead(Long userId);
+    void evict(Long userId);
+    UnreadCountDTO getUnreadCount(Long userId);
+}
@@ -0,0 +1,99 @@
+package com.gameplatform.service.assembler;
+
+import com.gameplatform.model.dto.PostDTO;
+import com.gameplatform.model.dto.UserDTO;
+import com.gameplatform.model.entity.Game;
+import com.gameplatform.model.entity.Post;
+import com.gameplatform.model.entity.User;
+import com.gameplatform.repository.GameRepository;
+import com.gameplatform.repository.UserRepository;
+import com.gameplatform.service.LikeCounterService;
+import com.gameplatform.service.PostViewCountService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.BeanUtils;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * @author SakurazawaRyoko
+ * @version 1.0
+ * @date 2025/01/11 18:40
+ * @description TODO
+ */
+@Component
+@RequiredArgsConstructor
+public class PostDTOAssembler {
+
+    private final UserRepository userRepository;
+    private final GameRepository gameRepository;
+    private final PostViewCountService postViewCountService;
+    private final LikeCounterService likeCounterService;
+
+    public PostDTO toDTO(Post post) {
+        return toDTOs(Collections.singletonList(post)).get(0);
+    }
+
+    public Page<PostDTO> toDTOPage(Page<Post> posts) {
+        return new PageImpl<>(toDTOs(posts.getContent()), posts.getPageable(), posts.getTotalElements());
+    }
+
+    // 作者、游戏各用一条IN查询加载，不逐行触发懒加载
+    public List<PostDTO> toDTOs(List<Post> posts) {
+        if (posts.isEmpty()) {
+            return new ArrayList<>();
+        }
+        // 代理对象取ID不会触发初始化
+        Set<Long> authorIds = new HashSet<>();
+        Set<Long> gameIds = new HashSet<>();
+        for (Post post : posts) {
+            authorIds.add(post.getAuthor().getId());
+            if (post.getGame() != null) {
+                gameIds.add(post.getGame().getId());
+            }
+        }
+
+        Map<Long, UserDTO> authors = userRepository.findAllWithRolesByIdIn(authorIds).stream()
+                .collect(Collectors.toMap(User::getId, this::toUserDTO));
+        Map<Long, Game> games = gameIds.isEmpty() ? Collections.emptyMap()
+                : gameRepository.findAllById(gameIds).stream()
+                .collect(Collectors.toMap(Game::getId, Function.identity()));
+
+        return posts.stream()
+                .map(post -> toDTO(post, authors, games))
+                .collect(Collectors.toList());
+    }
+
+    private PostDTO toDTO(Post post, Map<Long, UserDTO> authors, Map<Long, Game> games) {
+        // 逐个字段赋值，避免copyProperties把懒加载的comments集合也复制过去
+        PostDTO dto = new PostDTO();
+        dto.setId(post.getId());
+        dto.setTitle(post.getTitle());
+        dto.setContent(post.getContent());
+        dto.setCreatedAt(post.getCreatedAt());
+        // 合并尚未刷盘的浏览量和点赞数
+        dto.setViewCount(post.getViewCount() + (int) postViewCountService.getPendingViews(post.getId()));
+        dto.setLikeCount(post.getLikeCount() + (int) likeCounterService.getPendingPostLikes(post.getId()));
+        dto.setCommentCount(post.getCommentCount());
+        dto.setAuthor(authors.get(post.getAuthor().getId()));
+        if (post.getGame() != null) {
+            Long gameId = post.getGame().getId();
+            dto.setGameId(gameId);
+            Game game = games.get(gameId);
+            if (game != null) {
+                dto.setGameName(game.getTitle());
+            }
+        }
+        return dto;
+    }
+
+    private UserDTO toUserDTO(User user) {
+        UserDTO dto = new UserDTO();
+        BeanUtils.copyProperties(user, dto, "password");
+        return dto;
+    }
+}
@@ -1,26 +1,34 @@
 package com.gameplatform.service.impl;
 
+import com.gameplatform.common.CursorPage;
 import com.gameplatform.exception.BusinessException;
 import com.gameplatform.model.dto.CommentDTO;
 import com.gameplatform.model.entity.Comment;
+import com.gameplatform.model.entity.CommentLike;
 import com.gameplatform.model.entity.Post;
 import com.gameplatform.model.entity.Report;
 import com.gameplatform.model.entity.User;
+import com.gameplatform.repository.CommentLikeRepository;
 import com.gameplatform.repository.CommentRepository;
 import com.gameplatform.repository.PostRepository;
 import com.gameplatform.repository.ReportRepository;
 import com.gameplatform.repository.UserRepository;
 import com.gameplatform.service.CommentService;
+import com.gameplatform.service.CommentTreeService;
+import com.gameplatform.service.LikeCounterService;
 import com.gameplatform.service.NotificationService;
+import com.gameplatform.service.PostHotRankingService;
+import com.gameplatform.util.CursorUtils;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.BeanUtils;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * @author SakurazawaRyoko
@@ -37,6 +45,10 @@ public class CommentServiceImpl implements CommentService {
     private final UserRepository userRepository;
     private final ReportRepository reportRepository;
     private final NotificationService notificationService;
+    private final CommentLikeRepository commentLikeRepository;
+    private final LikeCounterService likeCounterService;
+    private final PostHotRankingService postHotRankingService;
+    private final CommentTreeService commentTreeService;
 
     @Override
     @Transactional
@@ -59,6 +71,9 @@ public class CommentServiceImpl implements CommentService {
         }
 
         Comment savedComment = commentRepository.save(comment);
+        commentTreeService.attach(savedComment);
+        commentTreeService.onCommentCreated(savedComment);
+        postHotRankingService.onPostCommented(post);
 
         // 发送评论通知
         if (comment.getParentComment() != null) {
@@ -103,22 +118,23 @@ public class CommentServiceImpl implements CommentService {
             throw new BusinessException("无权删除此评论");
         }
 
+        commentTreeService.onCommentDeleted(comment);
         commentRepository.delete(comment);
     }
 
     @Override
     @Transactional(readOnly = true)
     public CommentDTO getCommentById(Long commentId) {
-        Comment comment = commentRepository.findById(commentId)
-                .orElseThrow(() -> new BusinessException("评论不存在"));
-        return convertToDTO(comment);
+        return commentTreeService.getSubtree(commentId, null);
     }
 
     @Override
     @Transactional(readOnly = true)
     public Page<CommentDTO> getPostComments(Long postId, Pageable pageable) {
-        return commentRepository.findByPostIdAndParentCommentIsNull(postId, pageable)
-                .map(this::convertToDTO);
+        Page<Comment> roots = commentRepository.findByPostIdAndParentCommentIsNull(postId, pageable);
+        // 一级评论分页，每条附带前几条回复
+        return new PageImpl<>(commentTreeService.withReplyPreviews(roots.getContent()),
+                roots.getPageable(), roots.getTotalElements());
     }
 
     @Override
@@ -128,36 +144,67 @@ public class CommentServiceImpl implements CommentService {
                 .map(this::convertToDTO);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<CommentDTO> getPostCommentsByCursor(Long postId, String cursor, int size) {
+        CursorUtils.Cursor position = CursorUtils.decode(cursor);
+        List<Comment> comments = commentRepository.findTopLevelCommentsBefore(
+                postId, position.getCreatedAt(), position.getId(), CursorUtils.limit(size));
+        return CursorUtils.toCursorPage(comments, size, Comment::getCreatedAt, Comment::getId)
+                .mapContent(commentTreeService::withReplyPreviews);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<CommentDTO> getUserCommentsByCursor(Long userId, String cursor, int size) {
+        CursorUtils.Cursor position = CursorUtils.decode(cursor);
+        List<Comment> comments = commentRepository.findByAuthorBefore(
+                userId, position.getCreatedAt(), position.getId(), CursorUtils.limit(size));
+        return CursorUtils.toCursorPage(comments, size, Comment::getCreatedAt, Comment::getId)
+                .map(this::convertToDTO);
+    }
+
     @Override
     @Transactional(readOnly = true)
     public List<CommentDTO> getCommentReplies(Long commentId) {
-        return commentRepository.findByParentCommentId(commentId)
-                .stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        CommentDTO subtree = commentTreeService.getSubtree(commentId, null);
+        return subtree.getReplies() != null ? subtree.getReplies() : new ArrayList<>();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<CommentDTO> getCommentThread(Long postId, Integer maxDepth) {
+        return commentTreeService.getThread(postId, maxDepth);
     }
 
     @Override
     @Transactional
     public void likeComment(Long commentId, Long userId) {
-        Comment comment = commentRepository.findById(commentId)
-                .orElseThrow(() -> new BusinessException("评论不存在"));
+        if (!commentRepository.existsById(commentId)) {
+            throw new BusinessException("评论不存在");
+        }
 
-        comment.setLikeCount(comment.getLikeCount() + 1);
-        commentRepository.save(comment);
+        // 原子占位，点赞数在事务提交后以增量方式累加
+        if (!likeCounterService.tryLikeComment(commentId, userId)) {
+            throw new BusinessException("已经点赞过此评论");
+        }
 
-        // 可以在这里添加点赞记录和通知
+        CommentLike commentLike = new CommentLike();
+        commentLike.setComment(commentRepository.getReferenceById(commentId));
+        commentLike.setUser(userRepository.getReferenceById(userId));
+        commentLikeRepository.save(commentLike);
     }
 
     @Override
     @Transactional
     public void unlikeComment(Long commentId, Long userId) {
-        Comment comment = commentRepository.findById(commentId)
-                .orElseThrow(() -> new BusinessException("评论不存在"));
+        if (!commentRepository.existsById(commentId)) {
+            throw new BusinessException("评论不存在");
+        }
 
-        if (comment.getLikeCount() > 0) {
-            comment.setLikeCount(comment.getLikeCount() - 1);
-            commentRepository.save(comment);
+        if (!likeCounterService.tryUnlikeComment(commentId, userId)
+                || commentLikeRepository.removeLike(commentId, userId) == 0) {
+            throw new BusinessException("未点赞此评论");
         }
     }
 
@@ -187,7 +234,8 @@ public class CommentServiceImpl implements CommentService {
 
     private CommentDTO convertToDTO(Comment comment) {
         CommentDTO dto = new CommentDTO();
-        BeanUtils.copyProperties(comment, dto);
+        BeanUtils.copyProperties(comment, dto, "replies");
+        dto.setLikeCount(comment.getLikeCount() + (int) likeCounterService.getPendingCommentLikes(comment.getId()));
         dto.setAuthorId(comment.getAuthor().getId());
         dto.setAuthorName(comment.getAuthor().getNickname());
         dto.setAuthorAvatar(comment.getAuthor().getAvatar());
@@ -197,12 +245,6 @@ public class CommentServiceImpl implements CommentService {
             dto.setParentId(comment.getParentComment().getId());
         }
 
-        if (comment.getReplies() != null && !comment.getReplies().isEmpty()) {
-            dto.setReplies(comment.getReplies().stream()
-                    .map(this::convertToDTO)
-                    .collect(Collectors.toList()));
-        }
-
         return dto;
     }
 }
@@ -0,0 +1,242 @@
+package com.gameplatform.service.impl;
+
+import com.gameplatform.config.properties.PostProperties;
+import com.gameplatform.exception.BusinessException;
+import com.gameplatform.model.dto.CommentDTO;
+import com.gameplatform.model.entity.Comment;
+import com.gameplatform.repository.CommentRepository;
+import com.gameplatform.repository.PostRepository;
+import com.gameplatform.repository.UserRepository;
+import com.gameplatform.service.CommentTreeService;
+import com.gameplatform.service.LikeCounterService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.function.BiFunction;
+import java.util.stream.Collectors;
+
+/**
+ * @author SakurazawaRyoko
+ * @version 1.0
+ * @date 2025/01/12 14:20
+ * @description TODO
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CommentTreeServiceImpl implements CommentTreeService {
+
+    private final CommentRepository commentRepository;
+    private final PostRepository postRepository;
+    private final UserRepository userRepository;
+    private final LikeCounterService likeCounterService;
+    private final PostProperties postProperties;
+    private final TransactionTemplate transactionTemplate;
+
+    // 每级路径段长度，定长36进制可直接按字符串排序
+    private static final int SEGMENT_LENGTH = 8;
+
+    @Override
+    public void attach(Comment comment) {
+        Comment parent = comment.getParentComment();
+        String segment = encodeSegment(comment.getId());
+        if (parent == null) {
+            comment.setPath(segment);
+            comment.setDepth(0);
+            comment.setRootId(comment.getId());
+            return;
+        }
+
+        if (parent.getPath() == null) {
+            // 存量评论尚未回填路径
+            attach(parent);
+        }
+        if (parent.getDepth() + 1 > postProperties.getCommentTree().getMaxDepth()) {
+            throw new BusinessException("回复层级过深");
+        }
+        comment.setPath(parent.getPath() + segment);
+        comment.setDepth(parent.getDepth() + 1);
+        comment.setRootId(parent.getRootId());
+    }
+
+    @Override
+    public void onCommentCreated(Comment comment) {
+        // 原子增量更新，不读取实体上的旧值，避免并发评论互相覆盖
+        postRepository.addCommentCount(comment.getPost().getId(), 1);
+        if (comment.getParentComment() != null) {
+            commentRepository.addReplyCount(comment.getParentComment().getId(), 1);
+        }
+    }
+
+    @Override
+    public void onCommentDeleted(Comment comment) {
+        postRepository.addCommentCount(comment.getPost().getId(), -1);
+        if (comment.getParentComment() != null) {
+            commentRepository.addReplyCount(comment.getParentComment().getId(), -1);
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<CommentDTO> getThread(Long postId, Integer maxDepth) {
+        int depthLimit = maxDepth != null ? maxDepth : Integer.MAX_VALUE;
+        return assemble(commentRepository.findThread(postId, depthLimit));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CommentDTO getSubtree(Long commentId, Integer maxDepth) {
+        Comment comment = commentRepository.findById(commentId)
+                .orElseThrow(() -> new BusinessException("评论不存在"));
+        if (comment.getPath() == null) {
+            return assemble(Collections.singletonList(comment)).get(0);
+        }
+        int depthLimit = maxDepth != null ? comment.getDepth() + maxDepth : Integer.MAX_VALUE;
+        List<Comment> subtree = commentRepository.findSubtree(
+                comment.getPost().getId(), comment.getPath(), depthLimit);
+        // 路径前缀包含自身，排在第一位
+        return assemble(subtree).get(0);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<CommentDTO> withReplyPreviews(List<Comment> roots) {
+        if (roots.isEmpty()) {
+            return new ArrayList<>();
+        }
+        PostProperties.CommentTree config = postProperties.getCommentTree();
+        List<Long> rootIds = roots.stream().map(Comment::getId).collect(Collectors.toList());
+
+        List<Comment> ordered = new ArrayList<>(roots);
+        if (config.getPreviewReplies() > 0) {
+            ordered.addAll(commentRepository.findReplyPreviews(
+                    rootIds, config.getMaxDepth(), config.getPreviewReplies()));
+        }
+        return assemble(ordered);
+    }
+
+    @Override
+    public void backfillPaths() {
+        Integer roots = transactionTemplate.execute(status -> commentRepository.backfillRootPaths());
+        int total = roots != null ? roots : 0;
+        // 每次处理一层，直到没有可回填的评论
+        while (true) {
+            Integer children = transactionTemplate.execute(status -> commentRepository.backfillChildPaths());
+            if (children == null || children == 0) {
+                break;
+            }
+            total += children;
+        }
+        if (total > 0) {
+            log.info("评论路径回填完成: count={}", total);
+        }
+    }
+
+    @Override
+    @Scheduled(cron = "${post.comment-count.reconcile-cron:0 30 4 * * ?}")
+    public void reconcileCounters() {
+        // 增量更新可能因异常或手工改库产生偏差，按ID区间用真实数量修正
+        int posts = reconcileRange(postRepository.findMaxId(), postRepository::reconcileCommentCounts, "帖子");
+        int comments = reconcileRange(commentRepository.findMaxId(), commentRepository::reconcileReplyCounts, "评论");
+        log.info("评论计数校准完成，帖子 {} 个，评论 {} 个", posts, comments);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        try {
+            backfillPaths();
+        } catch (Exception e) {
+            log.error("评论路径回填失败: {}", e.getMessage());
+        }
+    }
+
+    // 私有辅助方法
+
+    // 输入需保证父评论排在子评论之前，父评论不在列表中的视为顶层
+    private List<CommentDTO> assemble(List<Comment> ordered) {
+        Set<Long> authorIds = ordered.stream()
+                .map(comment -> comment.getAuthor().getId())
+                .collect(Collectors.toSet());
+        Map<Long, Object[]> authors = new HashMap<>();
+        if (!authorIds.isEmpty()) {
+            for (Object[] row : userRepository.findProfilesByIdIn(authorIds)) {
+                authors.put((Long) row[0], row);
+            }
+        }
+
+        Map<Long, CommentDTO> byId = new HashMap<>();
+        List<CommentDTO> topLevel = new ArrayList<>();
+        for (Comment comment : ordered) {
+            CommentDTO dto = toDTO(comment, authors.get(comment.getAuthor().getId()));
+            CommentDTO parent = dto.getParentId() != null ? byId.get(dto.getParentId()) : null;
+            if (parent != null) {
+                if (parent.getReplies() == null) {
+                    parent.setReplies(new ArrayList<>());
+                }
+                parent.getReplies().add(dto);
+            } else {
+                topLevel.add(dto);
+            }
+            byId.put(dto.getId(), dto);
+        }
+        return topLevel;
+    }
+
+    private CommentDTO toDTO(Comment comment, Object[] author) {
+        CommentDTO dto = new CommentDTO();
+        dto.setId(comment.getId());
+        dto.setContent(comment.getContent());
+        // 关联对象均为代理，只取ID不会触发加载
+        dto.setPostId(comment.getPost().getId());
+        dto.setAuthorId(comment.getAuthor().getId());
+        if (author != null) {
+            dto.setAuthorName((String) author[1]);
+            dto.setAuthorAvatar((String) author[2]);
+        }
+        if (comment.getParentComment() != null) {
+            dto.setParentId(comment.getParentComment().getId());
+        }
+        dto.setDepth(comment.getDepth());
+        dto.setReplyCount(comment.getReplyCount());
+        dto.setLikeCount(comment.getLikeCount() + (int) likeCounterService.getPendingCommentLikes(comment.getId()));
+        dto.setReported(comment.isReported());
+        dto.setCreatedAt(comment.getCreatedAt());
+        return dto;
+    }
+
+    // 每个区间单独提交，避免长事务锁住大量行
+    private int reconcileRange(Long maxId, BiFunction<Long, Long, Integer> reconciler, String name) {
+        if (maxId == null) {
+            return 0;
+        }
+        long batchSize = postProperties.getCommentCount().getBatchSize();
+        int total = 0;
+        for (long from = 1; from <= maxId; from += batchSize) {
+            long fromId = from;
+            long toId = from + batchSize - 1;
+            try {
+                Integer updated = transactionTemplate.execute(status -> reconciler.apply(fromId, toId));
+                total += updated != null ? updated : 0;
+            } catch (Exception e) {
+                log.error("{}评论计数校准失败: from={}, to={}, {}", name, fromId, toId, e.getMessage());
+            }
+        }
+        return total;
+    }
+
+    private String encodeSegment(Long id) {
+        String encoded = Long.toString(id, 36).toUpperCase();
+        StringBuilder segment = new StringBuilder(SEGMENT_LENGTH + 1);
+        for (int i = encoded.length(); i < SEGMENT_LENGTH; i++) {
+            segment.append('0');
+        }
+        return segment.append(encoded).append('/').toString();
+    }
+}
@@ -0,0 +1,245 @@
+package com.gameplatform.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gameplatform.common.PushWindow;
+import com.gameplatform.config.properties.NotificationProperties;
+import com.gameplatform.model.dto.NotificationDTO;
+import com.gameplatform.service.DeferredDeliveryService;
+import com.gameplatform.service.NotificationPreferenceService;
+import com.gameplatform.service.WebSocketService;
+import com.gameplatform.service.message.NotificationMessageSender;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.DefaultTypedTuple;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author SakurazawaRyoko
+ * @version 1.0
+ * @date 2025/01/13 18:25
+ * @description TODO
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DeferredDeliveryServiceImpl implements DeferredDeliveryService {
+
+    private final NotificationPreferenceService notificationPreferenceService;
+    private final WebSocketService webSocketService;
+    private final NotificationMessageSender notificationMessageSender;
+    private final RedisTemplate<String, String> redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final NotificationProperties notificationProperties;
+    private final MeterRegistry meterRegistry;
+
+    // 有序集合，成员为 {payloadId}:{userId}，分数为释放时间（毫秒），取出后改为租约到期时间
+    private static final String QUEUE_KEY = "notification:deferred:queue";
+    // 同一条通知的内容只保存一份，所有接收者共用
+    private static final String PAYLOAD_PREFIX = "notification:deferred:payload:";
+    // 该通知尚未推送完成的接收者数量，减到0时删除内容
+    private static final String REFS_PREFIX = "notification:deferred:refs:";
+    // 每个释放周期内所有节点已取出的数量，后缀为周期序号
+    private static final String BUDGET_PREFIX = "notification:deferred:budget:";
+    // 取出后在该时间内未确认（如实例崩溃）的成员会被重新释放
+    private static final long LEASE_MILLIS = 300000L;
+    // 失败的批次稍后重试
+    private static final long RETRY_DELAY_MILLIS = 60000L;
+
+    // 取出到期成员并在同一脚本中把分数推迟到租约结束，多个实例同时释放也不会重复推送，
+    // 推送完成后才从队列中删除；每个周期的取出数量在所有实例间共用同一个上限
+    @SuppressWarnings("rawtypes")
+    private static final DefaultRedisScript<List> CLAIM_DUE_SCRIPT = new DefaultRedisScript<>(
+            "local limit = math.min(tonumber(ARGV[2]), tonumber(ARGV[4]) - tonumber(redis.call('GET', KEYS[2]) or '0')) " +
+            "if limit <= 0 then return {} end " +
+            "local items = redis.call('ZRANGEBYSCORE', KEYS[1], '-inf', ARGV[1], 'LIMIT', 0, limit) " +
+            "for _, item in ipairs(items) do redis.call('ZADD', KEYS[1], 'XX', ARGV[3], item) end " +
+            "if #items > 0 then " +
+            "  redis.call('INCRBY', KEYS[2], #items) " +
+            "  redis.call('PEXPIRE', KEYS[2], ARGV[5]) " +
+            "end " +
+            "return items", List.class);
+
+    // 只按实际删除的成员数扣减，重复确认不会多减；最后一个接收者推送完成后删除内容
+    private static final DefaultRedisScript<Long> ACK_SCRIPT = new DefaultRedisScript<>(
+            "local removed = redis.call('ZREM', KEYS[1], unpack(ARGV)) " +
+            "if removed == 0 then return 0 end " +
+            "if redis.call('DECRBY', KEYS[2], removed) <= 0 then redis.call('DEL', KEYS[2], KEYS[3]) end " +
+            "return removed", Long.class);
+
+    @Override
+    public List<Long> deferOutsideWindow(List<Long> userIds, NotificationDTO notification) {
+        NotificationProperties.QuietHours config = notificationProperties.getQuietHours();
+        if (!config.getEnabled() || userIds.isEmpty()
+                || config.getExemptTypes().contains(notification.getType().toString())) {
+            return userIds;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        Map<Long, PushWindow> windows = notificationPreferenceService.findPushWindows(userIds);
+        List<Long> immediate = new ArrayList<>();
+        Map<Long, Long> deferred = new LinkedHashMap<>();
+        for (Long userId : userIds) {
+            PushWindow window = windows.getOrDefault(userId, PushWindow.DEFAULT);
+            if (window.isOpen(now.toLocalTime())) {
+                immediate.add(userId);
+            } else {
+                deferred.put(userId, releaseAt(userId, window, now, config.getSpreadMinutes()));
+            }
+        }
+        if (deferred.isEmpty()) {
+            return immediate;
+        }
+
+        try {
+            schedule(deferred, notification, config.getPayloadTtlHours());
+            meterRegistry.counter("notification.deferred.scheduled").increment(deferred.size());
+        } catch (Exception e) {
+            // 无法保存时不能丢弃推送，退回到立即推送
+            log.error("保存延迟推送失败，改为立即推送: count={}, error={}", deferred.size(), e.getMessage());
+            immediate.addAll(deferred.keySet());
+        }
+        return immediate;
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${notification.quiet-hours.release-interval:5000}")
+    public int releaseDue() {
+        NotificationProperties.QuietHours config = notificationProperties.getQuietHours();
+        // 每个周期的释放上限由速率和间隔决定，由所有节点共用，积压的推送在之后几个周期中陆续发出
+        long budget = Math.max(1, (long) config.getReleaseRate() * config.getReleaseInterval() / 1000);
+        int released = 0;
+        try {
+            while (released < budget) {
+                long now = System.currentTimeMillis();
+                List<String> members = claimDue(now, (int) Math.min(config.getBatchSize(), budget - released),
+                        budget, config.getReleaseInterval());
+                if (members.isEmpty()) {
+                    break;
+                }
+                released += members.size();
+                deliver(members, now);
+            }
+        } catch (Exception e) {
+            log.error("释放延迟推送失败: {}", e.getMessage());
+        }
+        if (released > 0) {
+            meterRegistry.counter("notification.deferred.released").increment(released);
+            log.info("释放延迟推送: count={}", released);
+        }
+        return released;
+    }
+
+    // 私有辅助方法
+
+    // 在时段开始后按用户ID散列出固定偏移，同一用户的多条通知一起到达
+    private long releaseAt(Long userId, PushWindow window, LocalDateTime now, int spreadMinutes) {
+        LocalDateTime opening = window.nextOpening(now);
+        long spreadSeconds = Math.min(spreadMinutes * 60L, window.length().getSeconds());
+        long offset = spreadSeconds > 0 ? Math.floorMod(userId * 2654435761L, spreadSeconds) : 0;
+        return opening.plusSeconds(offset).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private void schedule(Map<Long, Long> releaseTimes, NotificationDTO notification, long ttlHours) throws Exception {
+        String payloadId = UUID.randomUUID().toString().replace("-", "");
+        redisTemplate.opsForValue().set(PAYLOAD_PREFIX + payloadId,
+                objectMapper.writeValueAsString(notification), ttlHours, TimeUnit.HOURS);
+        redisTemplate.opsForValue().set(REFS_PREFIX + payloadId,
+                String.valueOf(releaseTimes.size()), ttlHours, TimeUnit.HOURS);
+
+        Set<ZSetOperations.TypedTuple<String>> tuples = new HashSet<>();
+        releaseTimes.forEach((userId, releaseAt) ->
+                tuples.add(new DefaultTypedTuple<>(member(payloadId, userId), releaseAt.doubleValue())));
+        redisTemplate.opsForZSet().add(QUEUE_KEY, tuples);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<String> claimDue(long now, int limit, long budget, long interval) {
+        String budgetKey = BUDGET_PREFIX + now / interval;
+        List<String> members = redisTemplate.execute(CLAIM_DUE_SCRIPT, Arrays.asList(QUEUE_KEY, budgetKey),
+                String.valueOf(now), String.valueOf(limit), String.valueOf(now + LEASE_MILLIS),
+                String.valueOf(budget), String.valueOf(interval * 2));
+        return members != null ? members : Collections.emptyList();
+    }
+
+    private void deliver(List<String> members, long now) {
+        Map<String, List<Long>> byPayload = new LinkedHashMap<>();
+        for (String member : members) {
+            int separator = member.lastIndexOf(':');
+            byPayload.computeIfAbsent(member.substring(0, separator), key -> new ArrayList<>())
+                    .add(Long.valueOf(member.substring(separator + 1)));
+        }
+
+        byPayload.forEach((payloadId, userIds) -> {
+            NotificationDTO notification;
+            try {
+                String json = redisTemplate.opsForValue().get(PAYLOAD_PREFIX + payloadId);
+                if (json == null) {
+                    log.warn("延迟推送内容已过期，丢弃: payloadId={}, count={}", payloadId, userIds.size());
+                    acknowledge(payloadId, userIds);
+                    return;
+                }
+                notification = objectMapper.readValue(json, NotificationDTO.class);
+            } catch (Exception e) {
+                log.error("读取延迟推送内容失败，稍后重试: payloadId={}, error={}", payloadId, e.getMessage());
+                reschedule(payloadId, userIds, now + RETRY_DELAY_MILLIS);
+                return;
+            }
+            try {
+                push(userIds, notification);
+            } catch (Exception e) {
+                log.error("延迟推送发送失败，稍后重试: payloadId={}, error={}", payloadId, e.getMessage());
+                reschedule(payloadId, userIds, now + RETRY_DELAY_MILLIS);
+                return;
+            }
+            acknowledge(payloadId, userIds);
+        });
+    }
+
+    private void push(List<Long> userIds, NotificationDTO notification) {
+        for (Long userId : userIds) {
+            try {
+                webSocketService.sendNotification(userId, notification);
+            } catch (Exception e) {
+                log.error("WebSocket发送通知失败: userId={}, error={}", userId, e.getMessage());
+            }
+        }
+        notificationMessageSender.send(userIds, notification);
+    }
+
+    // 确认失败时成员保留在队列中，租约结束后会再推送一次
+    private void acknowledge(String payloadId, List<Long> userIds) {
+        try {
+            redisTemplate.execute(ACK_SCRIPT,
+                    Arrays.asList(QUEUE_KEY, REFS_PREFIX + payloadId, PAYLOAD_PREFIX + payloadId),
+                    userIds.stream().map(userId -> member(payloadId, userId)).toArray());
+        } catch (Exception e) {
+            log.error("确认延迟推送失败: payloadId={}, count={}, error={}", payloadId, userIds.size(), e.getMessage());
+        }
+    }
+
+    private String member(String payloadId, Long userId) {
+        return payloadId + ":" + userId;
+    }
+
+    private void reschedule(String payloadId, List<Long> userIds, long releaseAt) {
+        try {
+            Set<ZSetOperations.TypedTuple<String>> tuples = new HashSet<>();
+            for (Long userId : userIds) {
+                tuples.add(new DefaultTypedTuple<>(member(payloadId, userId), (double) releaseAt));
+            }
+            redisTemplate.opsForZSet().add(QUEUE_KEY, tuples);
+        } catch (Exception e) {
+            log.error("重新保存延迟推送失败: payloadId={}, count={}, error={}", payloadId, userIds.size(), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,360 @@
+package com.gameplatform.service.impl;
+
+import com.gameplatform.config.properties.EmailProperties;
+import com.gameplatform.exception.BusinessException;
+import com.gameplatform.service.EmailDispatchService;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.pool2.BasePooledObjectFactory;
+import org.apache.commons.pool2.PooledObject;
+import org.apache.commons.pool2.impl.DefaultPooledObject;
+import org.apache.commons.pool2.impl.GenericObjectPool;
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.mail.MessagingException;
+import javax.mail.SendFailedException;
+import javax.mail.Transport;
+import javax.mail.internet.MimeMessage;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+
+/**
+ * @author SakurazawaRyoko
+ * @version 1.0
+ * @date 2025/01/13 17:15
+ * @description TODO
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class EmailDispatchServiceImpl implements EmailDispatchService {
+
+    private final JavaMailSenderImpl mailSender;
+    private final EmailProperties emailProperties;
+    private final ThreadPoolTaskExecutor emailDispatchExecutor;
+    private final MeterRegistry meterRegistry;
+
+    // userId -> 尚未发出的通知汇总
+    private final Map<Long, Digest> pending = new ConcurrentHashMap<>();
+    private final Map<String, TokenBucket> domainLimiters = new ConcurrentHashMap<>();
+    private GenericObjectPool<Transport> transportPool;
+    // 批量发送占用的连接数上限，其余连接留给sendNow，验证码不会排在大批通知之后
+    private Semaphore batchPermits;
+
+    @PostConstruct
+    public void init() {
+        EmailProperties.Dispatch dispatch = emailProperties.getDispatch();
+        GenericObjectPoolConfig<Transport> config = new GenericObjectPoolConfig<>();
+        config.setMaxTotal(dispatch.getPoolSize());
+        config.setMaxIdle(dispatch.getPoolSize());
+        config.setMaxWait(Duration.ofSeconds(30));
+        // 借出前确认连接仍然可用，服务器可能已关闭空闲连接
+        config.setTestOnBorrow(true);
+        config.setMinEvictableIdleTime(Duration.ofMillis(dispatch.getMaxIdle()));
+        config.setTimeBetweenEvictionRuns(Duration.ofMillis(dispatch.getMaxIdle() / 2));
+        config.setJmxEnabled(false);
+        transportPool = new GenericObjectPool<>(new TransportFactory(), config);
+        int batchConnections = dispatch.getPoolSize() - dispatch.getReservedConnections();
+        if (batchConnections < 1) {
+            log.warn("邮件连接池过小，无法为即时邮件保留连接: poolSize={}, reserved={}",
+                    dispatch.getPoolSize(), dispatch.getReservedConnections());
+            batchConnections = 1;
+        }
+        batchPermits = new Semaphore(batchConnections);
+
+        meterRegistry.gauge("email.digest.pending", pending, Map::size);
+    }
+
+    @Override
+    public void sendNow(String to, String subject, String html) {
+        MimeMessage message;
+        try {
+            message = createMessage(to, subject, html);
+        } catch (MessagingException e) {
+            throw new BusinessException("发送邮件失败：" + e.getMessage());
+        }
+        try (Lease lease = new Lease()) {
+            if (!lease.send(message)) {
+                throw new BusinessException("发送邮件失败：" + lease.lastError);
+            }
+        }
+    }
+
+    @Override
+    public void enqueueNotification(Long userId, String to, String title, String content) {
+        long now = System.currentTimeMillis();
+        pending.compute(userId, (key, digest) -> {
+            if (digest == null) {
+                digest = new Digest(to, now);
+            }
+            digest.items.add(new String[]{title, content});
+            return digest;
+        });
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${email.dispatch.flush-interval:1000}")
+    public synchronized void flush() {
+        flush(false);
+    }
+
+    @PreDestroy
+    public synchronized void shutdown() {
+        log.info("应用关闭，发送剩余的通知邮件: {}", pending.size());
+        flush(true);
+        transportPool.close();
+    }
+
+    // 私有辅助方法
+
+    private void flush(boolean force) {
+        long now = System.currentTimeMillis();
+        long window = emailProperties.getDigest().getWindow();
+        List<MimeMessage> ready = new ArrayList<>();
+        for (Map.Entry<Long, Digest> entry : pending.entrySet()) {
+            Digest digest = entry.getValue();
+            if (!force && now - digest.firstQueuedAt < window) {
+                continue;
+            }
+            // 超出域名速率的留在队列中，下一轮继续合并新通知
+            if (!force && !limiterFor(digest.domain).tryAcquire(now)) {
+                continue;
+            }
+            // 取出后新到的通知会进入新的汇总，不会丢失
+            if (!pending.remove(entry.getKey(), digest)) {
+                continue;
+            }
+            try {
+                ready.add(buildDigest(digest));
+                if (digest.items.size() > 1) {
+                    meterRegistry.counter("email.digest.coalesced").increment(digest.items.size() - 1);
+                }
+            } catch (MessagingException e) {
+                meterRegistry.counter("email.dispatch.failed").increment();
+                log.error("生成通知邮件失败: to={}, error={}", digest.to, e.getMessage());
+            }
+        }
+        dispatch(ready);
+    }
+
+    // 按批次分给发送线程，每个批次在同一个连接上连续发送
+    private void dispatch(List<MimeMessage> messages) {
+        if (messages.isEmpty()) {
+            return;
+        }
+        int batchSize = emailProperties.getDispatch().getBatchSize();
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int i = 0; i < messages.size(); i += batchSize) {
+            List<MimeMessage> batch = messages.subList(i, Math.min(i + batchSize, messages.size()));
+            futures.add(CompletableFuture.runAsync(() -> sendBatch(batch), emailDispatchExecutor));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+    }
+
+    private void sendBatch(List<MimeMessage> batch) {
+        int sent = 0;
+        // 队列满时批次由调用线程执行，发送线程数不能限制连接占用，需要单独计数
+        batchPermits.acquireUninterruptibly();
+        try (Lease lease = new Lease()) {
+            for (MimeMessage message : batch) {
+                if (lease.send(message)) {
+                    sent++;
+                }
+            }
+        } finally {
+            batchPermits.release();
+        }
+        meterRegistry.counter("email.dispatch.sent").increment(sent);
+        meterRegistry.counter("email.dispatch.failed").increment(batch.size() - sent);
+    }
+
+    private MimeMessage buildDigest(Digest digest) throws MessagingException {
+        if (digest.items.size() == 1) {
+            String[] item = digest.items.get(0);
+            return createMessage(digest.to, item[0], singleContent(item[0], item[1]));
+        }
+
+        int maxItems = emailProperties.getDigest().getMaxItems();
+        StringBuilder body = new StringBuilder();
+        for (String[] item : digest.items.subList(0, Math.min(maxItems, digest.items.size()))) {
+            body.append("""
+                <div style="margin: 16px 0;">
+                    <div style="font-weight: bold;">%s</div>
+                    <div>%s</div>
+                </div>
+                """.formatted(item[0], item[1]));
+        }
+        if (digest.items.size() > maxItems) {
+            body.append("<div style=\"margin: 16px 0;\">以及其他 %d 条通知</div>"
+                    .formatted(digest.items.size() - maxItems));
+        }
+        String subject = "您有 " + digest.items.size() + " 条新通知";
+        return createMessage(digest.to, subject, """
+            <div style="padding: 20px; background-color: #f5f7fa;">
+                <h2 style="color: #409EFF;">%s</h2>
+                %s
+                <div style="color: #909399; font-size: 12px;">
+                    此邮件由系统自动发送，请勿回复
+                </div>
+            </div>
+            """.formatted(subject, body));
+    }
+
+    private String singleContent(String title, String content) {
+        return """
+            <div style="padding: 20px; background-color: #f5f7fa;">
+                <h2 style="color: #409EFF;">%s</h2>
+                <div style="margin: 20px 0;">%s</div>
+                <div style="color: #909399; font-size: 12px;">
+                    此邮件由系统自动发送，请勿回复
+                </div>
+            </div>
+            """.formatted(title, content);
+    }
+
+    private MimeMessage createMessage(String to, String subject, String html) throws MessagingException {
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message,
+                MimeMessageHelper.MULTIPART_MODE_MIXED_RELATED,
+                StandardCharsets.UTF_8.name());
+        helper.setTo(to);
+        helper.setSubject(subject);
+        helper.setText(html, true);
+        helper.setSentDate(new Date());
+        message.saveChanges();
+        return message;
+    }
+
+    private TokenBucket limiterFor(String domain) {
+        return domainLimiters.computeIfAbsent(domain, key -> {
+            EmailProperties.Dispatch dispatch = emailProperties.getDispatch();
+            return new TokenBucket(dispatch.getDomainRates().getOrDefault(key, dispatch.getDefaultDomainRate()));
+        });
+    }
+
+    // 从连接池借出一个连接，连续发送多封邮件后归还
+    private class Lease implements AutoCloseable {
+        private Transport transport;
+        private String lastError;
+
+        // 连接失效时丢弃并换新连接重试一次，收件地址被拒绝则直接失败
+        private boolean send(MimeMessage message) {
+            for (int attempt = 0; attempt < 2; attempt++) {
+                try {
+                    if (transport == null) {
+                        transport = transportPool.borrowObject();
+                    }
+                    transport.sendMessage(message, message.getAllRecipients());
+                    return true;
+                } catch (SendFailedException e) {
+                    lastError = e.getMessage();
+                    log.error("邮件收件地址被拒绝: {}", e.getMessage());
+                    return false;
+                } catch (Exception e) {
+                    lastError = e.getMessage();
+                    log.warn("SMTP连接发送失败，丢弃连接: {}", e.getMessage());
+                    invalidate();
+                }
+            }
+            log.error("发送邮件失败: {}", lastError);
+            return false;
+        }
+
+        private void invalidate() {
+            if (transport == null) {
+                return;
+            }
+            try {
+                transportPool.invalidateObject(transport);
+            } catch (Exception e) {
+                log.error("关闭SMTP连接失败: {}", e.getMessage());
+            }
+            transport = null;
+        }
+
+        @Override
+        public void close() {
+            if (transport != null) {
+                transportPool.returnObject(transport);
+            }
+        }
+    }
+
+    private class TransportFactory extends BasePooledObjectFactory<Transport> {
+        @Override
+        public Transport create() throws Exception {
+            String protocol = mailSender.getProtocol() != null ? mailSender.getProtocol() : "smtp";
+            Transport transport = mailSender.getSession().getTransport(protocol);
+            transport.connect(mailSender.getHost(), mailSender.getPort(),
+                    mailSender.getUsername(), mailSender.getPassword());
+            return transport;
+        }
+
+        @Override
+        public PooledObject<Transport> wrap(Transport transport) {
+            return new DefaultPooledObject<>(transport);
+        }
+
+        @Override
+        public boolean validateObject(PooledObject<Transport> pooled) {
+            // SMTP实现会发送NOOP检测连接
+            return pooled.getObject().isConnected();
+        }
+
+        @Override
+        public void destroyObject(PooledObject<Transport> pooled) throws Exception {
+            pooled.getObject().close();
+        }
+    }
+
+    // 同一用户在窗口内的通知，只在 compute 中追加，取出后不再修改
+    private static class Digest {
+        private final String to;
+        private final String domain;
+        private final long firstQueuedAt;
+        private final List<String[]> items = new ArrayList<>();
+
+        private Digest(String to, long firstQueuedAt) {
+            this.to = to;
+            this.domain = to.substring(to.indexOf('@') + 1).toLowerCase(Locale.ROOT);
+            this.firstQueuedAt = firstQueuedAt;
+        }
+    }
+
+    private static class TokenBucket {
+        private final int rate;
+        private double tokens;
+        private long refilledAt;
+
+        private TokenBucket(int rate) {
+            this.rate = rate;
+            this.tokens = rate;
+            this.refilledAt = System.currentTimeMillis();
+        }
+
+        private synchronized boolean tryAcquire(long now) {
+            if (rate <= 0) {
+                return true;
+            }
+            tokens = Math.min(rate, tokens + (now - refilledAt) * rate / 1000.0);
+            refilledAt = now;
+            if (tokens < 1) {
+                return false;
+            }
+            tokens -= 1;
+            return true;
+        }
+    }
+}
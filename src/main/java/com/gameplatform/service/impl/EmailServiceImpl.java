@@ -1,19 +1,13 @@
 package com.gameplatform.service.impl;
 
-import com.gameplatform.exception.BusinessException;
+import com.gameplatform.service.EmailDispatchService;
 import com.gameplatform.service.EmailService;
 import lombok.RequiredArgsConstructor;
-import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.thymeleaf.TemplateEngine;
 import org.thymeleaf.context.Context;
 
-import javax.mail.MessagingException;
-import javax.mail.internet.MimeMessage;
-import java.nio.charset.StandardCharsets;
-
 /**
  * @author SakurazawaRyoko
  * @version 1.0
@@ -23,7 +17,7 @@ import java.nio.charset.StandardCharsets;
 @Service
 @RequiredArgsConstructor
 public class EmailServiceImpl implements EmailService {
-    private final JavaMailSender mailSender;
+    private final EmailDispatchService emailDispatchService;
     private final TemplateEngine templateEngine;
 
     @Override
@@ -63,19 +57,7 @@ public class EmailServiceImpl implements EmailService {
 
     @Override
     public void sendHtmlEmail(String to, String subject, String content) {
-        try {
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message,
-                    MimeMessageHelper.MULTIPART_MODE_MIXED_RELATED,
-                    StandardCharsets.UTF_8.name());
-
-            helper.setTo(to);
-            helper.setSubject(subject);
-            helper.setText(content, true);
-
-            mailSender.send(message);
-        } catch (MessagingException e) {
-            throw new BusinessException("发送邮件失败：" + e.getMessage());
-        }
+        // 复用连接池中的SMTP连接，不再每封邮件重新建立连接
+        emailDispatchService.sendNow(to, subject, content);
     }
 }
\ No newline at end of file
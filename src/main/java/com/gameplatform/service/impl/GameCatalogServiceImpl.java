@@ -0,0 +1,394 @@
+package com.gameplatform.service.impl;
+
+import com.gameplatform.model.dto.GameDTO;
+import com.gameplatform.model.dto.GameSearchDTO;
+import com.gameplatform.model.entity.Game;
+import com.gameplatform.repository.GameRepository;
+import com.gameplatform.service.GameCatalogService;
+import com.gameplatform.util.TransactionUtils;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * @author SakurazawaRyoko
+ * @version 1.0
+ * @date 2025/01/12 19:00
+ * @description TODO
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class GameCatalogServiceImpl implements GameCatalogService {
+
+    private final GameRepository gameRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    // 支持在内存中排序的字段
+    private static final List<String> SORT_FIELDS =
+            Arrays.asList("id", "title", "price", "rating", "ratingCount", "popularity", "createdAt");
+
+    // 删除标记，pending 中不能存放null
+    private static final Entry REMOVED = new Entry(null, 0);
+
+    // 为null表示尚未加载，整体替换保证读取方看到一致的快照
+    private volatile Snapshot snapshot;
+    // 已提交但尚未合入快照的变更，同一游戏只保留最后一次
+    private final Map<Long, Entry> pending = new ConcurrentHashMap<>();
+
+    @Override
+    public void upsert(Game game) {
+        // 事务内复制出不可变条目，提交后登记，由定时任务合并重建快照
+        Entry entry = toEntry(game);
+        TransactionUtils.afterCommit(() -> pending.put(entry.dto.getId(), entry));
+    }
+
+    @Override
+    public void remove(Long gameId) {
+        TransactionUtils.afterCommit(() -> pending.put(gameId, REMOVED));
+    }
+
+    /**
+     * 评分等高频更新只登记变更，短间隔内的多次修改合并为一次快照重建，写入方互不阻塞
+     */
+    @Override
+    @Scheduled(fixedDelayString = "${game.catalog.apply-interval:1000}")
+    public synchronized void applyPending() {
+        Snapshot current = snapshot;
+        if (current == null || pending.isEmpty()) {
+            return;
+        }
+        Map<Long, Entry> entries = current.entries();
+        for (Map.Entry<Long, Entry> change : pending.entrySet()) {
+            Entry entry = change.getValue();
+            if (entry == REMOVED) {
+                entries.remove(change.getKey());
+            } else {
+                entries.put(change.getKey(), entry);
+            }
+            // 期间又有新的修改时保留，下一轮继续合入
+            pending.remove(change.getKey(), entry);
+        }
+        snapshot = new Snapshot(entries);
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${game.catalog.reload-interval:600000}")
+    public synchronized void reload() {
+        long start = System.currentTimeMillis();
+        Map<Long, Entry> entries = transactionTemplate.execute(status -> {
+            Map<Long, Set<String>> screenshots = new HashMap<>();
+            for (Object[] row : gameRepository.findAllScreenshots()) {
+                screenshots.computeIfAbsent((Long) row[0], id -> new HashSet<>()).add((String) row[1]);
+            }
+            Map<Long, Entry> loaded = new HashMap<>();
+            for (Game game : gameRepository.findAllWithCategories()) {
+                loaded.put(game.getId(), toEntry(game, screenshots.get(game.getId())));
+            }
+            return loaded;
+        });
+        snapshot = new Snapshot(entries);
+        log.info("游戏目录加载完成，游戏 {} 个，分类 {} 个，耗时 {} ms",
+                snapshot.size, snapshot.categories.size(), System.currentTimeMillis() - start);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        try {
+            reload();
+        } catch (Exception e) {
+            log.error("游戏目录加载失败: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public Page<GameDTO> search(GameSearchDTO searchDTO, Pageable pageable) {
+        Snapshot current = snapshot;
+        if (current == null) {
+            return null;
+        }
+        List<Sort.Order> orders = pageable.getSort().toList();
+        for (Sort.Order order : orders) {
+            if (!SORT_FIELDS.contains(order.getProperty())) {
+                return null;
+            }
+        }
+
+        BitSet matches = current.filter(searchDTO.getTitle(), searchDTO.getMinRating());
+        BitSet categories = current.anyOf(searchDTO.getCategories());
+        if (categories != null) {
+            matches.and(categories);
+        }
+
+        int total = matches.cardinality();
+        long offset = pageable.isPaged() ? pageable.getOffset() : 0;
+        int limit = pageable.isPaged() ? pageable.getPageSize() : total;
+        List<GameDTO> content = new ArrayList<>(Math.min(limit, total));
+        if (offset < total) {
+            for (int index : current.sorted(matches, orders)) {
+                if (offset > 0) {
+                    offset--;
+                    continue;
+                }
+                content.add(copy(current.dtos[index]));
+                if (content.size() >= limit) {
+                    break;
+                }
+            }
+        }
+        return new PageImpl<>(content, pageable, total);
+    }
+
+    @Override
+    public Map<String, Long> countByCategory(GameSearchDTO searchDTO) {
+        Snapshot current = snapshot;
+        if (current == null) {
+            return null;
+        }
+        // 分类计数不受已选分类影响，便于多选筛选
+        BitSet base = current.filter(searchDTO.getTitle(), searchDTO.getMinRating());
+        Map<String, Long> counts = new LinkedHashMap<>();
+        current.categories.forEach((category, bits) -> {
+            BitSet hits = (BitSet) bits.clone();
+            hits.and(base);
+            int count = hits.cardinality();
+            if (count > 0) {
+                counts.put(category, (long) count);
+            }
+        });
+        return counts;
+    }
+
+    @Override
+    public List<String> getCategories() {
+        Snapshot current = snapshot;
+        return current != null ? new ArrayList<>(current.categories.keySet()) : null;
+    }
+
+    @Override
+    public List<GameDTO> getByIds(List<Long> gameIds) {
+        Snapshot current = snapshot;
+        if (current == null) {
+            return null;
+        }
+        List<GameDTO> games = new ArrayList<>(gameIds.size());
+        for (Long gameId : gameIds) {
+            Integer index = current.positions.get(gameId);
+            if (index != null) {
+                games.add(copy(current.dtos[index]));
+            }
+        }
+        return games;
+    }
+
+    // 私有辅助方法
+
+    // 快照中的对象被所有请求共享，返回副本避免调用方修改
+    private GameDTO copy(GameDTO source) {
+        GameDTO dto = new GameDTO();
+        BeanUtils.copyProperties(source, dto);
+        return dto;
+    }
+
+    private Entry toEntry(Game game) {
+        return toEntry(game, game.getScreenshots());
+    }
+
+    private Entry toEntry(Game game, Set<String> screenshots) {
+        GameDTO dto = new GameDTO();
+        BeanUtils.copyProperties(game, dto, "screenshots", "categories");
+        dto.setScreenshots(screenshots != null
+                ? Collections.unmodifiableSet(new HashSet<>(screenshots)) : Collections.emptySet());
+        dto.setCategories(game.getCategories() != null
+                ? Collections.unmodifiableSet(new HashSet<>(game.getCategories())) : Collections.emptySet());
+        long createdAt = game.getCreatedAt() != null ? game.getCreatedAt().toEpochSecond(ZoneOffset.UTC) : 0;
+        return new Entry(dto, createdAt);
+    }
+
+    private static final class Entry {
+        final GameDTO dto;
+        final long createdAt;
+
+        Entry(GameDTO dto, long createdAt) {
+            this.dto = dto;
+            this.createdAt = createdAt;
+        }
+    }
+
+    /**
+     * 只读的目录快照：按下标存放各列，分类用位图表示所属游戏
+     */
+    private static final class Snapshot {
+        final int size;
+        final long[] ids;
+        final GameDTO[] dtos;
+        final long[] createdAt;
+        final String[] titles;
+        final double[] prices;
+        final double[] ratings;
+        final int[] ratingCounts;
+        final int[] popularity;
+        final Map<Long, Integer> positions;
+        final SortedMap<String, BitSet> categories = new TreeMap<>();
+        // 各排序字段的升序下标，单字段排序时直接按此顺序遍历
+        final Map<String, int[]> orders = new HashMap<>();
+
+        Snapshot(Map<Long, Entry> entries) {
+            List<Entry> sorted = new ArrayList<>(entries.values());
+            sorted.sort(Comparator.comparing(entry -> entry.dto.getId()));
+            size = sorted.size();
+            ids = new long[size];
+            dtos = new GameDTO[size];
+            createdAt = new long[size];
+            titles = new String[size];
+            prices = new double[size];
+            ratings = new double[size];
+            ratingCounts = new int[size];
+            popularity = new int[size];
+            positions = new HashMap<>(size * 2);
+            for (int i = 0; i < size; i++) {
+                Entry entry = sorted.get(i);
+                GameDTO dto = entry.dto;
+                ids[i] = dto.getId();
+                dtos[i] = dto;
+                createdAt[i] = entry.createdAt;
+                titles[i] = dto.getTitle() != null ? dto.getTitle().toLowerCase() : "";
+                prices[i] = dto.getPrice() != null ? dto.getPrice().doubleValue() : 0;
+                ratings[i] = dto.getRating() != null ? dto.getRating() : 0;
+                ratingCounts[i] = dto.getRatingCount() != null ? dto.getRatingCount() : 0;
+                popularity[i] = dto.getPopularity() != null ? dto.getPopularity() : 0;
+                positions.put(dto.getId(), i);
+                for (String category : dto.getCategories()) {
+                    categories.computeIfAbsent(category, c -> new BitSet(size)).set(i);
+                }
+            }
+            for (String field : SORT_FIELDS) {
+                Integer[] order = new Integer[size];
+                for (int i = 0; i < size; i++) {
+                    order[i] = i;
+                }
+                // 排序稳定，同值按ID升序
+                Arrays.sort(order, comparator(field));
+                orders.put(field, Arrays.stream(order).mapToInt(Integer::intValue).toArray());
+            }
+        }
+
+        Map<Long, Entry> entries() {
+            Map<Long, Entry> entries = new HashMap<>(size * 2);
+            for (int i = 0; i < size; i++) {
+                entries.put(ids[i], new Entry(dtos[i], createdAt[i]));
+            }
+            return entries;
+        }
+
+        BitSet filter(String title, Double minRating) {
+            BitSet bits = new BitSet(size);
+            bits.set(0, size);
+            String keyword = title != null && !title.trim().isEmpty() ? title.trim().toLowerCase() : null;
+            for (int i = bits.nextSetBit(0); i >= 0; i = bits.nextSetBit(i + 1)) {
+                if ((keyword != null && !titles[i].contains(keyword))
+                        || (minRating != null && ratings[i] < minRating)) {
+                    bits.clear(i);
+                }
+            }
+            return bits;
+        }
+
+        // 任一分类命中即可，与数据库查询的IN语义一致
+        BitSet anyOf(Set<String> selected) {
+            if (selected == null || selected.isEmpty()) {
+                return null;
+            }
+            BitSet bits = new BitSet(size);
+            for (String category : selected) {
+                BitSet categoryBits = categories.get(category);
+                if (categoryBits != null) {
+                    bits.or(categoryBits);
+                }
+            }
+            return bits;
+        }
+
+        Iterable<Integer> sorted(BitSet matches, List<Sort.Order> sortOrders) {
+            if (sortOrders.isEmpty()) {
+                return () -> matches.stream().iterator();
+            }
+            if (sortOrders.size() == 1) {
+                int[] order = orders.get(sortOrders.get(0).getProperty());
+                boolean descending = sortOrders.get(0).isDescending();
+                return () -> new Iterator<Integer>() {
+                    int cursor = advance(descending ? size - 1 : 0);
+
+                    private int advance(int from) {
+                        int step = descending ? -1 : 1;
+                        int i = from;
+                        while (i >= 0 && i < size && !matches.get(order[i])) {
+                            i += step;
+                        }
+                        return i;
+                    }
+
+                    @Override
+                    public boolean hasNext() {
+                        return cursor >= 0 && cursor < size;
+                    }
+
+                    @Override
+                    public Integer next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        int index = order[cursor];
+                        cursor = advance(cursor + (descending ? -1 : 1));
+                        return index;
+                    }
+                };
+            }
+            // 多字段排序较少见，对命中结果直接排序
+            Comparator<Integer> comparator = null;
+            for (Sort.Order order : sortOrders) {
+                Comparator<Integer> next = comparator(order.getProperty());
+                if (order.isDescending()) {
+                    next = next.reversed();
+                }
+                comparator = comparator == null ? next : comparator.thenComparing(next);
+            }
+            List<Integer> result = new ArrayList<>(matches.cardinality());
+            matches.stream().forEach(result::add);
+            result.sort(comparator);
+            return result;
+        }
+
+        Comparator<Integer> comparator(String field) {
+            switch (field) {
+                case "title":
+                    return Comparator.comparing(i -> titles[i]);
+                case "price":
+                    return Comparator.comparingDouble(i -> prices[i]);
+                case "rating":
+                    return Comparator.comparingDouble(i -> ratings[i]);
+                case "ratingCount":
+                    return Comparator.comparingInt(i -> ratingCounts[i]);
+                case "popularity":
+                    return Comparator.comparingInt(i -> popularity[i]);
+                case "createdAt":
+                    return Comparator.comparingLong(i -> createdAt[i]);
+                default:
+                    return Comparator.comparingLong(i -> ids[i]);
+            }
+        }
+    }
+}
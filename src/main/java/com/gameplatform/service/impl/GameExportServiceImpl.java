@@ -0,0 +1,141 @@
+package com.gameplatform.service.impl;
+
+import com.gameplatform.exception.BusinessException;
+import com.gameplatform.repository.UserGameRepository;
+import com.gameplatform.service.GameExportService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import javax.persistence.EntityManager;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * @author SakurazawaRyoko
+ * @version 1.0
+ * @date 2025/01/12 21:40
+ * @description TODO
+ */
+@Slf4j
+@Service
+public class GameExportServiceImpl implements GameExportService {
+
+    private final UserGameRepository userGameRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate readOnlyTemplate;
+
+    private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final String USER_HEADER = "游戏名称,购买时间,游戏时长(小时),最后游玩时间,评分";
+    private static final String ADMIN_HEADER = "用户ID," + USER_HEADER;
+    private static final int BUFFER_SIZE = 8192;
+    // 每写出这么多行清空一次持久化上下文，保证全量导出时堆内存恒定
+    private static final int CLEAR_INTERVAL = 1000;
+
+    public GameExportServiceImpl(UserGameRepository userGameRepository,
+                                 EntityManager entityManager,
+                                 PlatformTransactionManager transactionManager) {
+        this.userGameRepository = userGameRepository;
+        this.entityManager = entityManager;
+        this.readOnlyTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTemplate.setReadOnly(true);
+    }
+
+    @Override
+    public StreamingResponseBody exportUserGames(Long userId, boolean gzip) {
+        // 在请求线程上校验，响应开始写出后就无法再返回错误信息
+        if (userGameRepository.countByUserId(userId) == 0) {
+            throw new BusinessException("没有找到游戏记录");
+        }
+        return out -> write(out, gzip, USER_HEADER, false,
+                () -> userGameRepository.streamExportRowsByUserId(userId));
+    }
+
+    @Override
+    public StreamingResponseBody exportAllUserGames(boolean gzip) {
+        return out -> write(out, gzip, ADMIN_HEADER, true, userGameRepository::streamAllExportRows);
+    }
+
+    // 私有辅助方法
+
+    // 在异步线程中执行，流式结果集必须在同一个只读事务内消费完
+    private void write(OutputStream out, boolean gzip, String header, boolean withUserId,
+                       Supplier<Stream<Object[]>> rows) throws IOException {
+        long start = System.currentTimeMillis();
+        OutputStream target = gzip ? new GZIPOutputStream(out, BUFFER_SIZE) : out;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(target, StandardCharsets.UTF_8), BUFFER_SIZE);
+        writer.write(header);
+        writer.write('\n');
+
+        Long count;
+        try {
+            count = readOnlyTemplate.execute(status -> {
+                long written = 0;
+                try (Stream<Object[]> stream = rows.get()) {
+                    for (Object[] row : (Iterable<Object[]>) stream::iterator) {
+                        writeRow(writer, row, withUserId);
+                        if (++written % CLEAR_INTERVAL == 0) {
+                            entityManager.clear();
+                        }
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return written;
+            });
+        } catch (UncheckedIOException e) {
+            // 多为客户端中途断开连接
+            log.warn("游戏列表导出中断: {}", e.getMessage());
+            throw e.getCause();
+        }
+
+        writer.flush();
+        if (gzip) {
+            ((GZIPOutputStream) target).finish();
+        }
+        log.info("游戏列表导出完成: rows={}, gzip={}, 耗时 {} ms",
+                count, gzip, System.currentTimeMillis() - start);
+    }
+
+    // 行格式: [用户ID,] 游戏名称, 购买时间, 游戏时长(小时), 最后游玩时间, 评分
+    private void writeRow(Writer writer, Object[] row, boolean withUserId) throws IOException {
+        if (withUserId) {
+            writer.write(String.valueOf(row[0]));
+            writer.write(',');
+        }
+        writer.write(escape((String) row[1]));
+        writer.write(',');
+        writer.write(formatDateTime((LocalDateTime) row[2]));
+        writer.write(',');
+        Integer playTime = (Integer) row[3];
+        writer.write(Integer.toString(playTime != null ? playTime / 60 : 0)); // 转换为小时
+        writer.write(',');
+        writer.write(formatDateTime((LocalDateTime) row[4]));
+        writer.write(',');
+        Double rating = (Double) row[5];
+        writer.write(String.format("%.1f", rating != null ? rating : 0.0));
+        writer.write('\n');
+    }
+
+    private String escape(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0
+                && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private String formatDateTime(LocalDateTime dateTime) {
+        return dateTime != null ? dateTime.format(DATE_TIME_FORMATTER) : "";
+    }
+}
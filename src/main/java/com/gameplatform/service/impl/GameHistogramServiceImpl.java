@@ -0,0 +1,209 @@
+package com.gameplatform.service.impl;
+
+import com.gameplatform.config.properties.GameProperties;
+import com.gameplatform.exception.BusinessException;
+import com.gameplatform.model.entity.Game;
+import com.gameplatform.model.entity.GamePlayTimeBucket;
+import com.gameplatform.repository.GameBatchRepository;
+import com.gameplatform.repository.GamePlayTimeBucketRepository;
+import com.gameplatform.repository.GameRepository;
+import com.gameplatform.repository.UserGameBatchRepository;
+import com.gameplatform.service.GameHistogramService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+
+/**
+ * @author SakurazawaRyoko
+ * @version 1.0
+ * @date 2025/01/12 21:00
+ * @description TODO
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class GameHistogramServiceImpl implements GameHistogramService {
+
+    private final GameRepository gameRepository;
+    private final GamePlayTimeBucketRepository gamePlayTimeBucketRepository;
+    private final GameBatchRepository gameBatchRepository;
+    private final UserGameBatchRepository userGameBatchRepository;
+    private final GameProperties gameProperties;
+    private final TransactionTemplate transactionTemplate;
+
+    // 最后一个区间没有上界
+    private static final int UNBOUNDED = Integer.MAX_VALUE;
+
+    @Override
+    public void onPlayTimeChanged(Long gameId, Integer oldPlayTime, Integer newPlayTime) {
+        int[] bounds = upperBounds();
+        Map<Long, Map<Integer, Long>> deltas = new TreeMap<>();
+        if (oldPlayTime != null) {
+            addDelta(deltas, gameId, bucketOf(bounds, oldPlayTime), -1);
+        }
+        if (newPlayTime != null) {
+            addDelta(deltas, gameId, bucketOf(bounds, newPlayTime), 1);
+        }
+        apply(deltas);
+    }
+
+    @Override
+    public void onPlayTimeAdded(List<long[]> rows) {
+        int[] bounds = upperBounds();
+        int batchSize = gameProperties.getPlayTime().getBatchSize();
+        Map<Long, Map<Integer, Long>> deltas = new TreeMap<>();
+        for (int from = 0; from < rows.size(); from += batchSize) {
+            List<long[]> chunk = rows.subList(from, Math.min(from + batchSize, rows.size()));
+            Map<Long, Map<Long, Long>> added = new HashMap<>();
+            for (long[] row : chunk) {
+                added.computeIfAbsent(row[0], id -> new HashMap<>()).put(row[1], row[2]);
+            }
+            // 只有跨越区间边界的记录才需要调整计数
+            for (long[] current : userGameBatchRepository.findPlayTimesForUpdate(chunk)) {
+                long oldPlayTime = current[2];
+                long newPlayTime = oldPlayTime + added.get(current[0]).get(current[1]);
+                int oldBucket = bucketOf(bounds, oldPlayTime);
+                int newBucket = bucketOf(bounds, newPlayTime);
+                if (oldBucket != newBucket) {
+                    addDelta(deltas, current[1], oldBucket, -1);
+                    addDelta(deltas, current[1], newBucket, 1);
+                }
+            }
+        }
+        apply(deltas);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Map<String, Long> getPlayTimeDistribution(Long gameId) {
+        int[] bounds = upperBounds();
+        Map<Integer, Long> counts = new HashMap<>();
+        for (GamePlayTimeBucket bucket : gamePlayTimeBucketRepository.findByGameId(gameId)) {
+            counts.put(bucket.getUpperBound(), bucket.getPlayerCount());
+        }
+
+        Map<String, Long> distribution = new LinkedHashMap<>();
+        int lower = 0;
+        for (int bound : bounds) {
+            distribution.put(label(lower, bound), counts.getOrDefault(bound, 0L));
+            lower = bound;
+        }
+        distribution.put(">" + formatMinutes(lower), counts.getOrDefault(UNBOUNDED, 0L));
+        return distribution;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Map<Integer, Long> getRatingDistribution(Long gameId) {
+        Game game = gameRepository.findById(gameId)
+                .orElseThrow(() -> new BusinessException("游戏不存在"));
+        int[] counts = {
+                game.getStar0Count(), game.getStar1Count(), game.getStar2Count(),
+                game.getStar3Count(), game.getStar4Count(), game.getStar5Count()
+        };
+        // 与原先按评分整数部分分组的结果保持一致，只返回有人评分的星级
+        Map<Integer, Long> distribution = new HashMap<>();
+        for (int star = 0; star < counts.length; star++) {
+            if (counts[star] > 0) {
+                distribution.put(star, (long) counts[star]);
+            }
+        }
+        return distribution;
+    }
+
+    @Override
+    @Scheduled(cron = "${game.histogram.rebuild-cron:0 0 5 * * ?}")
+    public void rebuildPlayTimeHistogram() {
+        long start = System.currentTimeMillis();
+        int[] bounds = upperBounds();
+        Long maxId = gameRepository.findMaxId();
+        long batchSize = gameProperties.getHistogram().getRebuildBatchSize();
+        int total = 0;
+        // 每个区间单独提交，避免长事务锁住整张user_games
+        for (long from = 1; maxId != null && from <= maxId; from += batchSize) {
+            long fromId = from;
+            long toId = from + batchSize - 1;
+            try {
+                Integer rows = transactionTemplate.execute(status ->
+                        gameBatchRepository.rebuildPlayTimeBuckets(bounds, fromId, toId));
+                total += rows != null ? rows : 0;
+            } catch (Exception e) {
+                log.error("游戏时长分布重建失败: from={}, to={}, {}", fromId, toId, e.getMessage());
+            }
+        }
+        log.info("游戏时长分布重建完成，共 {} 个区间，耗时 {} ms", total, System.currentTimeMillis() - start);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        try {
+            // 区间配置变化（增加、删除或修改上界）或尚未统计过时全量重建
+            Set<Integer> expected = new HashSet<>();
+            for (int bound : upperBounds()) {
+                expected.add(bound);
+            }
+            expected.add(UNBOUNDED);
+            Set<Integer> stored = new HashSet<>(gamePlayTimeBucketRepository.findDistinctUpperBounds());
+            if (stored.isEmpty() || !stored.equals(expected)) {
+                rebuildPlayTimeHistogram();
+            }
+        } catch (Exception e) {
+            log.error("游戏时长分布重建失败: {}", e.getMessage());
+        }
+    }
+
+    // 私有辅助方法
+
+    private int[] upperBounds() {
+        return gameProperties.getHistogram().getPlayTimeBuckets().stream()
+                .mapToInt(Integer::intValue)
+                .filter(bound -> bound > 0)
+                .sorted()
+                .distinct()
+                .toArray();
+    }
+
+    private int bucketOf(int[] bounds, long playTime) {
+        for (int bound : bounds) {
+            if (playTime <= bound) {
+                return bound;
+            }
+        }
+        return UNBOUNDED;
+    }
+
+    private void addDelta(Map<Long, Map<Integer, Long>> deltas, Long gameId, int bucket, long delta) {
+        deltas.computeIfAbsent(gameId, id -> new TreeMap<>()).merge(bucket, delta, Long::sum);
+    }
+
+    // 按(游戏, 区间)顺序写入，多个事务并发更新时加锁顺序一致
+    private void apply(Map<Long, Map<Integer, Long>> deltas) {
+        List<long[]> rows = new ArrayList<>();
+        deltas.forEach((gameId, buckets) -> buckets.forEach((bucket, delta) -> {
+            if (delta != 0) {
+                rows.add(new long[]{gameId, bucket, delta});
+            }
+        }));
+        if (!rows.isEmpty()) {
+            gameBatchRepository.applyPlayTimeBucketDeltas(rows);
+        }
+    }
+
+    private String label(int lower, int upper) {
+        if (lower % 60 == 0 && upper % 60 == 0) {
+            return lower / 60 + "-" + upper / 60 + "h";
+        }
+        return lower + "-" + upper + "m";
+    }
+
+    private String formatMinutes(int minutes) {
+        return minutes % 60 == 0 ? minutes / 60 + "h" : minutes + "m";
+    }
+}
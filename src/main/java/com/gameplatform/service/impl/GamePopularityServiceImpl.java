@@ -0,0 +1,105 @@
+package com.gameplatform.service.impl;
+
+import com.gameplatform.config.properties.GameProperties;
+import com.gameplatform.repository.GameBatchRepository;
+import com.gameplatform.repository.GameRepository;
+import com.gameplatform.repository.PostRepository;
+import com.gameplatform.repository.UserGameRepository;
+import com.gameplatform.service.GameCatalogService;
+import com.gameplatform.service.GamePopularityService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author SakurazawaRyoko
+ * @version 1.0
+ * @date 2025/01/12 17:30
+ * @description TODO
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class GamePopularityServiceImpl implements GamePopularityService {
+
+    private final GameRepository gameRepository;
+    private final UserGameRepository userGameRepository;
+    private final PostRepository postRepository;
+    private final GameBatchRepository gameBatchRepository;
+    private final GameProperties gameProperties;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final GameCatalogService gameCatalogService;
+
+    @Override
+    public int refreshPopularity() {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        int chunkSize = gameProperties.getPopularity().getChunkSize();
+        long afterId = 0;
+        int scanned = 0;
+        int updated = 0;
+
+        while (true) {
+            List<Object[]> games = gameRepository.findPopularityInputs(afterId, PageRequest.of(0, chunkSize));
+            if (games.isEmpty()) {
+                break;
+            }
+            long fromId = (Long) games.get(0)[0];
+            long toId = (Long) games.get(games.size() - 1)[0];
+
+            // 每批两条分组查询拿到全部计数
+            Map<Long, Long> owners = toCountMap(userGameRepository.countByGameIdRange(fromId, toId));
+            Map<Long, Long> posts = toCountMap(postRepository.countByGameIdRange(fromId, toId));
+
+            Map<Long, Integer> changed = new HashMap<>();
+            for (Object[] row : games) {
+                Long gameId = (Long) row[0];
+                double rating = row[1] != null ? (Double) row[1] : 0.0;
+                int popularity = computePopularity(
+                        owners.getOrDefault(gameId, 0L), posts.getOrDefault(gameId, 0L), rating);
+                if (row[2] == null || (Integer) row[2] != popularity) {
+                    changed.put(gameId, popularity);
+                }
+            }
+            if (!changed.isEmpty()) {
+                transactionTemplate.executeWithoutResult(status -> gameBatchRepository.updatePopularity(changed));
+                updated += changed.size();
+            }
+
+            scanned += games.size();
+            afterId = toId;
+        }
+
+        if (updated > 0) {
+            // 人气值绕过实体直接写库，重新加载目录
+            gameCatalogService.reload();
+        }
+
+        long elapsed = sample.stop(meterRegistry.timer("game.popularity.refresh"));
+        log.info("游戏人气值重算完成，扫描 {} 个，更新 {} 个，耗时 {} ms", scanned, updated, elapsed / 1_000_000);
+        return updated;
+    }
+
+    // 私有辅助方法
+
+    // 综合人气值：用户数 * (1 + 平均评分/5) * (1 + 帖子数/100)
+    private int computePopularity(long userCount, long postCount, double avgRating) {
+        return (int) (userCount * (1 + avgRating / 5) * (1 + postCount / 100.0));
+    }
+
+    private Map<Long, Long> toCountMap(List<Object[]> rows) {
+        Map<Long, Long> counts = new HashMap<>();
+        for (Object[] row : rows) {
+            counts.put((Long) row[0], (Long) row[1]);
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,369 @@
+package com.gameplatform.service.impl;
+
+import com.gameplatform.config.properties.GameProperties;
+import com.gameplatform.repository.GameRepository;
+import com.gameplatform.repository.UserGameRepository;
+import com.gameplatform.service.GameRecommendationService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * @author SakurazawaRyoko
+ * @version 1.0
+ * @date 2025/01/12 18:10
+ * @description TODO
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class GameRecommendationServiceImpl implements GameRecommendationService {
+
+    private final GameRepository gameRepository;
+    private final UserGameRepository userGameRepository;
+    private final GameProperties gameProperties;
+
+    // 整体替换，读取方拿到的始终是完整的一版模型
+    private volatile Model model;
+
+    @Override
+    public List<Long> recommend(Long userId, int limit) {
+        Model current = model;
+        if (current == null) {
+            return null;
+        }
+        int itemCount = current.gameIds.length;
+        float[] scores = new float[itemCount];
+        boolean[] owned = new boolean[itemCount];
+
+        int user = userId != null ? Arrays.binarySearch(current.userIds, userId) : -1;
+        if (user >= 0) {
+            for (int p = current.userOffsets[user]; p < current.userOffsets[user + 1]; p++) {
+                owned[current.userItems[p]] = true;
+            }
+            // 用户每款游戏的邻居按 用户权重*相似度 累加
+            for (int p = current.userOffsets[user]; p < current.userOffsets[user + 1]; p++) {
+                int item = current.userItems[p];
+                float weight = current.userWeights[p];
+                int[] neighbors = current.neighbors[item];
+                float[] similarities = current.similarities[item];
+                for (int k = 0; k < neighbors.length; k++) {
+                    scores[neighbors[k]] += weight * similarities[k];
+                }
+            }
+        }
+
+        int[] top = topItems(scores, owned, limit);
+        List<Long> result = new ArrayList<>(limit);
+        for (int item : top) {
+            result.add(current.gameIds[item]);
+            owned[item] = true;
+        }
+        // 冷启动或候选不足时用热门游戏补齐
+        for (int i = 0; i < current.popular.length && result.size() < limit; i++) {
+            int item = current.popular[i];
+            if (!owned[item]) {
+                result.add(current.gameIds[item]);
+                owned[item] = true;
+            }
+        }
+        return result;
+    }
+
+    @Override
+    @Scheduled(cron = "${game.recommendation.rebuild-cron:0 15 * * * ?}")
+    public synchronized void rebuildModel() {
+        long start = System.currentTimeMillis();
+        GameProperties.Recommendation config = gameProperties.getRecommendation();
+
+        long[] gameIds = gameRepository.findAllIdsOrderById().stream().mapToLong(Long::longValue).toArray();
+        Ownership ownership = scanOwnership(gameIds, config.getScanBatchSize());
+        int[][] neighbors = new int[gameIds.length][];
+        float[][] similarities = new float[gameIds.length][];
+        computeNeighbors(ownership, gameIds.length, config, neighbors, similarities);
+
+        model = new Model(gameIds, ownership.userIds, ownership.userOffsets, ownership.userItems,
+                ownership.userWeights, neighbors, similarities,
+                popularItems(ownership, gameIds.length, config.getPopularCandidates()));
+        log.info("推荐模型构建完成，游戏 {} 个，用户 {} 个，拥有记录 {} 条，耗时 {} ms",
+                gameIds.length, ownership.userIds.length, ownership.userItems.length,
+                System.currentTimeMillis() - start);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        try {
+            rebuildModel();
+        } catch (Exception e) {
+            log.error("推荐模型构建失败: {}", e.getMessage());
+        }
+    }
+
+    // 私有辅助方法
+
+    // 按用户顺序读取拥有关系，直接写成按用户分组的压缩行存储
+    private Ownership scanOwnership(long[] gameIds, int batchSize) {
+        LongBuffer users = new LongBuffer();
+        IntBuffer offsets = new IntBuffer();
+        IntBuffer items = new IntBuffer();
+        FloatBuffer weights = new FloatBuffer();
+
+        long lastUser = 0;
+        long lastGame = 0;
+        while (true) {
+            List<Object[]> rows = userGameRepository.findOwnershipAfter(
+                    lastUser, lastGame, PageRequest.of(0, batchSize));
+            for (Object[] row : rows) {
+                long userId = (Long) row[0];
+                long gameId = (Long) row[1];
+                lastUser = userId;
+                lastGame = gameId;
+                int item = Arrays.binarySearch(gameIds, gameId);
+                if (item < 0) {
+                    // 扫描期间新增的游戏，下次重建再纳入
+                    continue;
+                }
+                if (users.size == 0 || users.get(users.size - 1) != userId) {
+                    users.add(userId);
+                    offsets.add(items.size);
+                }
+                items.add(item);
+                weights.add(weightOf(row[2] != null ? (Integer) row[2] : 0));
+            }
+            if (rows.size() < batchSize) {
+                break;
+            }
+        }
+        offsets.add(items.size);
+        return new Ownership(users.toArray(), offsets.toArray(), items.toArray(), weights.toArray());
+    }
+
+    // 拥有即为正反馈，游戏时长（分钟）按对数加权，避免重度玩家主导相似度
+    private float weightOf(int playTimeMinutes) {
+        return (float) (1.0 + Math.log1p(playTimeMinutes / 60.0));
+    }
+
+    // 余弦相似度：对每个游戏沿 游戏->用户->游戏 累加共同拥有权重，只保留前K个
+    private void computeNeighbors(Ownership ownership, int itemCount, GameProperties.Recommendation config,
+                                  int[][] neighbors, float[][] similarities) {
+        int userCount = ownership.userIds.length;
+        int[] itemOffsets = new int[itemCount + 1];
+        for (int item : ownership.userItems) {
+            itemOffsets[item + 1]++;
+        }
+        for (int i = 0; i < itemCount; i++) {
+            itemOffsets[i + 1] += itemOffsets[i];
+        }
+        // 倒排：游戏 -> (用户, 权重)
+        int[] itemUsers = new int[ownership.userItems.length];
+        float[] itemWeights = new float[ownership.userItems.length];
+        int[] cursor = Arrays.copyOf(itemOffsets, itemCount);
+        float[] norms = new float[itemCount];
+        for (int u = 0; u < userCount; u++) {
+            for (int p = ownership.userOffsets[u]; p < ownership.userOffsets[u + 1]; p++) {
+                int item = ownership.userItems[p];
+                float weight = ownership.userWeights[p];
+                itemUsers[cursor[item]] = u;
+                itemWeights[cursor[item]++] = weight;
+                norms[item] += weight * weight;
+            }
+        }
+        for (int i = 0; i < itemCount; i++) {
+            norms[i] = (float) Math.sqrt(norms[i]);
+        }
+
+        int k = config.getNeighbors();
+        int maxUserItems = config.getMaxUserItems();
+        float[] dots = new float[itemCount];
+        int[] touched = new int[itemCount];
+        for (int i = 0; i < itemCount; i++) {
+            int touchedCount = 0;
+            for (int p = itemOffsets[i]; p < itemOffsets[i + 1]; p++) {
+                int u = itemUsers[p];
+                int from = ownership.userOffsets[u];
+                int to = ownership.userOffsets[u + 1];
+                if (to - from > maxUserItems) {
+                    continue;
+                }
+                float weight = itemWeights[p];
+                for (int q = from; q < to; q++) {
+                    int j = ownership.userItems[q];
+                    if (j == i) {
+                        continue;
+                    }
+                    if (dots[j] == 0) {
+                        touched[touchedCount++] = j;
+                    }
+                    dots[j] += weight * ownership.userWeights[q];
+                }
+            }
+
+            TopK top = new TopK(Math.min(k, touchedCount));
+            for (int t = 0; t < touchedCount; t++) {
+                int j = touched[t];
+                top.offer(j, dots[j] / (norms[i] * norms[j]));
+                dots[j] = 0;
+            }
+            neighbors[i] = top.items();
+            similarities[i] = top.scores();
+        }
+    }
+
+    private int[] popularItems(Ownership ownership, int itemCount, int limit) {
+        float[] owners = new float[itemCount];
+        for (int item : ownership.userItems) {
+            owners[item]++;
+        }
+        return topItems(owners, new boolean[itemCount], limit);
+    }
+
+    // 取分数大于0且未排除的前limit个，按分数降序
+    private int[] topItems(float[] scores, boolean[] excluded, int limit) {
+        TopK top = new TopK(limit);
+        for (int i = 0; i < scores.length; i++) {
+            if (scores[i] > 0 && !excluded[i]) {
+                top.offer(i, scores[i]);
+            }
+        }
+        return top.items();
+    }
+
+    /**
+     * 一版只读的推荐模型，所有数组构建完成后不再修改
+     */
+    private static final class Model {
+        // 游戏下标 -> 游戏ID，升序
+        final long[] gameIds;
+        // 用户ID升序，userOffsets[u]..userOffsets[u+1] 为该用户拥有的游戏下标与权重
+        final long[] userIds;
+        final int[] userOffsets;
+        final int[] userItems;
+        final float[] userWeights;
+        // 每个游戏的前K个相似游戏，按相似度降序
+        final int[][] neighbors;
+        final float[][] similarities;
+        final int[] popular;
+
+        Model(long[] gameIds, long[] userIds, int[] userOffsets, int[] userItems, float[] userWeights,
+              int[][] neighbors, float[][] similarities, int[] popular) {
+            this.gameIds = gameIds;
+            this.userIds = userIds;
+            this.userOffsets = userOffsets;
+            this.userItems = userItems;
+            this.userWeights = userWeights;
+            this.neighbors = neighbors;
+            this.similarities = similarities;
+            this.popular = popular;
+        }
+    }
+
+    private static final class Ownership {
+        final long[] userIds;
+        final int[] userOffsets;
+        final int[] userItems;
+        final float[] userWeights;
+
+        Ownership(long[] userIds, int[] userOffsets, int[] userItems, float[] userWeights) {
+            this.userIds = userIds;
+            this.userOffsets = userOffsets;
+            this.userItems = userItems;
+            this.userWeights = userWeights;
+        }
+    }
+
+    /**
+     * 固定容量的前K选择，容量很小，插入排序即可
+     */
+    private static final class TopK {
+        final int[] items;
+        final float[] scores;
+        int size;
+
+        TopK(int capacity) {
+            items = new int[capacity];
+            scores = new float[capacity];
+        }
+
+        void offer(int item, float score) {
+            if (items.length == 0 || (size == items.length && score <= scores[size - 1])) {
+                return;
+            }
+            int pos = size < items.length ? size++ : size - 1;
+            while (pos > 0 && scores[pos - 1] < score) {
+                items[pos] = items[pos - 1];
+                scores[pos] = scores[pos - 1];
+                pos--;
+            }
+            items[pos] = item;
+            scores[pos] = score;
+        }
+
+        int[] items() {
+            return Arrays.copyOf(items, size);
+        }
+
+        float[] scores() {
+            return Arrays.copyOf(scores, size);
+        }
+    }
+
+    private static final class LongBuffer {
+        long[] data = new long[1024];
+        int size;
+
+        void add(long value) {
+            if (size == data.length) {
+                data = Arrays.copyOf(data, size * 2);
+            }
+            data[size++] = value;
+        }
+
+        long get(int index) {
+            return data[index];
+        }
+
+        long[] toArray() {
+            return Arrays.copyOf(data, size);
+        }
+    }
+
+    private static final class IntBuffer {
+        int[] data = new int[1024];
+        int size;
+
+        void add(int value) {
+            if (size == data.length) {
+                data = Arrays.copyOf(data, size * 2);
+            }
+            data[size++] = value;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(data, size);
+        }
+    }
+
+    private static final class FloatBuffer {
+        float[] data = new float[1024];
+        int size;
+
+        void add(float value) {
+            if (size == data.length) {
+                data = Arrays.copyOf(data, size * 2);
+            }
+            data[size++] = value;
+        }
+
+        float[] toArray() {
+            return Arrays.copyOf(data, size);
+        }
+    }
+}
@@ -1,30 +1,44 @@
 package com.gameplatform.service.impl;
 
+import com.gameplatform.config.properties.GameProperties;
 import com.gameplatform.exception.BusinessException;
 import com.gameplatform.model.dto.GameDTO;
 import com.gameplatform.model.dto.GameSearchDTO;
+import com.gameplatform.model.dto.PlayHeartbeatDTO;
 import com.gameplatform.model.entity.Game;
 import com.gameplatform.model.entity.UserGame;
 import com.gameplatform.model.entity.User;
+import com.gameplatform.repository.GamePlayEventRepository;
+import com.gameplatform.repository.GamePlayTimeBucketRepository;
 import com.gameplatform.repository.GameRepository;
-import com.gameplatform.repository.PostRepository;
+import com.gameplatform.repository.GameTrendBucketRepository;
 import com.gameplatform.repository.UserGameRepository;
 import com.gameplatform.repository.UserRepository;
+import com.gameplatform.service.GameCatalogService;
+import com.gameplatform.service.GameHistogramService;
+import com.gameplatform.service.GameRecommendationService;
 import com.gameplatform.service.GameService;
+import com.gameplatform.service.GameTrendService;
+import com.gameplatform.service.PlayTimeService;
 import com.gameplatform.service.CacheService;
+import com.gameplatform.service.SearchIndexService;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeanUtils;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -34,6 +48,7 @@ import java.util.stream.Collectors;
  * @date 2024/12/28 19:13
  * @description TODO
  */
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class GameServiceImpl implements GameService {
@@ -41,7 +56,19 @@ public class GameServiceImpl implements GameService {
     private final UserRepository userRepository;
     private final UserGameRepository userGameRepository;
     private final CacheService cacheService;
-    private final PostRepository postRepository;
+    private final SearchIndexService searchIndexService;
+    private final GameProperties gameProperties;
+    private final GameRecommendationService gameRecommendationService;
+    private final GameCatalogService gameCatalogService;
+    private final PlayTimeService playTimeService;
+    private final GameHistogramService gameHistogramService;
+    private final GamePlayTimeBucketRepository gamePlayTimeBucketRepository;
+    private final GameTrendBucketRepository gameTrendBucketRepository;
+    private final GamePlayEventRepository gamePlayEventRepository;
+    private final GameTrendService gameTrendService;
+    private final TransactionTemplate transactionTemplate;
+
+    private static final int RECOMMEND_LIMIT = 10;
 
     @Override
     @Transactional
@@ -64,6 +91,8 @@ public class GameServiceImpl implements GameService {
         game.setCreatedAt(LocalDateTime.now());
 
         Game savedGame = gameRepository.save(game);
+        searchIndexService.indexGame(savedGame);
+        gameCatalogService.upsert(savedGame);
         return convertToDTO(savedGame);
     }
 
@@ -94,6 +123,8 @@ public class GameServiceImpl implements GameService {
         }
 
         Game updatedGame = gameRepository.save(game);
+        searchIndexService.indexGame(updatedGame);
+        gameCatalogService.upsert(updatedGame);
 
         // 清除缓存
         cacheService.evictCache("game:" + gameId);
@@ -114,9 +145,14 @@ public class GameServiceImpl implements GameService {
 
         // 删除相关的评论和评分
         userGameRepository.deleteByGameId(gameId);
+        gamePlayTimeBucketRepository.deleteByGameId(gameId);
+        gameTrendBucketRepository.deleteByGameId(gameId);
+        gamePlayEventRepository.deleteByGameId(gameId);
 
         // 删除游戏
         gameRepository.delete(game);
+        searchIndexService.removeGame(gameId);
+        gameCatalogService.remove(gameId);
 
         // 清除缓存
         cacheService.evictCache("game:" + gameId);
@@ -126,6 +162,13 @@ public class GameServiceImpl implements GameService {
     @Override
     @Transactional(readOnly = true)
     public Page<GameDTO> getGamesByCategory(String category, Pageable pageable) {
+        GameSearchDTO searchDTO = new GameSearchDTO();
+        searchDTO.setCategories(Collections.singleton(category));
+        Page<GameDTO> cached = gameCatalogService.search(searchDTO, pageable);
+        if (cached != null) {
+            return cached;
+        }
+
         // 获取指定分类的游戏列表
         Page<Game> games = gameRepository.findByCategory(category, pageable);
 
@@ -146,6 +189,22 @@ public class GameServiceImpl implements GameService {
     @Override
     @Transactional(readOnly = true)
     public List<GameDTO> getRecommendedGames(Long userId) {
+        List<Long> recommendedIds = gameRecommendationService.recommend(userId, RECOMMEND_LIMIT);
+        if (recommendedIds != null) {
+            List<GameDTO> cached = gameCatalogService.getByIds(recommendedIds);
+            if (cached != null) {
+                return cached;
+            }
+            Map<Long, Game> games = gameRepository.findAllById(recommendedIds).stream()
+                    .collect(Collectors.toMap(Game::getId, game -> game));
+            return recommendedIds.stream()
+                    .map(games::get)
+                    .filter(Objects::nonNull)
+                    .map(this::convertToDTO)
+                    .collect(Collectors.toList());
+        }
+
+        // 推荐模型尚未构建，按类别偏好从数据库查询
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new BusinessException("用户不存在"));
 
@@ -163,7 +222,7 @@ public class GameServiceImpl implements GameService {
         List<Game> recommendedGames = gameRepository.findRecommendedGames(
                 userGameIds,
                 userCategories,
-                PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "rating"))
+                PageRequest.of(0, RECOMMEND_LIMIT, Sort.by(Sort.Direction.DESC, "rating"))
         );
 
         return recommendedGames.stream()
@@ -190,7 +249,7 @@ public class GameServiceImpl implements GameService {
     @Override
     @Transactional
     public void addGameReview(Long gameId, Long userId, String review) {
-        UserGame userGame = userGameRepository.findByGameIdAndUserId(gameId, userId)
+        UserGame userGame = userGameRepository.findForUpdate(gameId, userId)
                 .orElseThrow(() -> new BusinessException("未拥有该游戏"));
 
         // 检查是否已经有评价
@@ -202,14 +261,17 @@ public class GameServiceImpl implements GameService {
         userGame.setUserReview(review);
 
         // 如果还没有评分，设置一个默认评分
-        if (userGame.getUserRating() == null) {
+        boolean rated = userGame.getUserRating() != null;
+        if (!rated) {
             userGame.setUserRating(5.0); // 默认5分
         }
 
         userGameRepository.save(userGame);
 
         // 更新游戏总评分
-        updateGameRating(gameId);
+        if (!rated) {
+            updateGameRating(gameId, null, userGame.getUserRating());
+        }
 
         // 清除缓存
         cacheService.evictCache("game:review:" + gameId + ":" + userId);
@@ -232,36 +294,40 @@ public class GameServiceImpl implements GameService {
     @Override
     @Transactional
     public void deleteGameReview(Long gameId, Long userId) {
-        UserGame userGame = userGameRepository.findByGameIdAndUserId(gameId, userId)
+        UserGame userGame = userGameRepository.findForUpdate(gameId, userId)
                 .orElseThrow(() -> new BusinessException("未找到游戏评价"));
 
         // 清除评分和评价
+        Double oldRating = userGame.getUserRating();
         userGame.setUserRating(null);
         userGame.setUserReview(null);
         userGameRepository.save(userGame);
 
         // 更新游戏总评分
-        updateGameRating(gameId);
+        updateGameRating(gameId, oldRating, null);
 
         // 清除缓存
         cacheService.evictCache("game:rating:" + gameId);
     }
 
-    private void updateGameRating(Long gameId) {
-        Game game = gameRepository.findById(gameId)
-                .orElseThrow(() -> new BusinessException("游戏不存在"));
-
-        // 计算新的平均评分
-        Double avgRating = getAverageRating(gameId);
-        game.setRating(avgRating);
+    // 用户评分从oldRating变为newRating（null表示未评分），以增量方式更新游戏的评分聚合
+    private void updateGameRating(Long gameId, Double oldRating, Double newRating) {
+        if (Objects.equals(oldRating, newRating)) {
+            return;
+        }
+        double sumDelta = (newRating != null ? newRating : 0.0) - (oldRating != null ? oldRating : 0.0);
+        int countDelta = (newRating != null ? 1 : 0) - (oldRating != null ? 1 : 0);
+        gameRepository.applyRatingDelta(gameId, sumDelta, countDelta, toStar(oldRating), toStar(newRating));
 
-        // 更新评分数量
-        long ratingCount = userGameRepository.findByGameId(gameId).stream()
-                .filter(ug -> ug.getUserRating() != null)
-                .count();
-        game.setRatingCount((int) ratingCount);
+        // 评分参与搜索过滤和排序，同步更新索引和目录
+        gameRepository.findById(gameId).ifPresent(game -> {
+            searchIndexService.indexGame(game);
+            gameCatalogService.upsert(game);
+        });
+    }
 
-        gameRepository.save(game);
+    private int toStar(Double rating) {
+        return rating != null ? rating.intValue() : -1;
     }
 
     @Override
@@ -269,25 +335,23 @@ public class GameServiceImpl implements GameService {
     public Double getAverageRating(Long gameId) {
         Game game = gameRepository.findById(gameId)
                 .orElseThrow(() -> new BusinessException("游戏不存在"));
-
-        List<UserGame> userGames = userGameRepository.findByGameId(gameId);
-
-        return userGames.stream()
-                .filter(ug -> ug.getUserRating() != null)
-                .mapToDouble(UserGame::getUserRating)
-                .average()
-                .orElse(0.0);
+        return game.getRating();
     }
 
     @Override
     @Transactional
     public void updateGameProgress(Long gameId, Long userId, Integer progress) {
-        UserGame userGame = userGameRepository.findByGameIdAndUserId(gameId, userId)
+        UserGame userGame = userGameRepository.findForUpdate(gameId, userId)
                 .orElseThrow(() -> new BusinessException("未拥有该游戏"));
-
-        userGame.setPlayTime(progress);
-        userGame.setLastPlayedAt(LocalDateTime.now());
-        userGameRepository.save(userGame);
+        gameHistogramService.onPlayTimeChanged(gameId, userGame.getPlayTime(), progress);
+        LocalDateTime now = LocalDateTime.now();
+        userGameRepository.updateProgress(gameId, userId, progress, now);
+        // 只有时长增加才算作一次游玩
+        int added = progress - (userGame.getPlayTime() != null ? userGame.getPlayTime() : 0);
+        if (added > 0) {
+            gameTrendService.recordPlayEvents(Collections.singletonList(new long[]{
+                    userId, gameId, added, Timestamp.valueOf(now).getTime()}));
+        }
     }
 
     @Override
@@ -323,29 +387,12 @@ public class GameServiceImpl implements GameService {
 
     @Override
     public Map<Integer, Long> getRatingDistribution(Long gameId) {
-        List<UserGame> userGames = userGameRepository.findByGameId(gameId);
-        return userGames.stream()
-                .filter(ug -> ug.getUserRating() != null)
-                .collect(Collectors.groupingBy(
-                        ug -> ug.getUserRating().intValue(),
-                        Collectors.counting()
-                ));
+        return gameHistogramService.getRatingDistribution(gameId);
     }
 
+    @Override
     public Map<String, Long> getPlayTimeDistribution(Long gameId) {
-        List<UserGame> userGames = userGameRepository.findByGameId(gameId);
-        Map<String, Long> distribution = new HashMap<>();
-
-        distribution.put("0-1h", userGames.stream()
-                .filter(ug -> ug.getPlayTime() <= 60).count());
-        distribution.put("1-5h", userGames.stream()
-                .filter(ug -> ug.getPlayTime() > 60 && ug.getPlayTime() <= 300).count());
-        distribution.put("5-10h", userGames.stream()
-                .filter(ug -> ug.getPlayTime() > 300 && ug.getPlayTime() <= 600).count());
-        distribution.put(">10h", userGames.stream()
-                .filter(ug -> ug.getPlayTime() > 600).count());
-
-        return distribution;
+        return gameHistogramService.getPlayTimeDistribution(gameId);
     }
 
     @Override
@@ -414,12 +461,11 @@ public class GameServiceImpl implements GameService {
     @Override
     @Transactional
     public void updatePlayTime(Long gameId, Long userId, Integer minutes) {
-        UserGame userGame = userGameRepository.findByGameIdAndUserId(gameId, userId)
-                .orElseThrow(() -> new BusinessException("未拥有该游戏"));
-
-        userGame.setPlayTime(userGame.getPlayTime() + minutes);
-        userGame.setLastPlayedAt(LocalDateTime.now());
-        userGameRepository.save(userGame);
+        // 与心跳上报走同一条合并写入管道
+        PlayHeartbeatDTO heartbeat = new PlayHeartbeatDTO();
+        heartbeat.setGameId(gameId);
+        heartbeat.setMinutes(minutes);
+        playTimeService.recordHeartbeats(userId, Collections.singletonList(heartbeat));
     }
 
     @Override
@@ -451,39 +497,7 @@ public class GameServiceImpl implements GameService {
     @Override
     @Transactional(readOnly = true)
     public List<Map<String, Object>> getGameTrends(Long gameId, String timeRange) {
-        LocalDateTime now = LocalDateTime.now();
-        LocalDateTime start;
-
-        // 根据时间范围确定起始时间
-        switch (timeRange.toLowerCase()) {
-            case "week":
-                start = now.minusWeeks(1);
-                break;
-            case "month":
-                start = now.minusMonths(1);
-                break;
-            case "year":
-                start = now.minusYears(1);
-                break;
-            default:
-                throw new BusinessException("不支持的时间范围");
-        }
-
-        List<Map<String, Object>> trends = new ArrayList<>();
-        List<UserGame> userGames = userGameRepository.findByGameId(gameId);
-
-        // 处理统计数据
-        userGames.stream()
-                .filter(ug -> ug.getLastPlayedAt().isAfter(start))
-                .forEach(ug -> {
-                    Map<String, Object> trend = new HashMap<>();
-                    trend.put("date", ug.getLastPlayedAt());
-                    trend.put("playTime", ug.getPlayTime());
-                    trend.put("userCount", 1);
-                    trends.add(trend);
-                });
-
-        return trends;
+        return gameTrendService.getTrends(gameId, timeRange);
     }
 
     @Override
@@ -497,18 +511,69 @@ public class GameServiceImpl implements GameService {
     @Override
     @Transactional(readOnly = true)
     public Page<GameDTO> searchGames(GameSearchDTO searchDTO, Pageable pageable) {
+        // 只有带关键词且按相关度排序的查询走全文索引，其余浏览、排序请求由内存目录处理
+        boolean relevance = SearchIndexService.isRelevanceOrder(pageable);
+        boolean keyword = searchDTO.getTitle() != null && !searchDTO.getTitle().trim().isEmpty();
+        Page<Long> gameIds = null;
+        if (relevance && keyword) {
+            try {
+                gameIds = searchIndexService.searchGames(searchDTO, pageable);
+            } catch (Exception e) {
+                log.error("全文检索失败，回退到数据库查询: {}", e.getMessage());
+            }
+        }
+        if (gameIds != null) {
+            List<GameDTO> cached = gameCatalogService.getByIds(gameIds.getContent());
+            if (cached != null) {
+                return new PageImpl<>(cached, pageable, gameIds.getTotalElements());
+            }
+            // 按检索排名顺序组装当前页
+            Map<Long, Game> games = gameRepository.findAllById(gameIds.getContent()).stream()
+                    .collect(Collectors.toMap(Game::getId, game -> game));
+            List<GameDTO> content = gameIds.getContent().stream()
+                    .map(games::get)
+                    .filter(Objects::nonNull)
+                    .map(this::convertToDTO)
+                    .collect(Collectors.toList());
+            return new PageImpl<>(content, pageable, gameIds.getTotalElements());
+        }
+
+        Pageable sorted = SearchIndexService.withoutRelevance(pageable);
+        // 目录已加载时筛选、排序、分页都在内存中完成
+        Page<GameDTO> cached = gameCatalogService.search(searchDTO, sorted);
+        if (cached != null) {
+            return cached;
+        }
+
         return gameRepository.findBySearchCriteria(
                 searchDTO.getTitle(),
                 searchDTO.getCategories(),
                 searchDTO.getMinRating(),
-                pageable
+                sorted
         ).map(this::convertToDTO);
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<String> getAllCategories() {
-        return gameRepository.findAllCategories();
+        List<String> cached = gameCatalogService.getCategories();
+        return cached != null ? cached : gameRepository.findAllCategories();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Map<String, Long> getCategoryFacets(GameSearchDTO searchDTO) {
+        Map<String, Long> cached = gameCatalogService.countByCategory(searchDTO);
+        if (cached != null) {
+            return cached;
+        }
+        String title = searchDTO.getTitle() != null && !searchDTO.getTitle().trim().isEmpty()
+                ? searchDTO.getTitle().trim() : null;
+        Map<String, Long> counts = new TreeMap<>();
+        for (Object[] row : gameRepository.countByCategory(title, searchDTO.getMinRating())) {
+            counts.put((String) row[0], (Long) row[1]);
+        }
+        return counts;
     }
 
     @Override
@@ -518,65 +583,24 @@ public class GameServiceImpl implements GameService {
             throw new BusinessException("评分必须在0-5之间");
         }
 
-        Game game = gameRepository.findById(gameId)
-                .orElseThrow(() -> new BusinessException("游戏不存在"));
+        if (!gameRepository.existsById(gameId)) {
+            throw new BusinessException("游戏不存在");
+        }
 
-        UserGame userGame = userGameRepository.findByGameIdAndUserId(gameId, userId)
+        UserGame userGame = userGameRepository.findForUpdate(gameId, userId)
                 .orElseThrow(() -> new BusinessException("您还没有这款游戏"));
 
+        Double oldRating = userGame.getUserRating();
         userGame.setUserRating(rating);
         userGameRepository.save(userGame);
 
         // 更新游戏总评分
-        updateGameRating(game);
+        updateGameRating(gameId, oldRating, rating);
 
         // 清除缓存
         cacheService.evictCache("game:" + gameId);
     }
 
-    @Override
-    @Scheduled(cron = "0 0 */1 * * ?") // 每小时执行一次
-    @Transactional
-    public void updatePopularGames() {
-        List<Game> games = gameRepository.findAll();
-        for (Game game : games) {
-            // 更新游戏人气值
-            long userCount = userGameRepository.countByGameId(game.getId());
-            long postCount = postRepository.countByGameId(game.getId());
-            double avgRating = game.getRating();
-
-            // 计算综合人气值：用户数 * (1 + 平均评分/5) * (1 + 帖子数/100)
-            int popularity = (int) (userCount * (1 + avgRating/5) * (1 + postCount/100.0));
-
-            game.setPopularity(popularity);
-        }
-        gameRepository.saveAll(games);
-    }
-
-    @Override
-    @Transactional(readOnly = true)
-    public byte[] exportUserGames(Long userId) {
-        List<UserGame> userGames = userGameRepository.findByUserId(userId);
-        if (userGames.isEmpty()) {
-            throw new BusinessException("没有找到游戏记录");
-        }
-
-        StringBuilder csv = new StringBuilder();
-        csv.append("游戏名称,购买时间,游戏时长(小时),最后游玩时间,评分\n");
-
-        for (UserGame ug : userGames) {
-            csv.append(String.format("%s,%s,%d,%s,%.1f\n",
-                    ug.getGame().getTitle(),
-                    formatDateTime(ug.getPurchasedAt()),
-                    ug.getPlayTime() / 60, // 转换为小时
-                    formatDateTime(ug.getLastPlayedAt()),
-                    ug.getUserRating() != null ? ug.getUserRating() : 0.0
-            ));
-        }
-
-        return csv.toString().getBytes(StandardCharsets.UTF_8);
-    }
-
     @Override
     @Transactional(readOnly = true)
     public Page<GameDTO> getUserGames(Long userId, Pageable pageable) {
@@ -584,27 +608,6 @@ public class GameServiceImpl implements GameService {
                 .map(userGame -> convertToDTO(userGame.getGame()));
     }
 
-    private String formatDateTime(LocalDateTime dateTime) {
-        if (dateTime == null) return "";
-        return dateTime.format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
-    }
-
-    private void updateGameRating(Game game) {
-        List<UserGame> userGames = userGameRepository.findByGameId(game.getId());
-        double avgRating = userGames.stream()
-                .filter(ug -> ug.getUserRating() != null)
-                .mapToDouble(UserGame::getUserRating)
-                .average()
-                .orElse(0.0);
-
-        game.setRating(avgRating);
-        game.setRatingCount((int) userGames.stream()
-                .filter(ug -> ug.getUserRating() != null)
-                .count());
-
-        gameRepository.save(game);
-    }
-
     private GameDTO convertToDTO(Game game) {
         GameDTO dto = new GameDTO();
         BeanUtils.copyProperties(game, dto);
@@ -631,13 +634,70 @@ public class GameServiceImpl implements GameService {
         userGame.setPlayTime(0);
         userGame.setLastPlayedAt(LocalDateTime.now());
         userGameRepository.save(userGame);
+        gameHistogramService.onPlayTimeChanged(gameId, null, 0);
     }
 
     @Override
     @Transactional
     public void removeGameFromUser(Long gameId, Long userId) {
-        UserGame userGame = userGameRepository.findByGameIdAndUserId(gameId, userId)
+        UserGame userGame = userGameRepository.findForUpdate(gameId, userId)
                 .orElseThrow(() -> new BusinessException("未拥有该游戏"));
+        Double oldRating = userGame.getUserRating();
+        gameHistogramService.onPlayTimeChanged(gameId, userGame.getPlayTime(), null);
         userGameRepository.delete(userGame);
+        updateGameRating(gameId, oldRating, null);
+    }
+
+    @Override
+    @Scheduled(cron = "${game.rating.reconcile-cron:0 45 4 * * ?}")
+    public void reconcileRatings() {
+        Long maxId = gameRepository.findMaxId();
+        if (maxId == null) {
+            return;
+        }
+        long batchSize = gameProperties.getRating().getBatchSize();
+        int total = 0;
+        // 每个区间单独提交，避免长事务锁住大量行
+        for (long from = 1; from <= maxId; from += batchSize) {
+            long fromId = from;
+            long toId = from + batchSize - 1;
+            try {
+                Integer updated = transactionTemplate.execute(status -> gameRepository.reconcileRatings(fromId, toId));
+                total += updated != null ? updated : 0;
+            } catch (Exception e) {
+                log.error("游戏评分校准失败: from={}, to={}, {}", fromId, toId, e.getMessage());
+            }
+        }
+        log.info("游戏评分校准完成，修正 {} 个游戏", total);
+        if (total > 0) {
+            gameCatalogService.reload();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        // 存量游戏只有平均分，启动时只为尚未回填的游戏补齐评分总和与星级分布，
+        // 全量校准交给每日定时任务
+        try {
+            List<Long> gameIds = gameRepository.findIdsWithoutRatingAggregates();
+            if (gameIds.isEmpty()) {
+                return;
+            }
+            int batchSize = gameProperties.getRating().getBatchSize();
+            int total = 0;
+            for (int from = 0; from < gameIds.size(); from += batchSize) {
+                List<Long> chunk = gameIds.subList(from, Math.min(from + batchSize, gameIds.size()));
+                Long fromId = chunk.get(0);
+                Long toId = chunk.get(chunk.size() - 1);
+                Integer updated = transactionTemplate.execute(status -> gameRepository.reconcileRatings(fromId, toId));
+                total += updated != null ? updated : 0;
+            }
+            log.info("游戏评分聚合回填完成，共 {} 个游戏", total);
+            if (total > 0) {
+                gameCatalogService.reload();
+            }
+        } catch (Exception e) {
+            log.error("游戏评分聚合回填失败: {}", e.getMessage());
+        }
     }
 }
\ No newline at end of file
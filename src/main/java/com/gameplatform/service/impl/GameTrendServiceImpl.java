@@ -0,0 +1,243 @@
+package com.gameplatform.service.impl;
+
+import com.gameplatform.config.properties.GameProperties;
+import com.gameplatform.exception.BusinessException;
+import com.gameplatform.model.entity.GameTrendBucket;
+import com.gameplatform.model.entity.GameTrendBucket.Granularity;
+import com.gameplatform.repository.GamePlayEventRepository;
+import com.gameplatform.repository.GameTrendBatchRepository;
+import com.gameplatform.repository.GameTrendBucketRepository;
+import com.gameplatform.service.GameTrendService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.IntSupplier;
+
+/**
+ * @author SakurazawaRyoko
+ * @version 1.0
+ * @date 2025/01/13 09:30
+ * @description TODO
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class GameTrendServiceImpl implements GameTrendService {
+
+    private final GamePlayEventRepository gamePlayEventRepository;
+    private final GameTrendBucketRepository gameTrendBucketRepository;
+    private final GameTrendBatchRepository gameTrendBatchRepository;
+    private final GameProperties gameProperties;
+    private final TransactionTemplate transactionTemplate;
+    private final RedisTemplate<String, String> redisTemplate;
+
+    private static final String ROLLUP_LOCK = "game:trend:rollup:lock";
+    // 汇总水位：current为上次汇总时的最大事件ID，previous为再上一次的
+    private static final String ROLLUP_WATERMARK = "game:trend:rollup:watermark";
+    private static final String WATERMARK_PREVIOUS = "previous";
+    private static final String WATERMARK_CURRENT = "current";
+
+    // 仍持有锁时才推进水位，锁过期后被其他节点接手时旧的汇总不会覆盖新水位
+    private static final DefaultRedisScript<Long> SAVE_WATERMARK_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) ~= ARGV[1] then return 0 end " +
+            "redis.call('HSET', KEYS[2], 'previous', ARGV[2], 'current', ARGV[3]) " +
+            "return 1", Long.class);
+
+    private static final DefaultRedisScript<Long> UNLOCK_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('DEL', KEYS[1]) end " +
+            "return 0", Long.class);
+
+    @Override
+    public void recordPlayEvents(List<long[]> rows) {
+        if (!rows.isEmpty()) {
+            gameTrendBatchRepository.insertPlayEvents(rows, gameProperties.getPlayTime().getBatchSize());
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> getTrends(Long gameId, String timeRange) {
+        TrendRange range = TrendRange.of(timeRange);
+        Granularity granularity = range.granularity;
+        LocalDateTime end = granularity.truncate(LocalDateTime.now());
+        LocalDateTime start = granularity.plus(end, 1 - range.points);
+
+        // 每个区间最多一行，读取量与数据规模无关
+        Map<LocalDateTime, GameTrendBucket> buckets = new HashMap<>();
+        for (GameTrendBucket bucket : gameTrendBucketRepository.findSeries(gameId, granularity, start)) {
+            buckets.put(bucket.getBucketStart(), bucket);
+        }
+
+        List<Map<String, Object>> trends = new ArrayList<>(range.points);
+        for (int i = 0; i < range.points; i++) {
+            LocalDateTime point = granularity.plus(start, i);
+            GameTrendBucket bucket = buckets.get(point);
+            Map<String, Object> trend = new LinkedHashMap<>();
+            trend.put("date", point);
+            trend.put("playTime", bucket != null ? bucket.getPlayTime() : 0L);
+            trend.put("userCount", bucket != null ? bucket.getPlayerCount() : 0L);
+            trends.add(trend);
+        }
+        return trends;
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${game.trend.rollup-interval:300000}")
+    public void rollup() {
+        GameProperties.Trend config = gameProperties.getTrend();
+        String token = UUID.randomUUID().toString();
+        try {
+            // 多个节点只允许一个执行汇总
+            Boolean locked = redisTemplate.opsForValue()
+                    .setIfAbsent(ROLLUP_LOCK, token, Duration.ofMillis(config.getRollupInterval()));
+            if (!Boolean.TRUE.equals(locked)) {
+                return;
+            }
+        } catch (Exception e) {
+            log.error("获取游戏趋势汇总锁失败: {}", e.getMessage());
+            return;
+        }
+
+        try {
+            Long maxId = gamePlayEventRepository.findMaxId();
+            if (maxId == null) {
+                return;
+            }
+            // 从再上一次的水位开始，覆盖上次汇总时尚未提交、ID却更小的事件；
+            // 水位丢失时按保留的全部日志重算一次
+            List<Object> marks = redisTemplate.opsForHash()
+                    .multiGet(ROLLUP_WATERMARK, Arrays.asList(WATERMARK_PREVIOUS, WATERMARK_CURRENT));
+            long from = marks.get(0) != null ? Long.parseLong((String) marks.get(0)) : 0L;
+            long current = marks.get(1) != null ? Long.parseLong((String) marks.get(1)) : 0L;
+
+            int rows = 0;
+            int games = 0;
+            if (maxId > from) {
+                // 只重算有新事件的游戏，区间从这些事件中最早的游玩时间开始
+                List<Long> gameIds = gamePlayEventRepository.findGameIdsBetween(from, maxId);
+                LocalDateTime since = gamePlayEventRepository.findEarliestPlayedAt(from, maxId);
+                if (since != null) {
+                    LocalDateTime now = LocalDateTime.now();
+                    int batchSize = config.getRollupBatchSize();
+                    for (int i = 0; i < gameIds.size(); i += batchSize) {
+                        List<Long> batch = gameIds.subList(i, Math.min(i + batchSize, gameIds.size()));
+                        rows += rollup(Granularity.HOUR, since, now, batch) + rollup(Granularity.DAY, since, now, batch);
+                    }
+                    games = gameIds.size();
+                }
+            }
+
+            Long saved = redisTemplate.execute(SAVE_WATERMARK_SCRIPT, Arrays.asList(ROLLUP_LOCK, ROLLUP_WATERMARK),
+                    token, String.valueOf(Math.min(current, maxId)), String.valueOf(maxId));
+            if (saved == null || saved == 0) {
+                log.warn("游戏趋势汇总锁已过期，本次水位未保存");
+            }
+            log.debug("游戏趋势汇总完成，重算游戏 {} 个，影响行数 {}", games, rows);
+        } catch (Exception e) {
+            // 水位不推进，下一轮重新汇总
+            log.error("游戏趋势汇总失败: {}", e.getMessage());
+        } finally {
+            try {
+                redisTemplate.execute(UNLOCK_SCRIPT, Collections.singletonList(ROLLUP_LOCK), token);
+            } catch (Exception e) {
+                log.warn("释放游戏趋势汇总锁失败: {}", e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    @Scheduled(cron = "${game.trend.compact-cron:0 20 3 * * ?}")
+    public void compact() {
+        GameProperties.Trend config = gameProperties.getTrend();
+        LocalDateTime now = LocalDateTime.now();
+
+        // 周区间跨度大，每天汇总一次，包含刚结束的上一周
+        int weeks = 0;
+        try {
+            weeks = rollup(Granularity.WEEK, now.minusWeeks(1), now, Collections.emptyList());
+        } catch (Exception e) {
+            log.error("游戏周趋势汇总失败: {}", e.getMessage());
+        }
+
+        // 粗粒度区间已由日志汇总完成，超出查询范围的细粒度区间和日志可以删除
+        int hours = purge(() -> gameTrendBucketRepository.deleteOlderThan(
+                Granularity.HOUR.name(), now.minusDays(config.getHourRetentionDays()), config.getPurgeBatchSize()));
+        int days = purge(() -> gameTrendBucketRepository.deleteOlderThan(
+                Granularity.DAY.name(), now.minusDays(config.getDayRetentionDays()), config.getPurgeBatchSize()));
+        int oldWeeks = purge(() -> gameTrendBucketRepository.deleteOlderThan(
+                Granularity.WEEK.name(), now.minusDays(config.getWeekRetentionDays()), config.getPurgeBatchSize()));
+        int events = purge(() -> gamePlayEventRepository.deleteOlderThan(
+                now.minusDays(config.getEventRetentionDays()), config.getPurgeBatchSize()));
+        log.info("游戏趋势整理完成，汇总周区间 {} 个，清理小时 {} 个、日 {} 个、周 {} 个区间，事件 {} 条",
+                weeks, hours, days, oldWeeks, events);
+    }
+
+    // 私有辅助方法
+
+    // 从since所在区间开始用日志重算，早于日志保留期的区间数据不完整，不能覆盖；gameIds为空时重算全部游戏
+    private int rollup(Granularity granularity, LocalDateTime since, LocalDateTime now, List<Long> gameIds) {
+        LocalDateTime retained = now.minusDays(gameProperties.getTrend().getEventRetentionDays());
+        LocalDateTime oldest = granularity.truncate(retained);
+        if (oldest.isBefore(retained)) {
+            oldest = granularity.plus(oldest, 1);
+        }
+        LocalDateTime from = granularity.truncate(since);
+        if (from.isBefore(oldest)) {
+            from = oldest;
+        }
+
+        LocalDateTime fromTime = from;
+        Integer rows = transactionTemplate.execute(status -> gameTrendBatchRepository.rollup(granularity, fromTime, gameIds));
+        return rows != null ? rows : 0;
+    }
+
+    // 分批删除，每批单独提交，避免长事务锁住大量行
+    private int purge(IntSupplier deleter) {
+        int batchSize = gameProperties.getTrend().getPurgeBatchSize();
+        int total = 0;
+        try {
+            while (true) {
+                Integer deleted = transactionTemplate.execute(status -> deleter.getAsInt());
+                int count = deleted != null ? deleted : 0;
+                total += count;
+                if (count < batchSize) {
+                    break;
+                }
+            }
+        } catch (Exception e) {
+            log.error("游戏趋势数据清理失败: {}", e.getMessage());
+        }
+        return total;
+    }
+
+    private enum TrendRange {
+        WEEK(Granularity.HOUR, 7 * 24),
+        MONTH(Granularity.DAY, 30),
+        YEAR(Granularity.WEEK, 52);
+
+        private final Granularity granularity;
+        private final int points;
+
+        TrendRange(Granularity granularity, int points) {
+            this.granularity = granularity;
+            this.points = points;
+        }
+
+        static TrendRange of(String timeRange) {
+            try {
+                return valueOf(timeRange.toUpperCase());
+            } catch (Exception e) {
+                throw new BusinessException("不支持的时间范围");
+            }
+        }
+    }
+}
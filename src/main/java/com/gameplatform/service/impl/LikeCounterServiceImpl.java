@@ -0,0 +1,264 @@
+package com.gameplatform.service.impl;
+
+import com.gameplatform.config.properties.PostProperties;
+import com.gameplatform.repository.CommentLikeRepository;
+import com.gameplatform.repository.CommentRepository;
+import com.gameplatform.repository.PostLikeRepository;
+import com.gameplatform.repository.PostRepository;
+import com.gameplatform.service.LikeCounterService;
+import com.gameplatform.util.CounterBuffer;
+import com.gameplatform.util.TransactionUtils;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+
+/**
+ * @author SakurazawaRyoko
+ * @version 1.0
+ * @date 2025/01/10 16:24
+ * @description TODO
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class LikeCounterServiceImpl implements LikeCounterService {
+
+    private final PostRepository postRepository;
+    private final CommentRepository commentRepository;
+    private final PostLikeRepository postLikeRepository;
+    private final CommentLikeRepository commentLikeRepository;
+    private final RedisTemplate<String, String> redisTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final PostProperties postProperties;
+
+    private static final String POST_LIKERS_PREFIX = "post:likers:";
+    private static final String COMMENT_LIKERS_PREFIX = "comment:likers:";
+    // 有变动待校准的ID，分数为最近一次变动时间，所有节点共用
+    private static final String POST_TOUCHED_KEY = "post:likes:touched";
+    private static final String COMMENT_TOUCHED_KEY = "comment:likes:touched";
+    // 占位成员，保证没有点赞的帖子也能留下已加载的集合
+    private static final String LOADED_MARKER = "-";
+    private static final int RECONCILE_BATCH_SIZE = 500;
+
+    private final CounterBuffer pendingPostLikes = new CounterBuffer();
+    private final CounterBuffer pendingCommentLikes = new CounterBuffer();
+
+    // 只移除校准开始后没有再变动的ID，期间有新点赞的留到下一轮
+    private static final DefaultRedisScript<Long> REMOVE_UNCHANGED_SCRIPT = new DefaultRedisScript<>(
+            "local removed = 0 " +
+            "for i = 2, #ARGV do " +
+            "  local score = redis.call('ZSCORE', KEYS[1], ARGV[i]) " +
+            "  if score and tonumber(score) <= tonumber(ARGV[1]) then " +
+            "    removed = removed + redis.call('ZREM', KEYS[1], ARGV[i]) " +
+            "  end " +
+            "end " +
+            "return removed", Long.class);
+
+    @Override
+    public boolean hasLikedPost(Long postId, Long userId) {
+        try {
+            String key = loadLikers(POST_LIKERS_PREFIX, postId, postLikeRepository::findUserIdsByPostId);
+            return Boolean.TRUE.equals(redisTemplate.opsForSet().isMember(key, userId.toString()));
+        } catch (Exception e) {
+            log.error("读取帖子点赞集合失败，回退到数据库: {}", e.getMessage());
+            return postLikeRepository.existsByPostIdAndUserId(postId, userId);
+        }
+    }
+
+    @Override
+    public boolean tryLikePost(Long postId, Long userId) {
+        return tryToggle(POST_LIKERS_PREFIX, postId, userId, true,
+                postLikeRepository::findUserIdsByPostId,
+                () -> postLikeRepository.existsByPostIdAndUserId(postId, userId),
+                pendingPostLikes, POST_TOUCHED_KEY);
+    }
+
+    @Override
+    public boolean tryUnlikePost(Long postId, Long userId) {
+        return tryToggle(POST_LIKERS_PREFIX, postId, userId, false,
+                postLikeRepository::findUserIdsByPostId,
+                () -> postLikeRepository.existsByPostIdAndUserId(postId, userId),
+                pendingPostLikes, POST_TOUCHED_KEY);
+    }
+
+    @Override
+    public long getPendingPostLikes(Long postId) {
+        return pendingPostLikes.get(postId);
+    }
+
+    @Override
+    public boolean tryLikeComment(Long commentId, Long userId) {
+        return tryToggle(COMMENT_LIKERS_PREFIX, commentId, userId, true,
+                commentLikeRepository::findUserIdsByCommentId,
+                () -> commentLikeRepository.existsByCommentIdAndUserId(commentId, userId),
+                pendingCommentLikes, COMMENT_TOUCHED_KEY);
+    }
+
+    @Override
+    public boolean tryUnlikeComment(Long commentId, Long userId) {
+        return tryToggle(COMMENT_LIKERS_PREFIX, commentId, userId, false,
+                commentLikeRepository::findUserIdsByCommentId,
+                () -> commentLikeRepository.existsByCommentIdAndUserId(commentId, userId),
+                pendingCommentLikes, COMMENT_TOUCHED_KEY);
+    }
+
+    @Override
+    public long getPendingCommentLikes(Long commentId) {
+        return pendingCommentLikes.get(commentId);
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${post.like.flush-interval:5000}")
+    public synchronized void flushPendingLikes() {
+        flush(pendingPostLikes, postRepository::addLikeCount, "帖子");
+        flush(pendingCommentLikes, commentRepository::addLikeCount, "评论");
+    }
+
+    @Override
+    @Scheduled(cron = "${post.like.reconcile-cron:0 */10 * * * ?}")
+    public synchronized void reconcileLikeCounts() {
+        // 与刷盘互斥，本节点的增量先写入
+        flushPendingLikes();
+        // 用点赞表的真实数量覆盖计数前，必须确认没有任何节点还持有该ID未刷盘的增量，
+        // 否则这些增量已包含在真实数量中，之后刷盘会重复累加。
+        // 只校准在静默期内没有变动的ID，各节点的缓冲在静默期内必然已经刷盘。
+        long cutoff = System.currentTimeMillis() - postProperties.getLike().getReconcileQuietPeriod();
+        int posts = reconcile(POST_TOUCHED_KEY, cutoff, pendingPostLikes, postRepository::reconcileLikeCounts);
+        int comments = reconcile(COMMENT_TOUCHED_KEY, cutoff, pendingCommentLikes, commentRepository::reconcileLikeCounts);
+        log.info("点赞计数校准完成，帖子 {} 个，评论 {} 个", posts, comments);
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        log.info("应用关闭，刷写剩余点赞数");
+        flushPendingLikes();
+    }
+
+    // 私有辅助方法
+    private boolean tryToggle(String prefix, Long targetId, Long userId, boolean like,
+                              Function<Long, List<Long>> loader,
+                              BooleanSupplier fallback,
+                              CounterBuffer pending, String touchedKey) {
+        boolean changed;
+        String key = prefix + targetId;
+        try {
+            loadLikers(prefix, targetId, loader);
+            // SADD/SREM 是原子操作，同一用户的并发点击只有一次能成功
+            Long affected = like
+                    ? redisTemplate.opsForSet().add(key, userId.toString())
+                    : redisTemplate.opsForSet().remove(key, userId.toString());
+            changed = affected != null && affected > 0;
+        } catch (Exception e) {
+            log.error("更新点赞集合失败，回退到数据库: {}", e.getMessage());
+            changed = like != fallback.getAsBoolean();
+        }
+
+        if (changed) {
+            long delta = like ? 1 : -1;
+            // 提交前后都记录变动时间，进行中的事务也会推迟该ID的校准
+            markTouched(touchedKey, targetId);
+            TransactionUtils.afterCommit(() -> {
+                pending.add(targetId, delta);
+                markTouched(touchedKey, targetId);
+            });
+            // 事务回滚时丢弃集合，下次访问从数据库重新加载
+            TransactionUtils.afterRollback(() -> evictQuietly(key));
+        }
+        return changed;
+    }
+
+    private String loadLikers(String prefix, Long targetId, Function<Long, List<Long>> loader) {
+        String key = prefix + targetId;
+        if (!Boolean.TRUE.equals(redisTemplate.hasKey(key))) {
+            List<Long> userIds = loader.apply(targetId);
+            String[] members = new String[userIds.size() + 1];
+            members[0] = LOADED_MARKER;
+            for (int i = 0; i < userIds.size(); i++) {
+                members[i + 1] = userIds.get(i).toString();
+            }
+            redisTemplate.opsForSet().add(key, members);
+        }
+        redisTemplate.expire(key, postProperties.getLike().getMembershipTtl(), TimeUnit.MINUTES);
+        return key;
+    }
+
+    private void evictQuietly(String key) {
+        try {
+            redisTemplate.delete(key);
+        } catch (Exception e) {
+            log.error("清除点赞集合失败: {} - {}", key, e.getMessage());
+        }
+    }
+
+    private void flush(CounterBuffer buffer, BiFunction<Long, Long, Integer> updater,
+                       String name) {
+        Map<Long, Long> drained = buffer.drain();
+        if (drained.isEmpty()) {
+            return;
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> drained.forEach(updater::apply));
+            log.debug("{}点赞数刷盘完成，共 {} 条", name, drained.size());
+        } catch (Exception e) {
+            buffer.restore(drained);
+            log.error("{}点赞数刷盘失败: {}", name, e.getMessage());
+        }
+    }
+
+    private void markTouched(String touchedKey, Long targetId) {
+        try {
+            redisTemplate.opsForZSet().add(touchedKey, targetId.toString(), System.currentTimeMillis());
+        } catch (Exception e) {
+            log.error("记录点赞变动失败: {} - {}", touchedKey, e.getMessage());
+        }
+    }
+
+    private int reconcile(String touchedKey, long cutoff, CounterBuffer pending,
+                          Function<List<Long>, Integer> reconciler) {
+        int total = 0;
+        try {
+            while (true) {
+                Set<String> members = redisTemplate.opsForZSet()
+                        .rangeByScore(touchedKey, Double.NEGATIVE_INFINITY, cutoff, 0, RECONCILE_BATCH_SIZE);
+                if (members == null || members.isEmpty()) {
+                    break;
+                }
+                List<Long> ids = new ArrayList<>();
+                for (String member : members) {
+                    Long id = Long.valueOf(member);
+                    if (pending.get(id) != 0) {
+                        // 本节点刷盘失败留下的增量，推迟到下一轮
+                        markTouched(touchedKey, id);
+                    } else {
+                        ids.add(id);
+                    }
+                }
+                if (!ids.isEmpty()) {
+                    Integer updated = transactionTemplate.execute(status -> reconciler.apply(ids));
+                    total += updated != null ? updated : 0;
+                }
+
+                List<String> args = new ArrayList<>(ids.size() + 1);
+                args.add(String.valueOf(cutoff));
+                ids.forEach(id -> args.add(id.toString()));
+                redisTemplate.execute(REMOVE_UNCHANGED_SCRIPT, Collections.singletonList(touchedKey), args.toArray());
+            }
+        } catch (Exception e) {
+            // 未移除的ID保留在集合中，下次继续校准
+            log.error("点赞计数校准失败: {}", e.getMessage());
+        }
+        return total;
+    }
+}
@@ -0,0 +1,339 @@
+package com.gameplatform.service.impl;
+
+import com.gameplatform.config.properties.NotificationProperties;
+import com.gameplatform.model.dto.NotificationDTO;
+import com.gameplatform.model.entity.NotificationBroadcastJob;
+import com.gameplatform.model.entity.User;
+import com.gameplatform.repository.NotificationBatchRepository;
+import com.gameplatform.repository.NotificationBroadcastJobRepository;
+import com.gameplatform.repository.UserRepository;
+import com.gameplatform.service.DeferredDeliveryService;
+import com.gameplatform.service.NotificationBroadcastService;
+import com.gameplatform.service.UnreadCounterService;
+import com.gameplatform.service.WebSocketService;
+import com.gameplatform.service.message.NotificationMessageSender;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
+
+/**
+ * @author SakurazawaRyoko
+ * @version 1.0
+ * @date 2025/01/13 10:40
+ * @description TODO
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class NotificationBroadcastServiceImpl implements NotificationBroadcastService {
+
+    private final NotificationBatchRepository notificationBatchRepository;
+    private final NotificationBroadcastJobRepository jobRepository;
+    private final UserRepository userRepository;
+    private final WebSocketService webSocketService;
+    private final NotificationMessageSender notificationMessageSender;
+    private final NotificationProperties notificationProperties;
+    private final TransactionTemplate transactionTemplate;
+    private final ThreadPoolTaskExecutor notificationWebSocketExecutor;
+    private final ThreadPoolTaskExecutor notificationJmsExecutor;
+    private final MeterRegistry meterRegistry;
+    private final UnreadCounterService unreadCounterService;
+    private final DeferredDeliveryService deferredDeliveryService;
+
+    // 本实例正在执行的广播任务及其租约标记
+    private final Map<Long, Integer> running = new ConcurrentHashMap<>();
+
+    @Override
+    public long broadcast(NotificationDTO notification, List<Long> userIds) {
+        List<Long> sorted = userIds.stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                .sorted()
+                .collect(Collectors.toList());
+        RecipientSource source = (afterId, limit) -> {
+            int index = Collections.binarySearch(sorted, afterId);
+            int from = index >= 0 ? index + 1 : -index - 1;
+            return sorted.subList(from, Math.min(from + limit, sorted.size()));
+        };
+        // 调用方传入的ID可能已失效，写入前按批过滤，避免外键错误导致整批失败
+        return run(notification, source, true, 0L, null);
+    }
+
+    @Override
+    public long broadcast(NotificationDTO notification, RecipientSource recipients) {
+        return run(notification, recipients, false, 0L, null);
+    }
+
+    @Override
+    public void broadcastOnce(String jobKey, NotificationDTO notification,
+                              NotificationBroadcastJob.Audience audience) {
+        NotificationBroadcastJob job = jobRepository.findByJobKey(jobKey).orElse(null);
+        if (job == null) {
+            job = new NotificationBroadcastJob();
+            job.setJobKey(jobKey);
+            job.setAudience(audience);
+            job.setTitle(notification.getTitle());
+            job.setContent(notification.getContent());
+            job.setType(notification.getType());
+            job.setTargetType(notification.getTargetType());
+            job.setTargetId(notification.getTargetId());
+            job.setUpdatedAt(LocalDateTime.now());
+            try {
+                job = jobRepository.save(job);
+            } catch (DataIntegrityViolationException e) {
+                // 其他实例已创建同一任务，由领取逻辑保证只执行一次
+                job = jobRepository.findByJobKey(jobKey).orElseThrow(() -> e);
+            }
+        }
+        processJob(job.getId());
+    }
+
+    @Override
+    public void processJob(Long jobId) {
+        NotificationProperties.Broadcast config = notificationProperties.getBroadcast();
+        LocalDateTime now = LocalDateTime.now();
+        // 领取后在同一事务中读出attempts，作为本次执行的租约标记
+        NotificationBroadcastJob job = transactionTemplate.execute(status ->
+                jobRepository.claim(jobId, now, now.minusMinutes(config.getStaleMinutes())) > 0
+                        ? jobRepository.findById(jobId).orElse(null) : null);
+        if (job == null) {
+            // 已完成，或正由其他线程、实例执行
+            return;
+        }
+        int attempt = job.getAttempts();
+        running.put(jobId, attempt);
+
+        NotificationDTO notification = new NotificationDTO();
+        notification.setTitle(job.getTitle());
+        notification.setContent(job.getContent());
+        notification.setType(job.getType());
+        notification.setTargetType(job.getTargetType());
+        notification.setTargetId(job.getTargetId());
+        try {
+            if (job.getLastUserId() > 0) {
+                log.info("广播任务从检查点继续: jobKey={}, lastUserId={}, delivered={}",
+                        job.getJobKey(), job.getLastUserId(), job.getDeliveredCount());
+            }
+            // 写通知和推进检查点在同一事务中，重启续跑不会重复发送；检查点推进失败说明任务已被接管
+            run(notification, sourceOf(job.getAudience()), false, job.getLastUserId(), (lastUserId, count) -> {
+                if (jobRepository.advance(jobId, attempt, lastUserId, count, LocalDateTime.now()) == 0) {
+                    throw new LeaseLostException();
+                }
+            });
+            transactionTemplate.executeWithoutResult(status -> jobRepository.updateStatus(
+                    jobId, attempt, NotificationBroadcastJob.JobStatus.COMPLETED, null, LocalDateTime.now()));
+        } catch (LeaseLostException e) {
+            log.warn("广播任务已被接管，停止执行: jobKey={}, attempt={}", job.getJobKey(), attempt);
+        } catch (Exception e) {
+            NotificationBroadcastJob.JobStatus next = attempt >= config.getMaxAttempts()
+                    ? NotificationBroadcastJob.JobStatus.FAILED : NotificationBroadcastJob.JobStatus.PENDING;
+            String error = e.getMessage() != null && e.getMessage().length() > 250
+                    ? e.getMessage().substring(0, 250) : e.getMessage();
+            transactionTemplate.executeWithoutResult(status ->
+                    jobRepository.updateStatus(jobId, attempt, next, error, LocalDateTime.now()));
+            log.error("广播任务执行失败: jobKey={}, error={}", job.getJobKey(), e.getMessage());
+        } finally {
+            running.remove(jobId, attempt);
+        }
+    }
+
+    // 写库线程会在限流或推送背压中等待，续约由独立的定时任务完成，不依赖推送速度
+    @Scheduled(fixedDelayString = "${notification.broadcast.heartbeat-interval:30000}")
+    public void renewLeases() {
+        running.forEach((jobId, attempt) -> {
+            try {
+                Integer renewed = transactionTemplate.execute(status ->
+                        jobRepository.heartbeat(jobId, attempt, LocalDateTime.now()));
+                if (renewed == null || renewed == 0) {
+                    log.warn("广播任务租约已失效: jobId={}, attempt={}", jobId, attempt);
+                }
+            } catch (Exception e) {
+                log.error("广播任务续约失败: jobId={}, error={}", jobId, e.getMessage());
+            }
+        });
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${notification.broadcast.resume-interval:60000}")
+    public void resumeStalledJobs() {
+        NotificationProperties.Broadcast config = notificationProperties.getBroadcast();
+        try {
+            List<Long> jobIds = jobRepository.findStalledJobIds(
+                    LocalDateTime.now().minusMinutes(config.getStaleMinutes()), PageRequest.of(0, 10));
+            if (!jobIds.isEmpty()) {
+                log.info("继续执行中断的广播任务: count={}", jobIds.size());
+            }
+            // 在调度线程中依次执行，同一时间只跑一个广播
+            jobIds.forEach(this::processJob);
+        } catch (Exception e) {
+            log.error("检查中断的广播任务失败: {}", e.getMessage());
+        }
+    }
+
+    // 私有辅助方法
+
+    private RecipientSource sourceOf(NotificationBroadcastJob.Audience audience) {
+        // 目前只有一种受众，新增受众时在这里扩展
+        return (afterId, limit) -> userRepository.findIdsByStatusAfter(
+                User.UserStatus.ACTIVE, afterId, PageRequest.of(0, limit));
+    }
+
+    // 写库在当前线程按批执行，每批写完后交给WebSocket和消息队列两个有界阶段并行推送
+    // checkpoint不为空时在写入事务中调用，参数为本批最后一个用户ID和写入数量
+    private long run(NotificationDTO notification, RecipientSource source, boolean validate,
+                     long startAfterId, BiConsumer<Long, Integer> checkpoint) {
+        NotificationProperties.Broadcast config = notificationProperties.getBroadcast();
+        String type = notification.getType().name();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        Progress progress = new Progress(type);
+        List<CompletableFuture<Void>> inFlight = new ArrayList<>();
+
+        long afterId = startAfterId;
+        while (true) {
+            List<Long> ids = source.next(afterId, config.getChunkSize());
+            if (ids.isEmpty()) {
+                break;
+            }
+            afterId = ids.get(ids.size() - 1);
+            Long chunkLastId = afterId;
+            List<Long> recipients = validate ? userRepository.findExistingIds(ids) : ids;
+            if (recipients.isEmpty()) {
+                continue;
+            }
+
+            LocalDateTime createdAt = LocalDateTime.now();
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    // 先推进检查点，租约失效时整批回滚，不会写入通知
+                    if (checkpoint != null) {
+                        checkpoint.accept(chunkLastId, recipients.size());
+                    }
+                    notificationBatchRepository.insertForUsers(recipients, notification.getTitle(),
+                            notification.getContent(), notification.getType(), notification.getTargetType(),
+                            notification.getTargetId(), createdAt);
+                });
+            } catch (Exception e) {
+                if (checkpoint != null) {
+                    // 检查点未推进，交给任务重试，不能跳过这一批
+                    throw e;
+                }
+                // 单批失败不影响后续批次
+                progress.failed.addAndGet(recipients.size());
+                log.error("批量写入通知失败: type={}, afterId={}, size={}, error={}",
+                        type, afterId, recipients.size(), e.getMessage());
+                continue;
+            }
+            progress.inserted.addAndGet(recipients.size());
+            unreadCounterService.onCreated(recipients, notification.getType());
+
+            NotificationDTO payload = new NotificationDTO();
+            BeanUtils.copyProperties(notification, payload);
+            payload.setCreatedAt(createdAt);
+            // 不在推送时段内的用户延后推送，广播的推送压力分散到各自的时段开始之后
+            List<Long> immediate = deferredDeliveryService.deferOutsideWindow(recipients, payload);
+            progress.deferred.addAndGet(recipients.size() - immediate.size());
+            if (!immediate.isEmpty()) {
+                inFlight.add(CompletableFuture.runAsync(
+                        () -> pushWebSocket(immediate, payload, progress), notificationWebSocketExecutor));
+                inFlight.add(CompletableFuture.runAsync(
+                        () -> pushJms(immediate, payload, progress), notificationJmsExecutor));
+            }
+            inFlight.removeIf(CompletableFuture::isDone);
+
+            if (progress.isLogDue(config.getProgressInterval())) {
+                progress.log("批量通知进度");
+            }
+            pace(progress, config.getMaxRate());
+        }
+
+        // 等待推送阶段处理完剩余批次，统计结果才完整
+        CompletableFuture.allOf(inFlight.toArray(new CompletableFuture[0])).join();
+        sample.stop(meterRegistry.timer("notification.broadcast", "type", type));
+        meterRegistry.counter("notification.broadcast.recipients", "type", type).increment(progress.inserted.get());
+        progress.log("批量通知完成");
+        return progress.inserted.get();
+    }
+
+    // 按目标速率限流，写入超前时暂停，推送阶段随之降速
+    private void pace(Progress progress, int maxRate) {
+        if (maxRate <= 0) {
+            return;
+        }
+        long expected = progress.inserted.get() * 1000 / maxRate;
+        long elapsed = System.currentTimeMillis() - progress.startedAt;
+        if (expected > elapsed) {
+            try {
+                Thread.sleep(expected - elapsed);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("批量通知被中断", e);
+            }
+        }
+    }
+
+    private void pushWebSocket(List<Long> userIds, NotificationDTO notification, Progress progress) {
+        for (Long userId : userIds) {
+            try {
+                webSocketService.sendNotification(userId, notification);
+                progress.websocket.incrementAndGet();
+            } catch (Exception e) {
+                log.error("WebSocket发送通知失败: userId={}, error={}", userId, e.getMessage());
+            }
+        }
+    }
+
+    private void pushJms(List<Long> userIds, NotificationDTO notification, Progress progress) {
+        progress.jms.addAndGet(notificationMessageSender.send(userIds, notification));
+    }
+
+    private static class LeaseLostException extends RuntimeException {
+    }
+
+    // 各阶段的累计数量，推送线程并发更新
+    private static class Progress {
+        private final String type;
+        private final long startedAt = System.currentTimeMillis();
+        private final AtomicLong inserted = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private final AtomicLong websocket = new AtomicLong();
+        private final AtomicLong jms = new AtomicLong();
+        private final AtomicLong deferred = new AtomicLong();
+        private long lastLoggedAt = startedAt;
+
+        Progress(String type) {
+            this.type = type;
+        }
+
+        boolean isLogDue(long interval) {
+            long now = System.currentTimeMillis();
+            if (now - lastLoggedAt < interval) {
+                return false;
+            }
+            lastLoggedAt = now;
+            return true;
+        }
+
+        void log(String stage) {
+            long elapsed = Math.max(System.currentTimeMillis() - startedAt, 1);
+            log.info("{}: type={}, 写入 {} 条, 失败 {} 条, WebSocket {} 条, 消息队列 {} 条, 延后 {} 条, 耗时 {} ms, {} 条/秒",
+                    stage, type, inserted.get(), failed.get(), websocket.get(), jms.get(), deferred.get(),
+                    elapsed, inserted.get() * 1000 / elapsed);
+        }
+    }
+}
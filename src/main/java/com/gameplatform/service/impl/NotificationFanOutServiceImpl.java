@@ -0,0 +1,211 @@
+package com.gameplatform.service.impl;
+
+import com.gameplatform.config.properties.NotificationProperties;
+import com.gameplatform.model.dto.NotificationDTO;
+import com.gameplatform.model.entity.Notification;
+import com.gameplatform.model.entity.NotificationFanOutJob;
+import com.gameplatform.model.entity.Post;
+import com.gameplatform.repository.NotificationBatchRepository;
+import com.gameplatform.repository.NotificationFanOutJobRepository;
+import com.gameplatform.repository.UserRepository;
+import com.gameplatform.service.DeferredDeliveryService;
+import com.gameplatform.service.NotificationFanOutService;
+import com.gameplatform.service.UnreadCounterService;
+import com.gameplatform.service.WebSocketService;
+import com.gameplatform.service.message.NotificationMessageSender;
+import com.gameplatform.util.TransactionUtils;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * @author SakurazawaRyoko
+ * @version 1.0
+ * @date 2025/01/12 10:35
+ * @description TODO
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class NotificationFanOutServiceImpl implements NotificationFanOutService {
+
+    private final NotificationFanOutJobRepository jobRepository;
+    private final NotificationBatchRepository notificationBatchRepository;
+    private final UserRepository userRepository;
+    private final WebSocketService webSocketService;
+    private final NotificationMessageSender notificationMessageSender;
+    private final NotificationProperties notificationProperties;
+    private final TransactionTemplate transactionTemplate;
+    private final ThreadPoolTaskExecutor notificationFanOutExecutor;
+    private final UnreadCounterService unreadCounterService;
+    private final DeferredDeliveryService deferredDeliveryService;
+
+    // 本实例正在执行的任务及其租约标记
+    private final Map<Long, Integer> running = new ConcurrentHashMap<>();
+
+    @Override
+    public void enqueueNewPost(Post post) {
+        // 任务与帖子在同一事务中落库，帖子提交成功则任务一定存在
+        NotificationFanOutJob job = new NotificationFanOutJob();
+        job.setPostId(post.getId());
+        job.setAuthorId(post.getAuthor().getId());
+        job.setTitle("关注动态");
+        job.setContent(String.format("您关注的用户 %s 发布了新帖子「%s」",
+                post.getAuthor().getNickname(), post.getTitle()));
+        job.setUpdatedAt(LocalDateTime.now());
+        NotificationFanOutJob savedJob = jobRepository.save(job);
+
+        TransactionUtils.afterCommit(() -> submit(savedJob.getId()));
+    }
+
+    @Override
+    public void processJob(Long jobId) {
+        NotificationProperties.FanOut config = notificationProperties.getFanOut();
+        LocalDateTime now = LocalDateTime.now();
+        // 领取后在同一事务中读出attempts，作为本次执行的租约标记
+        NotificationFanOutJob job = transactionTemplate.execute(status ->
+                jobRepository.claim(jobId, now, now.minusMinutes(config.getStaleMinutes())) > 0
+                        ? jobRepository.findById(jobId).orElse(null) : null);
+        if (job == null) {
+            // 已被其他线程或实例领取，或已经结束
+            return;
+        }
+        int attempt = job.getAttempts();
+        running.put(jobId, attempt);
+
+        long lastFollowerId = job.getLastFollowerId();
+        int delivered = 0;
+        try {
+            while (true) {
+                List<Long> followerIds = userRepository.findFollowerIdsAfter(job.getAuthorId(), lastFollowerId,
+                        PageRequest.of(0, config.getChunkSize()));
+                if (followerIds.isEmpty()) {
+                    break;
+                }
+                long chunkLastId = followerIds.get(followerIds.size() - 1);
+                LocalDateTime chunkTime = LocalDateTime.now();
+
+                // 先推进游标确认租约仍然有效，再批量写通知，两者在同一事务中，重启续跑不会重复写入
+                transactionTemplate.executeWithoutResult(status -> {
+                    if (jobRepository.advance(jobId, attempt, chunkLastId, followerIds.size(), chunkTime) == 0) {
+                        throw new LeaseLostException();
+                    }
+                    notificationBatchRepository.insertForUsers(followerIds, job.getTitle(), job.getContent(),
+                            Notification.NotificationType.SYSTEM, "POST", job.getPostId(), chunkTime);
+                });
+
+                unreadCounterService.onCreated(followerIds, Notification.NotificationType.SYSTEM);
+                deliver(followerIds, job, chunkTime);
+                delivered += followerIds.size();
+                lastFollowerId = chunkLastId;
+            }
+
+            transactionTemplate.executeWithoutResult(status -> jobRepository.updateStatus(
+                    jobId, attempt, NotificationFanOutJob.JobStatus.COMPLETED, null, LocalDateTime.now()));
+            log.debug("关注者通知推送完成: postId={}, delivered={}", job.getPostId(), delivered);
+        } catch (LeaseLostException e) {
+            // 租约已被其他执行者接管，由对方从游标处继续
+            log.warn("关注者通知任务已被接管，停止执行: jobId={}, attempt={}", jobId, attempt);
+        } catch (Exception e) {
+            // 已写入的批次保留，下次从游标处继续
+            NotificationFanOutJob.JobStatus next = attempt >= config.getMaxAttempts()
+                    ? NotificationFanOutJob.JobStatus.FAILED : NotificationFanOutJob.JobStatus.PENDING;
+            String error = e.getMessage() != null && e.getMessage().length() > 250
+                    ? e.getMessage().substring(0, 250) : e.getMessage();
+            transactionTemplate.executeWithoutResult(status ->
+                    jobRepository.updateStatus(jobId, attempt, next, error, LocalDateTime.now()));
+            log.error("关注者通知推送失败: jobId={}, postId={}, lastFollowerId={}, error={}",
+                    jobId, job.getPostId(), lastFollowerId, e.getMessage());
+        } finally {
+            running.remove(jobId, attempt);
+        }
+    }
+
+    // 执行线程可能长时间阻塞在推送重试上，由独立的定时任务为执行中的任务续约
+    @Scheduled(fixedDelayString = "${notification.fan-out.heartbeat-interval:30000}")
+    public void renewLeases() {
+        running.forEach((jobId, attempt) -> {
+            try {
+                Integer renewed = transactionTemplate.execute(status ->
+                        jobRepository.heartbeat(jobId, attempt, LocalDateTime.now()));
+                if (renewed == null || renewed == 0) {
+                    log.warn("关注者通知任务租约已失效: jobId={}, attempt={}", jobId, attempt);
+                }
+            } catch (Exception e) {
+                log.error("关注者通知任务续约失败: jobId={}, error={}", jobId, e.getMessage());
+            }
+        });
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${notification.fan-out.resume-interval:60000}")
+    public void resumeStalledJobs() {
+        NotificationProperties.FanOut config = notificationProperties.getFanOut();
+        try {
+            List<Long> jobIds = jobRepository.findStalledJobIds(
+                    LocalDateTime.now().minusMinutes(config.getStaleMinutes()),
+                    PageRequest.of(0, config.getQueueCapacity()));
+            if (!jobIds.isEmpty()) {
+                log.info("重新提交中断的通知推送任务: count={}", jobIds.size());
+            }
+            jobIds.forEach(this::submit);
+        } catch (Exception e) {
+            log.error("检查中断的通知推送任务失败: {}", e.getMessage());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        // 启动时立即接管上次宕机遗留的任务
+        resumeStalledJobs();
+    }
+
+    // 私有辅助方法
+    private void submit(Long jobId) {
+        try {
+            notificationFanOutExecutor.execute(() -> processJob(jobId));
+        } catch (TaskRejectedException e) {
+            // 队列已满，任务仍为PENDING，等待补偿任务重新提交
+            log.warn("通知推送队列已满，稍后重试: jobId={}", jobId);
+        }
+    }
+
+    private void deliver(List<Long> userIds, NotificationFanOutJob job, LocalDateTime createdAt) {
+        NotificationDTO notification = new NotificationDTO();
+        notification.setTitle(job.getTitle());
+        notification.setContent(job.getContent());
+        notification.setType(Notification.NotificationType.SYSTEM);
+        notification.setTargetType("POST");
+        notification.setTargetId(job.getPostId());
+        notification.setCreatedAt(createdAt);
+
+        // 不在推送时段内的粉丝延后推送
+        List<Long> immediate = deferredDeliveryService.deferOutsideWindow(userIds, notification);
+        if (immediate.isEmpty()) {
+            return;
+        }
+        for (Long userId : immediate) {
+            try {
+                webSocketService.sendNotification(userId, notification);
+            } catch (Exception e) {
+                log.error("WebSocket发送通知失败: userId={}, error={}", userId, e.getMessage());
+            }
+        }
+        notificationMessageSender.send(immediate, notification);
+    }
+
+    private static class LeaseLostException extends RuntimeException {
+    }
+}
@@ -0,0 +1,121 @@
+package com.gameplatform.service.impl;
+
+import com.gameplatform.common.PushWindow;
+import com.gameplatform.config.properties.NotificationProperties;
+import com.gameplatform.model.entity.UserSetting;
+import com.gameplatform.repository.UserSettingRepository;
+import com.gameplatform.service.NotificationPreferenceService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author SakurazawaRyoko
+ * @version 1.0
+ * @date 2025/01/13 16:20
+ * @description TODO
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class NotificationPreferenceServiceImpl implements NotificationPreferenceService {
+
+    private final UserSettingRepository userSettingRepository;
+    private final NotificationProperties notificationProperties;
+
+    public static final String EMAIL_NOTIFICATION_KEY = "email_notification";
+    public static final String PUSH_TIME_START_KEY = "push_time_start";
+    public static final String PUSH_TIME_END_KEY = "push_time_end";
+    private static final List<String> KEYS = List.of(EMAIL_NOTIFICATION_KEY, PUSH_TIME_START_KEY, PUSH_TIME_END_KEY);
+
+    // 本地缓存，其他实例的修改最多在有效期后生效
+    private final Map<Long, CachedPreference> cache = new ConcurrentHashMap<>();
+
+    @Override
+    public Set<Long> findEmailEnabled(Collection<Long> userIds) {
+        Set<Long> enabled = new HashSet<>();
+        find(userIds).forEach((userId, preference) -> {
+            if (preference.emailEnabled) {
+                enabled.add(userId);
+            }
+        });
+        return enabled;
+    }
+
+    @Override
+    public Map<Long, PushWindow> findPushWindows(Collection<Long> userIds) {
+        Map<Long, PushWindow> windows = new HashMap<>();
+        find(userIds).forEach((userId, preference) -> windows.put(userId, preference.pushWindow));
+        return windows;
+    }
+
+    @Override
+    public void evict(Long userId) {
+        cache.remove(userId);
+    }
+
+    // 私有辅助方法
+
+    private Map<Long, CachedPreference> find(Collection<Long> userIds) {
+        long now = System.currentTimeMillis();
+        Map<Long, CachedPreference> found = new HashMap<>();
+        List<Long> misses = new ArrayList<>();
+        for (Long userId : userIds) {
+            CachedPreference cached = cache.get(userId);
+            if (cached == null || cached.expiresAt < now) {
+                misses.add(userId);
+            } else {
+                found.put(userId, cached);
+            }
+        }
+        if (!misses.isEmpty()) {
+            found.putAll(load(misses, now));
+        }
+        return found;
+    }
+
+    // 一次查询取出所有未命中用户的设置，没有设置的用户使用默认值
+    private Map<Long, CachedPreference> load(List<Long> userIds, long now) {
+        Map<Long, Map<String, String>> settings = new HashMap<>();
+        for (UserSetting setting : userSettingRepository.findByKeyInAndUserIdIn(KEYS, userIds)) {
+            settings.computeIfAbsent(setting.getUserId(), key -> new HashMap<>())
+                    .put(setting.getKey(), setting.getValue());
+        }
+
+        NotificationProperties.Jms config = notificationProperties.getJms();
+        if (cache.size() + userIds.size() > config.getPreferenceCacheSize()) {
+            // 超出容量时整体清空，下一批重新加载，避免无界增长
+            cache.clear();
+            log.debug("通知偏好缓存已满，清空后重新加载");
+        }
+        long expiresAt = now + TimeUnit.SECONDS.toMillis(config.getPreferenceCacheTtl());
+        Map<Long, CachedPreference> loaded = new HashMap<>();
+        for (Long userId : userIds) {
+            Map<String, String> values = settings.getOrDefault(userId, Collections.emptyMap());
+            String email = values.get(EMAIL_NOTIFICATION_KEY);
+            CachedPreference preference = new CachedPreference(
+                    email == null || Boolean.parseBoolean(email),
+                    PushWindow.parse(values.get(PUSH_TIME_START_KEY), values.get(PUSH_TIME_END_KEY)),
+                    expiresAt);
+            cache.put(userId, preference);
+            loaded.put(userId, preference);
+        }
+        return loaded;
+    }
+
+    private static class CachedPreference {
+        private final boolean emailEnabled;
+        private final PushWindow pushWindow;
+        private final long expiresAt;
+
+        private CachedPreference(boolean emailEnabled, PushWindow pushWindow, long expiresAt) {
+            this.emailEnabled = emailEnabled;
+            this.pushWindow = pushWindow;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
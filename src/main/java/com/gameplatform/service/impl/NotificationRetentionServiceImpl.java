@@ -0,0 +1,220 @@
+package com.gameplatform.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gameplatform.config.properties.NotificationProperties;
+import com.gameplatform.repository.NotificationRetentionRepository;
+import com.gameplatform.service.NotificationRetentionService;
+import com.gameplatform.service.UnreadCounterService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * @author SakurazawaRyoko
+ * @version 1.0
+ * @date 2025/01/13 15:20
+ * @description TODO
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class NotificationRetentionServiceImpl implements NotificationRetentionService {
+
+    private final NotificationRetentionRepository retentionRepository;
+    private final UnreadCounterService unreadCounterService;
+    private final NotificationProperties notificationProperties;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final ObjectMapper objectMapper;
+
+    private static final DateTimeFormatter FILE_TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+    private static final long PROGRESS_LOG_INTERVAL = 30000;
+
+    // 本轮清理剩余的ID区间长度，作为进度指标
+    private final AtomicLong remaining = new AtomicLong();
+
+    @Override
+    @Scheduled(cron = "${notification.retention.purge-cron:0 30 3 * * ?}")
+    public synchronized long purgeExpired() {
+        NotificationProperties.Retention config = notificationProperties.getRetention();
+        meterRegistry.gauge("notification.purge.remaining", remaining);
+        LocalDateTime threshold = LocalDateTime.now().minusDays(config.getRetentionDays());
+        long[] range;
+        try {
+            range = retentionRepository.findExpiredIdRange(threshold);
+        } catch (Exception e) {
+            log.error("查询过期通知失败: {}", e.getMessage());
+            return 0;
+        }
+        if (range == null) {
+            return 0;
+        }
+
+        NotificationProperties.ArchiveMode mode = config.getArchiveMode();
+        long start = System.currentTimeMillis();
+        long lastLogged = start;
+        long deleted = 0;
+        long fromId = range[0];
+        remaining.set(range[1] - range[0] + 1);
+        log.info("开始清理过期通知: threshold={}, ids=[{}, {}], archive={}", threshold, range[0], range[1], mode);
+
+        try (ArchiveFile archiveFile = mode == NotificationProperties.ArchiveMode.FILE
+                ? new ArchiveFile(Paths.get(config.getArchivePath())) : null) {
+            if (mode == NotificationProperties.ArchiveMode.TABLE) {
+                retentionRepository.ensureArchiveTable();
+            }
+            for (; fromId <= range[1]; fromId += config.getChunkSize()) {
+                long from = fromId;
+                long to = Math.min(fromId + config.getChunkSize() - 1, range[1]);
+                Timer.Sample sample = Timer.start(meterRegistry);
+
+                // 归档和删除在同一个短事务中，只锁住本批ID区间
+                ChunkResult result = transactionTemplate.execute(status -> {
+                    List<Long> unreadUsers = retentionRepository.findUnreadUserIds(from, to, threshold);
+                    long archived = archive(mode, archiveFile, from, to, threshold);
+                    int count = retentionRepository.deleteRange(from, to, threshold);
+                    return new ChunkResult(unreadUsers, archived, count);
+                });
+                sample.stop(meterRegistry.timer("notification.purge.chunk"));
+
+                if (result != null) {
+                    deleted += result.deleted;
+                    meterRegistry.counter("notification.purge.archived").increment(result.archived);
+                    meterRegistry.counter("notification.purge.deleted").increment(result.deleted);
+                    // 删除了未读通知的用户，计数下次读取时从数据库重建
+                    result.unreadUsers.forEach(unreadCounterService::evict);
+                }
+                remaining.set(range[1] - to);
+
+                long now = System.currentTimeMillis();
+                if (now - lastLogged >= PROGRESS_LOG_INTERVAL) {
+                    lastLogged = now;
+                    log.info("过期通知清理进度: lastId={}, 剩余ID区间 {}, 耗时 {} ms", to, remaining.get(), now - start);
+                }
+                pause(config.getPauseMillis());
+            }
+        } catch (Exception e) {
+            // 已提交的批次不受影响，下一轮从剩余的最小ID继续
+            log.error("清理过期通知中断: fromId={}, error={}", fromId, e.getMessage());
+        }
+        log.info("过期通知清理结束，删除 {} 条，耗时 {} ms", deleted, System.currentTimeMillis() - start);
+        return deleted;
+    }
+
+    // 私有辅助方法
+    private long archive(NotificationProperties.ArchiveMode mode, ArchiveFile archiveFile,
+                         long fromId, long toId, LocalDateTime threshold) {
+        switch (mode) {
+            case TABLE:
+                return retentionRepository.archiveToTable(fromId, toId, threshold, LocalDateTime.now());
+            case FILE:
+                long[] written = new long[1];
+                retentionRepository.streamRange(fromId, toId, threshold, rs -> {
+                    Map<String, Object> row = new LinkedHashMap<>();
+                    row.put("id", rs.getLong("id"));
+                    row.put("userId", rs.getObject("user_id"));
+                    row.put("title", rs.getString("title"));
+                    row.put("content", rs.getString("content"));
+                    row.put("type", rs.getString("type"));
+                    row.put("targetType", rs.getString("target_type"));
+                    row.put("targetId", rs.getObject("target_id"));
+                    row.put("read", rs.getBoolean("is_read"));
+                    row.put("createdAt", toLocalDateTime(rs.getTimestamp("created_at")));
+                    row.put("readAt", toLocalDateTime(rs.getTimestamp("read_at")));
+                    archiveFile.write(objectMapper, row);
+                    written[0]++;
+                });
+                // 文件落盘后才提交删除，崩溃时最多重复归档，不会丢数据
+                archiveFile.sync();
+                return written[0];
+            default:
+                return 0;
+        }
+    }
+
+    private LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+
+    private void pause(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("过期通知清理被中断", e);
+        }
+    }
+
+    private static class ChunkResult {
+        private final List<Long> unreadUsers;
+        private final long archived;
+        private final int deleted;
+
+        ChunkResult(List<Long> unreadUsers, long archived, int deleted) {
+            this.unreadUsers = unreadUsers;
+            this.archived = archived;
+            this.deleted = deleted;
+        }
+    }
+
+    // 每轮清理一个gzip压缩的JSON Lines文件
+    private static class ArchiveFile implements Closeable {
+        private final FileOutputStream file;
+        private final GZIPOutputStream gzip;
+        private final Writer writer;
+
+        ArchiveFile(Path directory) throws IOException {
+            Files.createDirectories(directory);
+            Path path = directory.resolve("notifications-" + LocalDateTime.now().format(FILE_TIME_FORMATTER) + ".jsonl.gz");
+            this.file = new FileOutputStream(path.toFile(), true);
+            this.gzip = new GZIPOutputStream(file, 8192, true);
+            this.writer = new BufferedWriter(new OutputStreamWriter(gzip, StandardCharsets.UTF_8));
+            log.info("通知归档文件: {}", path);
+        }
+
+        void write(ObjectMapper objectMapper, Map<String, Object> row) {
+            try {
+                writer.write(objectMapper.writeValueAsString(row));
+                writer.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        void sync() {
+            try {
+                writer.flush();
+                gzip.flush();
+                file.getFD().sync();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            writer.close();
+        }
+    }
+}
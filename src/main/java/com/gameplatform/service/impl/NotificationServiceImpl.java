@@ -1,30 +1,35 @@
 package com.gameplatform.service.impl;
 
+import com.gameplatform.common.CursorPage;
 import com.gameplatform.config.properties.NotificationProperties;
 import com.gameplatform.exception.BusinessException;
 import com.gameplatform.model.dto.NotificationDTO;
 import com.gameplatform.model.dto.NotificationSettingsDTO;
 import com.gameplatform.model.dto.UnreadCountDTO;
 import com.gameplatform.model.entity.*;
-import com.gameplatform.model.message.NotificationMessage;
 import com.gameplatform.repository.EventRegistrationRepository;
 import com.gameplatform.repository.NotificationRepository;
 import com.gameplatform.repository.UserRepository;
 import com.gameplatform.repository.UserSettingRepository;
+import com.gameplatform.service.DeferredDeliveryService;
 import com.gameplatform.service.EventService;
+import com.gameplatform.service.NotificationBroadcastService;
+import com.gameplatform.service.NotificationPreferenceService;
 import com.gameplatform.service.NotificationService;
+import com.gameplatform.service.UnreadCounterService;
 import com.gameplatform.service.WebSocketService;
+import com.gameplatform.service.message.NotificationMessageSender;
+import com.gameplatform.util.CursorUtils;
+import com.gameplatform.util.TransactionUtils;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
-import org.springframework.jms.core.JmsTemplate;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collections;
 import java.util.List;
 
 
@@ -42,11 +47,15 @@ public class NotificationServiceImpl implements NotificationService {
     private final NotificationRepository notificationRepository;
     private final UserRepository userRepository;
     private final WebSocketService webSocketService;
-    private final JmsTemplate jmsTemplate;
+    private final NotificationMessageSender notificationMessageSender;
+    private final NotificationPreferenceService notificationPreferenceService;
+    private final DeferredDeliveryService deferredDeliveryService;
     private final EventService eventService;
     private final NotificationProperties notificationProperties;
     private final EventRegistrationRepository eventRegistrationRepository;
     private final UserSettingRepository userSettingRepository;
+    private final NotificationBroadcastService notificationBroadcastService;
+    private final UnreadCounterService unreadCounterService;
 
     @Override
     @Transactional
@@ -65,6 +74,8 @@ public class NotificationServiceImpl implements NotificationService {
         if (settings.getPushTimeEnd() != null) {
             saveUserSetting(userId, "push_time_end", settings.getPushTimeEnd());
         }
+        // 邮件开关和推送时段由消息监听和延迟推送缓存读取
+        TransactionUtils.afterCommit(() -> notificationPreferenceService.evict(userId));
     }
 
     @Override
@@ -116,13 +127,7 @@ public class NotificationServiceImpl implements NotificationService {
         notification.setType(Notification.NotificationType.SYSTEM);
         notification.setTargetType("SYSTEM");
 
-        for (Long userId : userIds) {
-            try {
-                sendNotification(userId, notification);
-            } catch (Exception e) {
-                log.error("Failed to send system notification to user {}: {}", userId, e.getMessage());
-            }
-        }
+        notificationBroadcastService.broadcast(notification, userIds);
     }
 
     @Override
@@ -134,13 +139,7 @@ public class NotificationServiceImpl implements NotificationService {
         notification.setTargetType("GAME");
         notification.setTargetId(gameId);
 
-        for (Long userId : userIds) {
-            try {
-                sendNotification(userId, notification);
-            } catch (Exception e) {
-                log.error("Failed to send game notification to user {}: {}", userId, e.getMessage());
-            }
-        }
+        notificationBroadcastService.broadcast(notification, userIds);
     }
 
     @Override
@@ -181,9 +180,6 @@ public class NotificationServiceImpl implements NotificationService {
         return dto;
     }
 
-    @Value("${notification.queue}")
-    private String notificationQueue;
-
     @Override
     @Transactional
     public void sendNotification(Long userId, NotificationDTO notificationDTO) {
@@ -201,21 +197,29 @@ public class NotificationServiceImpl implements NotificationService {
         notification.setCreatedAt(LocalDateTime.now());
 
         Notification savedNotification = notificationRepository.save(notification);
+        unreadCounterService.onCreated(userId, savedNotification.getType());
 
-        // 发送WebSocket消息
-        try {
-            webSocketService.sendNotification(userId, convertToDTO(savedNotification));
-        } catch (Exception e) {
-            log.error("WebSocket发送通知失败: {}", e.getMessage());
-        }
+        // 事务提交后再推送，不在用户推送时段内的通知延后推送
+        NotificationDTO saved = convertToDTO(savedNotification);
+        TransactionUtils.afterCommit(() -> {
+            if (deferredDeliveryService.deferOutsideWindow(Collections.singletonList(userId), saved).isEmpty()) {
+                return;
+            }
 
-        // 发送消息队列
-        try {
-            NotificationMessage message = new NotificationMessage(userId, notificationDTO);
-            jmsTemplate.convertAndSend(notificationQueue, message);
-        } catch (Exception e) {
-            log.error("消息队列发送通知失败: {}", e.getMessage());
-        }
+            // 发送WebSocket消息
+            try {
+                webSocketService.sendNotification(userId, saved);
+            } catch (Exception e) {
+                log.error("WebSocket发送通知失败: {}", e.getMessage());
+            }
+
+            // 发送消息队列
+            try {
+                notificationMessageSender.send(Collections.singletonList(userId), notificationDTO);
+            } catch (Exception e) {
+                log.error("发送通知消息失败: {}", e.getMessage());
+            }
+        });
     }
 
     @Override
@@ -235,17 +239,26 @@ public class NotificationServiceImpl implements NotificationService {
                 .map(this::convertToDTO);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<NotificationDTO> getNotificationsByCursor(Long userId, Notification.NotificationType type,
+                                                                String cursor, int size) {
+        CursorUtils.Cursor position = CursorUtils.decode(cursor);
+        List<Notification> notifications = notificationRepository.findByUserBefore(
+                userId, type, position.getCreatedAt(), position.getId(), CursorUtils.limit(size));
+        return CursorUtils.toCursorPage(notifications, size, Notification::getCreatedAt, Notification::getId)
+                .map(this::convertToDTO);
+    }
+
     @Override
     @Transactional
     public void markAsRead(Long notificationId, Long userId) {
         Notification notification = findByIdAndUserId(notificationId, userId);
-        if (!notification.isRead()) {
-            notification.setRead(true);
-            notification.setReadAt(LocalDateTime.now());
-            notificationRepository.save(notification);
-
+        if (!notification.isRead()
+                && notificationRepository.markAsRead(notificationId, userId, LocalDateTime.now()) > 0) {
             // 更新未读消息计数
-            updateUnreadCount(userId);
+            unreadCounterService.onRead(userId, notification.getType());
+            pushUnreadCount(userId);
         }
     }
 
@@ -254,28 +267,28 @@ public class NotificationServiceImpl implements NotificationService {
     public void markAllAsRead(Long userId) {
         validateUser(userId);
         notificationRepository.markAllAsRead(userId);
-        updateUnreadCount(userId);
+        unreadCounterService.onAllRead(userId);
+        pushUnreadCount(userId);
     }
 
     @Override
     @Transactional
     public void deleteNotification(Long notificationId, Long userId) {
         Notification notification = findByIdAndUserId(notificationId, userId);
-        notificationRepository.delete(notification);
-        updateUnreadCount(userId);
+        // 先按条件标记已读锁住该行，并发删除或标记时只扣减一次未读计数
+        boolean wasUnread = notificationRepository.markAsRead(notificationId, userId, LocalDateTime.now()) > 0;
+        notificationRepository.deleteByIdAndUserId(notificationId, userId);
+        if (wasUnread) {
+            unreadCounterService.onRead(userId, notification.getType());
+        }
+        pushUnreadCount(userId);
     }
 
     @Override
-    @Transactional(readOnly = true)
     public UnreadCountDTO getUnreadCount(Long userId) {
         validateUser(userId);
-        UnreadCountDTO dto = new UnreadCountDTO();
-        dto.setTotal(notificationRepository.countUnreadByUserId(userId));
-        dto.setSystem(countUnreadByType(userId, Notification.NotificationType.SYSTEM));
-        dto.setGameDiscount(countUnreadByType(userId, Notification.NotificationType.GAME_DISCOUNT));
-        dto.setEventReminder(countUnreadByType(userId, Notification.NotificationType.EVENT_REMINDER));
-        dto.setPostReply(countUnreadByType(userId, Notification.NotificationType.POST_REPLY));
-        return dto;
+        // 每次页面加载都会调用，直接读Redis计数，不再逐类型COUNT
+        return unreadCounterService.getUnreadCount(userId);
     }
 
     @Override
@@ -368,17 +381,16 @@ public class NotificationServiceImpl implements NotificationService {
     }
 
     // 私有辅助方法
-    private long countUnreadByType(Long userId, Notification.NotificationType type) {
-        return notificationRepository.countUnreadByUserIdAndType(userId, type);
-    }
 
-    private void updateUnreadCount(Long userId) {
-        UnreadCountDTO unreadCount = getUnreadCount(userId);
-        try {
-            webSocketService.sendUnreadCount(userId, unreadCount);
-        } catch (Exception e) {
-            log.error("发送未读消息计数失败: {}", e.getMessage());
-        }
+    // 计数在事务提交后更新，推送也放在提交之后，保证读到的是新值
+    private void pushUnreadCount(Long userId) {
+        TransactionUtils.afterCommit(() -> {
+            try {
+                webSocketService.sendUnreadCount(userId, unreadCounterService.getUnreadCount(userId));
+            } catch (Exception e) {
+                log.error("发送未读消息计数失败: {}", e.getMessage());
+            }
+        });
     }
 
     private Notification findByIdAndUserId(Long notificationId, Long userId) {
@@ -392,17 +404,4 @@ public class NotificationServiceImpl implements NotificationService {
             throw new BusinessException("用户不存在");
         }
     }
-
-    // 定时任务：清理过期通知
-    @Scheduled(cron = "0 0 1 * * ?") // 每天凌晨1点执行
-    @Transactional
-    public void cleanExpiredNotifications() {
-        try {
-            LocalDateTime threshold = LocalDateTime.now().minusMonths(3); // 3个月前的通知
-            int deletedCount = notificationRepository.deleteByCreatedAtBefore(threshold);
-            log.info("清理过期通知完成，共删除 {} 条通知", deletedCount);
-        } catch (Exception e) {
-            log.error("清理过期通知失败: {}", e.getMessage());
-        }
-    }
-}
\ No newline at end of file
+}
@@ -0,0 +1,323 @@
+package com.gameplatform.service.impl;
+
+import com.gameplatform.config.properties.GameProperties;
+import com.gameplatform.exception.BusinessException;
+import com.gameplatform.model.dto.PlayHeartbeatDTO;
+import com.gameplatform.repository.UserGameBatchRepository;
+import com.gameplatform.service.GameHistogramService;
+import com.gameplatform.service.GameTrendService;
+import com.gameplatform.service.PlayTimeService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.sql.Statement;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * @author SakurazawaRyoko
+ * @version 1.0
+ * @date 2025/01/12 20:00
+ * @description TODO
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PlayTimeServiceImpl implements PlayTimeService {
+
+    private final UserGameBatchRepository userGameBatchRepository;
+    private final GameProperties gameProperties;
+    private final TransactionTemplate transactionTemplate;
+    private final GameHistogramService gameHistogramService;
+    private final GameTrendService gameTrendService;
+
+    private static final String SEGMENT_PREFIX = "play-time-";
+    private static final String SEGMENT_SUFFIX = ".wal";
+
+    // 记录心跳持读锁，可并发进行；切换日志段并取出缓冲区时持写锁，
+    // 保证每条心跳要么在已关闭的日志段和被取出的缓冲区里，要么都在新的里面
+    private final ReadWriteLock rotationLock = new ReentrantReadWriteLock();
+    private final Object walMonitor = new Object();
+
+    private volatile Map<PlayKey, PendingPlay> pending = new ConcurrentHashMap<>();
+    private Path walDir;
+    private long segmentSeq;
+    private Writer segmentWriter;
+
+    @PostConstruct
+    public void recover() throws IOException {
+        walDir = Paths.get(gameProperties.getPlayTime().getWalPath());
+        Files.createDirectories(walDir);
+
+        // 上次退出时未刷盘的日志段，重放进缓冲区，刷盘成功后随新日志段一起删除
+        long maxSeq = 0;
+        int recovered = 0;
+        for (Path segment : listSegments()) {
+            maxSeq = Math.max(maxSeq, segmentSeq(segment));
+            recovered += replay(segment);
+        }
+        segmentSeq = maxSeq + 1;
+        segmentWriter = openSegment(segmentSeq);
+        if (recovered > 0) {
+            log.info("从预写日志恢复游戏时长心跳 {} 条", recovered);
+        }
+    }
+
+    @Override
+    public void recordHeartbeats(Long userId, List<PlayHeartbeatDTO> heartbeats) {
+        if (heartbeats == null || heartbeats.isEmpty()) {
+            return;
+        }
+        if (heartbeats.size() > gameProperties.getPlayTime().getMaxHeartbeats()) {
+            throw new BusinessException("单次上报的心跳数量过多");
+        }
+
+        long now = System.currentTimeMillis();
+        StringBuilder lines = new StringBuilder(heartbeats.size() * 32);
+        for (PlayHeartbeatDTO heartbeat : heartbeats) {
+            if (heartbeat.getGameId() == null || heartbeat.getMinutes() == null || heartbeat.getMinutes() <= 0) {
+                throw new BusinessException("心跳数据不合法");
+            }
+            lines.append(userId).append(',').append(heartbeat.getGameId()).append(',')
+                    .append(heartbeat.getMinutes()).append(',').append(now).append('\n');
+        }
+
+        rotationLock.readLock().lock();
+        try {
+            appendToWal(lines);
+            Map<PlayKey, PendingPlay> buffer = pending;
+            for (PlayHeartbeatDTO heartbeat : heartbeats) {
+                buffer.computeIfAbsent(new PlayKey(userId, heartbeat.getGameId()), key -> new PendingPlay())
+                        .add(heartbeat.getMinutes(), now);
+            }
+        } finally {
+            rotationLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${game.play-time.flush-interval:5000}")
+    public synchronized void flushPendingPlayTime() {
+        Map<PlayKey, PendingPlay> drained;
+        long closedSeq;
+        rotationLock.writeLock().lock();
+        try {
+            if (pending.isEmpty()) {
+                return;
+            }
+            drained = pending;
+            pending = new ConcurrentHashMap<>();
+            closedSeq = rotateSegment();
+        } finally {
+            rotationLock.writeLock().unlock();
+        }
+
+        // 按(用户, 游戏)排序，多个节点同时刷盘时加锁顺序一致
+        List<long[]> rows = new ArrayList<>(drained.size());
+        new TreeMap<>(drained).forEach((key, play) -> rows.add(
+                new long[]{key.userId, key.gameId, play.minutes.sum(), play.lastPlayedAt.get()}));
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                // 先按旧时长调整分布，再累加时长
+                gameHistogramService.onPlayTimeAdded(rows);
+                int[][] counts = userGameBatchRepository.addPlayTime(rows, gameProperties.getPlayTime().getBatchSize());
+                // 用户已不再拥有该游戏时不会更新任何行，这些心跳也不计入趋势
+                gameTrendService.recordPlayEvents(applied(rows, counts));
+            });
+            // 已写入数据库的日志段可以删除，删除前崩溃会导致这部分时长重复累加一次
+            deleteSegmentsUpTo(closedSeq);
+            log.debug("游戏时长刷盘完成，共 {} 条", rows.size());
+        } catch (Exception e) {
+            // 放回缓冲区等待下个周期，旧日志段保留到下次刷盘成功
+            Map<PlayKey, PendingPlay> buffer = pending;
+            drained.forEach((key, play) -> buffer.computeIfAbsent(key, k -> new PendingPlay())
+                    .add(play.minutes.sum(), play.lastPlayedAt.get()));
+            log.error("游戏时长刷盘失败: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        log.info("应用关闭，刷写剩余游戏时长");
+        flushPendingPlayTime();
+        synchronized (walMonitor) {
+            closeQuietly(segmentWriter);
+            segmentWriter = null;
+        }
+    }
+
+    // 私有辅助方法
+
+    // counts为按批次划分的更新行数，顺序与rows一致
+    private List<long[]> applied(List<long[]> rows, int[][] counts) {
+        List<long[]> applied = new ArrayList<>(rows.size());
+        int index = 0;
+        for (int[] batch : counts) {
+            for (int count : batch) {
+                if (count > 0 || count == Statement.SUCCESS_NO_INFO) {
+                    applied.add(rows.get(index));
+                }
+                index++;
+            }
+        }
+        return applied;
+    }
+
+    // 写入操作系统缓冲即返回，可以应对进程崩溃，不保证机器掉电时不丢失
+    private void appendToWal(CharSequence lines) {
+        synchronized (walMonitor) {
+            if (segmentWriter == null) {
+                log.error("预写日志不可用，心跳仅保存在内存中");
+                return;
+            }
+            try {
+                segmentWriter.append(lines);
+                segmentWriter.flush();
+            } catch (IOException e) {
+                log.error("写入预写日志失败: {}", e.getMessage());
+            }
+        }
+    }
+
+    private long rotateSegment() {
+        synchronized (walMonitor) {
+            long closed = segmentSeq;
+            closeQuietly(segmentWriter);
+            segmentSeq++;
+            try {
+                segmentWriter = openSegment(segmentSeq);
+            } catch (IOException e) {
+                segmentWriter = null;
+                log.error("创建预写日志失败: {}", e.getMessage());
+            }
+            return closed;
+        }
+    }
+
+    private Writer openSegment(long seq) throws IOException {
+        return Files.newBufferedWriter(walDir.resolve(SEGMENT_PREFIX + seq + SEGMENT_SUFFIX), StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    private int replay(Path segment) throws IOException {
+        int count = 0;
+        try (BufferedReader reader = Files.newBufferedReader(segment, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.split(",");
+                if (parts.length != 4) {
+                    // 崩溃时可能留下写了一半的最后一行
+                    log.warn("跳过无法解析的预写日志: {} - {}", segment.getFileName(), line);
+                    continue;
+                }
+                try {
+                    PlayKey key = new PlayKey(Long.parseLong(parts[0]), Long.parseLong(parts[1]));
+                    pending.computeIfAbsent(key, k -> new PendingPlay())
+                            .add(Long.parseLong(parts[2]), Long.parseLong(parts[3]));
+                    count++;
+                } catch (NumberFormatException e) {
+                    log.warn("跳过无法解析的预写日志: {} - {}", segment.getFileName(), line);
+                }
+            }
+        }
+        return count;
+    }
+
+    private void deleteSegmentsUpTo(long seq) {
+        try {
+            for (Path segment : listSegments()) {
+                if (segmentSeq(segment) <= seq) {
+                    Files.deleteIfExists(segment);
+                }
+            }
+        } catch (IOException e) {
+            log.error("删除预写日志失败: {}", e.getMessage());
+        }
+    }
+
+    private List<Path> listSegments() throws IOException {
+        try (Stream<Path> files = Files.list(walDir)) {
+            List<Path> segments = new ArrayList<>();
+            files.filter(path -> {
+                String name = path.getFileName().toString();
+                return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+            }).forEach(segments::add);
+            segments.sort(Comparator.comparingLong(this::segmentSeq));
+            return segments;
+        }
+    }
+
+    private long segmentSeq(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private void closeQuietly(Writer writer) {
+        if (writer == null) {
+            return;
+        }
+        try {
+            writer.close();
+        } catch (IOException e) {
+            log.error("关闭预写日志失败: {}", e.getMessage());
+        }
+    }
+
+    private static final class PlayKey implements Comparable<PlayKey> {
+        final long userId;
+        final long gameId;
+
+        PlayKey(long userId, long gameId) {
+            this.userId = userId;
+            this.gameId = gameId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof PlayKey)) {
+                return false;
+            }
+            PlayKey other = (PlayKey) o;
+            return userId == other.userId && gameId == other.gameId;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(userId) * 31 + Long.hashCode(gameId);
+        }
+
+        @Override
+        public int compareTo(PlayKey other) {
+            int result = Long.compare(userId, other.userId);
+            return result != 0 ? result : Long.compare(gameId, other.gameId);
+        }
+    }
+
+    private static final class PendingPlay {
+        final LongAdder minutes = new LongAdder();
+        final AtomicLong lastPlayedAt = new AtomicLong();
+
+        void add(long delta, long playedAt) {
+            minutes.add(delta);
+            lastPlayedAt.accumulateAndGet(playedAt, Math::max);
+        }
+    }
+}
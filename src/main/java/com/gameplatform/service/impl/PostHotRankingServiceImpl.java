@@ -0,0 +1,239 @@
+package com.gameplatform.service.impl;
+
+import com.gameplatform.config.properties.PostProperties;
+import com.gameplatform.model.entity.Post;
+import com.gameplatform.repository.PostRepository;
+import com.gameplatform.service.PostHotRankingService;
+import com.gameplatform.util.TransactionUtils;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.redis.connection.RedisZSetCommands;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * @author SakurazawaRyoko
+ * @version 1.0
+ * @date 2025/01/11 10:20
+ * @description TODO
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PostHotRankingServiceImpl implements PostHotRankingService {
+
+    private final PostRepository postRepository;
+    private final RedisTemplate<String, String> redisTemplate;
+    private final PostProperties postProperties;
+
+    private static final String HOT_KEY = "post:hot:all";
+    private static final String GAME_HOT_PREFIX = "post:hot:game:";
+    private static final String HOT_KEYS_INDEX = "post:hot:keys";
+    private static final String DECAY_LOCK = "post:hot:decay:lock";
+
+    @Override
+    public void onPostCreated(Post post) {
+        Long gameId = post.getGame() != null ? post.getGame().getId() : null;
+        TransactionUtils.afterCommit(() ->
+                increment(post.getId(), gameId, postProperties.getHot().getPostWeight()));
+    }
+
+    @Override
+    public void onPostDeleted(Long postId, Long gameId) {
+        TransactionUtils.afterCommit(() -> {
+            try {
+                redisTemplate.opsForZSet().remove(HOT_KEY, postId.toString());
+                if (gameId != null) {
+                    redisTemplate.opsForZSet().remove(GAME_HOT_PREFIX + gameId, postId.toString());
+                }
+            } catch (Exception e) {
+                log.error("移除热门帖子失败: postId={}, error={}", postId, e.getMessage());
+            }
+        });
+    }
+
+    @Override
+    public void onPostMoved(Long postId, Long oldGameId, Long newGameId) {
+        if (Objects.equals(oldGameId, newGameId)) {
+            return;
+        }
+        TransactionUtils.afterCommit(() -> {
+            try {
+                String member = postId.toString();
+                if (oldGameId != null) {
+                    redisTemplate.opsForZSet().remove(GAME_HOT_PREFIX + oldGameId, member);
+                }
+                Double score = redisTemplate.opsForZSet().score(HOT_KEY, member);
+                if (newGameId != null && score != null) {
+                    String gameKey = GAME_HOT_PREFIX + newGameId;
+                    redisTemplate.opsForZSet().add(gameKey, member, score);
+                    redisTemplate.opsForSet().add(HOT_KEYS_INDEX, gameKey);
+                }
+            } catch (Exception e) {
+                log.error("迁移热门帖子失败: postId={}, error={}", postId, e.getMessage());
+            }
+        });
+    }
+
+    @Override
+    public void onPostLiked(Post post, boolean liked) {
+        Long gameId = post.getGame() != null ? post.getGame().getId() : null;
+        double weight = postProperties.getHot().getLikeWeight();
+        TransactionUtils.afterCommit(() -> increment(post.getId(), gameId, liked ? weight : -weight));
+    }
+
+    @Override
+    public void onPostCommented(Post post) {
+        Long gameId = post.getGame() != null ? post.getGame().getId() : null;
+        TransactionUtils.afterCommit(() ->
+                increment(post.getId(), gameId, postProperties.getHot().getCommentWeight()));
+    }
+
+    @Override
+    public void onPostsViewed(Map<Long, Long> viewDeltas) {
+        if (viewDeltas.isEmpty()) {
+            return;
+        }
+        // 浏览量在刷盘时批量计入，一次查询取出所属游戏
+        Map<Long, Long> gameIds = new HashMap<>();
+        for (Object[] row : postRepository.findGameIdsByPostIds(viewDeltas.keySet())) {
+            gameIds.put((Long) row[0], (Long) row[1]);
+        }
+        double weight = postProperties.getHot().getViewWeight();
+        viewDeltas.forEach((postId, delta) -> {
+            if (gameIds.containsKey(postId)) {
+                increment(postId, gameIds.get(postId), delta * weight);
+            }
+        });
+    }
+
+    @Override
+    public Page<Long> getHotPostIds(Long gameId, Pageable pageable) {
+        String key = gameId != null ? GAME_HOT_PREFIX + gameId : HOT_KEY;
+        try {
+            Long total = redisTemplate.opsForZSet().zCard(key);
+            if (total == null || total == 0) {
+                return null;
+            }
+            long start = pageable.getOffset();
+            long end = start + pageable.getPageSize() - 1;
+            Set<String> members = redisTemplate.opsForZSet().reverseRange(key, start, end);
+            List<Long> ids = members == null ? Collections.emptyList() : members.stream()
+                    .map(Long::valueOf)
+                    .collect(Collectors.toList());
+            return new PageImpl<>(ids, pageable, total);
+        } catch (Exception e) {
+            log.error("读取热门帖子排行失败: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    @Scheduled(cron = "${post.hot.decay-cron:0 0 * * * ?}")
+    public void decayScores() {
+        PostProperties.Hot hot = postProperties.getHot();
+        Duration interval = Duration.ofMinutes(hot.getDecayIntervalMinutes());
+        try {
+            // 多个节点只允许一个执行衰减
+            Boolean locked = redisTemplate.opsForValue()
+                    .setIfAbsent(DECAY_LOCK, "1", interval.minusSeconds(30));
+            if (!Boolean.TRUE.equals(locked)) {
+                return;
+            }
+
+            double factor = Math.pow(0.5, hot.getDecayIntervalMinutes() / (hot.getHalfLifeHours() * 60.0));
+            Set<String> keys = redisTemplate.opsForSet().members(HOT_KEYS_INDEX);
+            if (keys == null) {
+                return;
+            }
+            for (String key : keys) {
+                // ZUNIONSTORE key 1 key WEIGHTS factor：所有分数整体乘以衰减系数
+                redisTemplate.opsForZSet().unionAndStore(key, Collections.emptyList(), key,
+                        RedisZSetCommands.Aggregate.SUM, RedisZSetCommands.Weights.of(factor));
+                trim(key);
+            }
+            log.info("热门帖子分数衰减完成，共 {} 个排行", keys.size());
+        } catch (Exception e) {
+            log.error("热门帖子分数衰减失败: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void rebuildRanking() {
+        PostProperties.Hot hot = postProperties.getHot();
+        LocalDateTime now = LocalDateTime.now();
+        List<Post> posts = postRepository.findHotPosts(PageRequest.of(0, hot.getCapacity())).getContent();
+        if (posts.isEmpty()) {
+            return;
+        }
+        for (Post post : posts) {
+            // 把历史互动视为发生在发帖时刻，按帖子年龄衰减
+            double raw = hot.getPostWeight()
+                    + post.getLikeCount() * hot.getLikeWeight()
+                    + post.getViewCount() * hot.getViewWeight()
+                    + post.getCommentCount() * hot.getCommentWeight();
+            double ageHours = post.getCreatedAt() != null
+                    ? Duration.between(post.getCreatedAt(), now).toMinutes() / 60.0 : 0;
+            double score = raw * Math.pow(0.5, ageHours / hot.getHalfLifeHours());
+
+            String member = post.getId().toString();
+            redisTemplate.opsForZSet().add(HOT_KEY, member, score);
+            if (post.getGame() != null) {
+                String gameKey = GAME_HOT_PREFIX + post.getGame().getId();
+                redisTemplate.opsForZSet().add(gameKey, member, score);
+                redisTemplate.opsForSet().add(HOT_KEYS_INDEX, gameKey);
+            }
+        }
+        redisTemplate.opsForSet().add(HOT_KEYS_INDEX, HOT_KEY);
+        log.info("热门帖子排行重建完成，共 {} 个帖子", posts.size());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        try {
+            if (!Boolean.TRUE.equals(redisTemplate.hasKey(HOT_KEY))) {
+                rebuildRanking();
+            }
+        } catch (Exception e) {
+            log.error("热门帖子排行预热失败: {}", e.getMessage());
+        }
+    }
+
+    // 私有辅助方法
+    private void increment(Long postId, Long gameId, double delta) {
+        try {
+            String member = postId.toString();
+            redisTemplate.opsForZSet().incrementScore(HOT_KEY, member, delta);
+            if (gameId != null) {
+                String gameKey = GAME_HOT_PREFIX + gameId;
+                redisTemplate.opsForZSet().incrementScore(gameKey, member, delta);
+                // 登记到索引，供衰减任务遍历
+                redisTemplate.opsForSet().add(HOT_KEYS_INDEX, HOT_KEY, gameKey);
+            } else {
+                redisTemplate.opsForSet().add(HOT_KEYS_INDEX, HOT_KEY);
+            }
+        } catch (Exception e) {
+            log.error("更新热门帖子分数失败: postId={}, error={}", postId, e.getMessage());
+        }
+    }
+
+    private void trim(String key) {
+        // 只保留排名靠前的帖子
+        int capacity = postProperties.getHot().getCapacity();
+        redisTemplate.opsForZSet().removeRange(key, 0, -capacity - 1);
+    }
+}
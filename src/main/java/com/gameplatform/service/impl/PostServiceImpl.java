@@ -1,25 +1,40 @@
 package com.gameplatform.service.impl;
 
 import com.gameplatform.annotation.RequirePermission;
+import com.gameplatform.common.CursorPage;
 import com.gameplatform.exception.BusinessException;
 import com.gameplatform.model.dto.CommentDTO;
 import com.gameplatform.model.dto.PostDTO;
 import com.gameplatform.model.dto.ReportDTO;
-import com.gameplatform.model.dto.UserDTO;
 import com.gameplatform.model.entity.*;
 import com.gameplatform.repository.*;
 import com.gameplatform.service.CacheService;
+import com.gameplatform.service.CommentTreeService;
+import com.gameplatform.service.LikeCounterService;
+import com.gameplatform.service.NotificationFanOutService;
 import com.gameplatform.service.NotificationService;
+import com.gameplatform.service.PostHotRankingService;
 import com.gameplatform.service.PostService;
+import com.gameplatform.service.PostViewCountService;
+import com.gameplatform.service.SearchIndexService;
+import com.gameplatform.service.TimelineService;
+import com.gameplatform.service.assembler.PostDTOAssembler;
+import com.gameplatform.util.CursorUtils;
+import com.gameplatform.util.TransactionUtils;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeanUtils;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -28,6 +43,7 @@ import java.util.stream.Collectors;
  * @date 2024/12/28 19:24
  * @description TODO
  */
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class PostServiceImpl implements PostService {
@@ -40,6 +56,14 @@ public class PostServiceImpl implements PostService {
     private final PostLikeRepository postLikeRepository;
     private final NotificationService notificationService;
     private final CacheService cacheService;
+    private final PostViewCountService postViewCountService;
+    private final LikeCounterService likeCounterService;
+    private final PostHotRankingService postHotRankingService;
+    private final TimelineService timelineService;
+    private final SearchIndexService searchIndexService;
+    private final PostDTOAssembler postDTOAssembler;
+    private final NotificationFanOutService notificationFanOutService;
+    private final CommentTreeService commentTreeService;
 
     @Override
     @Transactional
@@ -53,18 +77,20 @@ public class PostServiceImpl implements PostService {
         }
 
         postRepository.delete(post);
+        postHotRankingService.onPostDeleted(postId, post.getGame() != null ? post.getGame().getId() : null);
+        searchIndexService.removePost(postId);
     }
 
     @Override
-    @Transactional
+    @Transactional(readOnly = true)
     public PostDTO getPostById(Long postId) {
         Post post = postRepository.findById(postId)
                 .orElseThrow(() -> new BusinessException("帖子不存在"));
 
-        // 增加浏览量
-        postRepository.incrementViewCount(postId);
+        // 增加浏览量（先写入内存计数器，定时批量刷盘）
+        postViewCountService.recordView(postId);
 
-        return convertToDTO(post);
+        return postDTOAssembler.toDTO(post);
     }
 
     @Override
@@ -83,6 +109,9 @@ public class PostServiceImpl implements PostService {
         reply.setParentComment(parentComment);
 
         Comment savedReply = commentRepository.save(reply);
+        commentTreeService.attach(savedReply);
+        commentTreeService.onCommentCreated(savedReply);
+        postHotRankingService.onPostCommented(parentComment.getPost());
 
         // 如果回复的不是自己的评论，则发送通知
         if (!parentComment.getAuthor().getId().equals(userId)) {
@@ -98,7 +127,7 @@ public class PostServiceImpl implements PostService {
 
     private CommentDTO convertToCommentDTO(Comment comment) {
         CommentDTO dto = new CommentDTO();
-        BeanUtils.copyProperties(comment, dto);
+        BeanUtils.copyProperties(comment, dto, "replies");
         dto.setAuthorId(comment.getAuthor().getId());
         dto.setAuthorName(comment.getAuthor().getNickname());
         dto.setAuthorAvatar(comment.getAuthor().getAvatar());
@@ -108,13 +137,6 @@ public class PostServiceImpl implements PostService {
             dto.setParentId(comment.getParentComment().getId());
         }
 
-        // 添加回复列表
-        if (comment.getReplies() != null && !comment.getReplies().isEmpty()) {
-            dto.setReplies(comment.getReplies().stream()
-                    .map(this::convertToCommentDTO)
-                    .collect(Collectors.toList()));
-        }
-
         return dto;
     }
 
@@ -129,6 +151,7 @@ public class PostServiceImpl implements PostService {
             throw new BusinessException("无权删除此评论");
         }
 
+        commentTreeService.onCommentDeleted(comment);
         commentRepository.delete(comment);
     }
 
@@ -140,8 +163,8 @@ public class PostServiceImpl implements PostService {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new BusinessException("用户不存在"));
 
-        // 检查是否已收藏
-        if (postLikeRepository.existsByPostIdAndUserId(postId, userId)) {
+        // 检查是否已收藏（收藏与点赞共用点赞记录）
+        if (!likeCounterService.tryLikePost(postId, userId)) {
             throw new BusinessException("已经收藏过此帖子");
         }
 
@@ -149,20 +172,65 @@ public class PostServiceImpl implements PostService {
         postLike.setPost(post);
         postLike.setUser(user);
         postLikeRepository.save(postLike);
+        postHotRankingService.onPostLiked(post, true);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<PostDTO> getHotPosts(Long gameId, Pageable pageable) {
+        Page<Long> hotIds = postHotRankingService.getHotPostIds(gameId, pageable);
+        if (hotIds == null) {
+            // 排行未就绪时回退到数据库排序
+            Page<Post> posts = gameId != null
+                    ? postRepository.findHotPostsByGameId(gameId, pageable)
+                    : postRepository.findHotPosts(pageable);
+            return postDTOAssembler.toDTOPage(posts);
+        }
+
+        return loadPostsInOrder(hotIds);
     }
 
     @Override
     @Transactional(readOnly = true)
-    public Page<PostDTO> getHotPosts(Pageable pageable) {
-        return postRepository.findHotPosts(pageable)
-                .map(this::convertToDTO);
+    public Page<PostDTO> getFollowingFeed(Long userId, Pageable pageable) {
+        Page<Long> postIds;
+        try {
+            postIds = timelineService.getTimelinePostIds(userId, pageable);
+        } catch (Exception e) {
+            // 时间线不可用时回退到数据库查询
+            return postDTOAssembler.toDTOPage(postRepository.findPostsByFollowedUsers(userId, pageable));
+        }
+        return loadPostsInOrder(postIds);
+    }
+
+    // 按ID顺序组装当前页，已删除的帖子直接跳过
+    private Page<PostDTO> loadPostsInOrder(Page<Long> postIds) {
+        Map<Long, Post> posts = postRepository.findAllById(postIds.getContent()).stream()
+                .collect(Collectors.toMap(Post::getId, Function.identity()));
+        List<Post> ordered = postIds.getContent().stream()
+                .map(posts::get)
+                .filter(post -> post != null)
+                .collect(Collectors.toList());
+        return new PageImpl<>(postDTOAssembler.toDTOs(ordered), postIds.getPageable(), postIds.getTotalElements());
     }
 
     @Override
     @Transactional(readOnly = true)
     public Page<PostDTO> getPostsByGame(Long gameId, Pageable pageable) {
-        return postRepository.findByGameId(gameId, pageable)
-                .map(this::convertToDTO);
+        return postDTOAssembler.toDTOPage(postRepository.findByGameId(gameId, pageable));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<PostDTO> getPostsByCursor(Long gameId, String cursor, int size) {
+        CursorUtils.Cursor position = CursorUtils.decode(cursor);
+        List<Post> posts = gameId != null
+                ? postRepository.findPostsByGameBefore(gameId, position.getCreatedAt(), position.getId(),
+                        CursorUtils.limit(size))
+                : postRepository.findPostsBefore(position.getCreatedAt(), position.getId(),
+                        CursorUtils.limit(size));
+        return CursorUtils.toCursorPage(posts, size, Post::getCreatedAt, Post::getId)
+                .mapContent(postDTOAssembler::toDTOs);
     }
 
     @Override
@@ -214,7 +282,8 @@ public class PostServiceImpl implements PostService {
         Post post = postRepository.findById(postId)
                 .orElseThrow(() -> new BusinessException("帖子不存在"));
 
-        if (postLikeRepository.existsByPostIdAndUserId(postId, userId)) {
+        // 原子占位，点赞数在事务提交后以增量方式累加
+        if (!likeCounterService.tryLikePost(postId, userId)) {
             throw new BusinessException("已经点赞过此帖子");
         }
 
@@ -222,9 +291,7 @@ public class PostServiceImpl implements PostService {
         postLike.setPost(post);
         postLike.setUser(userRepository.getReferenceById(userId));
         postLikeRepository.save(postLike);
-
-        post.setLikeCount(post.getLikeCount() + 1);
-        postRepository.save(post);
+        postHotRankingService.onPostLiked(post, true);
 
         // 发送点赞通知
         if (!post.getAuthor().getId().equals(userId)) {
@@ -238,12 +305,11 @@ public class PostServiceImpl implements PostService {
         Post post = postRepository.findById(postId)
                 .orElseThrow(() -> new BusinessException("帖子不存在"));
 
-        PostLike postLike = postLikeRepository.findByPostIdAndUserId(postId, userId)
-                .orElseThrow(() -> new BusinessException("未点赞此帖子"));
-
-        postLikeRepository.delete(postLike);
-        post.setLikeCount(Math.max(0, post.getLikeCount() - 1));
-        postRepository.save(post);
+        if (!likeCounterService.tryUnlikePost(postId, userId)
+                || postLikeRepository.removeLike(postId, userId) == 0) {
+            throw new BusinessException("未点赞此帖子");
+        }
+        postHotRankingService.onPostLiked(post, false);
     }
 
     @Override
@@ -266,11 +332,16 @@ public class PostServiceImpl implements PostService {
         }
 
         Post savedPost = postRepository.save(post);
+        postHotRankingService.onPostCreated(savedPost);
+        searchIndexService.indexPost(savedPost);
+        // 提交后异步推送到关注者时间线
+        TransactionUtils.afterCommit(() ->
+                timelineService.fanOutPost(savedPost.getId(), userId, savedPost.getCreatedAt()));
 
-        // 通知关注者
-        notifyFollowers(savedPost);
+        // 通知关注者：提交后由后台任务分批写入
+        notificationFanOutService.enqueueNewPost(savedPost);
 
-        return convertToDTO(savedPost);
+        return postDTOAssembler.toDTO(savedPost);
     }
 
     @Override
@@ -293,10 +364,14 @@ public class PostServiceImpl implements PostService {
                 (post.getGame() == null || !post.getGame().getId().equals(postDTO.getGameId()))) {
             Game game = gameRepository.findById(postDTO.getGameId())
                     .orElseThrow(() -> new BusinessException("游戏不存在"));
+            postHotRankingService.onPostMoved(postId,
+                    post.getGame() != null ? post.getGame().getId() : null, game.getId());
             post.setGame(game);
         }
 
-        return convertToDTO(postRepository.save(post));
+        Post updatedPost = postRepository.save(post);
+        searchIndexService.indexPost(updatedPost);
+        return postDTOAssembler.toDTO(updatedPost);
     }
 
     @Override
@@ -304,12 +379,21 @@ public class PostServiceImpl implements PostService {
     public Page<PostDTO> searchPosts(String keyword, Pageable pageable) {
         Page<Post> posts;
         if (keyword != null && !keyword.trim().isEmpty()) {
+            Page<Long> postIds = null;
+            try {
+                postIds = searchIndexService.searchPosts(keyword.trim(), pageable);
+            } catch (Exception e) {
+                log.error("全文检索失败，回退到数据库查询: {}", e.getMessage());
+            }
+            if (postIds != null) {
+                return loadPostsInOrder(postIds);
+            }
             posts = postRepository.findByTitleContainingOrContentContaining(
-                    keyword.trim(), keyword.trim(), pageable);
+                    keyword.trim(), keyword.trim(), SearchIndexService.withoutRelevance(pageable));
         } else {
-            posts = postRepository.findAll(pageable);
+            posts = postRepository.findAll(SearchIndexService.withoutRelevance(pageable));
         }
-        return posts.map(this::convertToDTO);
+        return postDTOAssembler.toDTOPage(posts);
     }
 
     @Override
@@ -327,6 +411,9 @@ public class PostServiceImpl implements PostService {
         comment.setCreatedAt(LocalDateTime.now());
 
         Comment savedComment = commentRepository.save(comment);
+        commentTreeService.attach(savedComment);
+        commentTreeService.onCommentCreated(savedComment);
+        postHotRankingService.onPostCommented(post);
 
         // 通知帖子作者
         if (!post.getAuthor().getId().equals(userId)) {
@@ -335,26 +422,4 @@ public class PostServiceImpl implements PostService {
 
         return convertToCommentDTO(savedComment);
     }
-
-    private void notifyFollowers(Post post) {
-        post.getAuthor().getFollowers().forEach(follower ->
-                notificationService.sendNewPostNotification(follower, post));
-    }
-
-    private PostDTO convertToDTO(Post post) {
-        PostDTO dto = new PostDTO();
-        BeanUtils.copyProperties(post, dto);
-        dto.setAuthor(convertToUserDTO(post.getAuthor()));
-        if (post.getGame() != null) {
-            dto.setGameId(post.getGame().getId());
-            dto.setGameName(post.getGame().getTitle());
-        }
-        return dto;
-    }
-
-    private UserDTO convertToUserDTO(User user) {
-        UserDTO dto = new UserDTO();
-        BeanUtils.copyProperties(user, dto, "password");
-        return dto;
-    }
 }
\ No newline at end of file
@@ -0,0 +1,73 @@
+package com.gameplatform.service.impl;
+
+import com.gameplatform.repository.PostRepository;
+import com.gameplatform.service.PostHotRankingService;
+import com.gameplatform.service.PostViewCountService;
+import com.gameplatform.util.CounterBuffer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.util.Map;
+
+/**
+ * @author SakurazawaRyoko
+ * @version 1.0
+ * @date 2025/01/10 14:25
+ * @description TODO
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PostViewCountServiceImpl implements PostViewCountService {
+
+    private final PostRepository postRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final PostHotRankingService postHotRankingService;
+
+    private final CounterBuffer pendingViews = new CounterBuffer();
+
+    @Override
+    public void recordView(Long postId) {
+        pendingViews.add(postId, 1);
+    }
+
+    @Override
+    public long getPendingViews(Long postId) {
+        return pendingViews.get(postId);
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${post.view-count.flush-interval:10000}")
+    public void flushPendingViews() {
+        Map<Long, Long> drained = pendingViews.drain();
+        if (drained.isEmpty()) {
+            return;
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    drained.forEach(postRepository::addViewCount));
+            log.debug("浏览量刷盘完成，共 {} 个帖子", drained.size());
+        } catch (Exception e) {
+            pendingViews.restore(drained);
+            log.error("浏览量刷盘失败: {}", e.getMessage());
+            return;
+        }
+
+        try {
+            postHotRankingService.onPostsViewed(drained);
+        } catch (Exception e) {
+            log.error("浏览量计入热度失败: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        log.info("应用关闭，刷写剩余浏览量");
+        flushPendingViews();
+    }
+}
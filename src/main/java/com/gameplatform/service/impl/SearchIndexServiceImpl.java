@@ -0,0 +1,449 @@
+package com.gameplatform.service.impl;
+
+import com.gameplatform.config.properties.SearchProperties;
+import com.gameplatform.model.dto.GameSearchDTO;
+import com.gameplatform.model.entity.Game;
+import com.gameplatform.model.entity.Post;
+import com.gameplatform.model.message.SearchIndexMessage;
+import com.gameplatform.repository.GameRepository;
+import com.gameplatform.repository.PostRepository;
+import com.gameplatform.service.SearchIndexService;
+import com.gameplatform.util.TransactionUtils;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.cjk.CJKAnalyzer;
+import org.apache.lucene.document.*;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.*;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.util.QueryBuilder;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jms.core.JmsTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.jms.Topic;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * @author SakurazawaRyoko
+ * @version 1.0
+ * @date 2025/01/11 14:40
+ * @description TODO
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SearchIndexServiceImpl implements SearchIndexService {
+
+    private final PostRepository postRepository;
+    private final GameRepository gameRepository;
+    private final SearchProperties searchProperties;
+    private final TransactionTemplate transactionTemplate;
+    private final JmsTemplate jmsTemplate;
+    private final Topic searchIndexTopic;
+
+    private static final String FIELD_ID = "id";
+    private static final String FIELD_TITLE = "title";
+    private static final String FIELD_CONTENT = "content";
+    private static final String FIELD_CATEGORY = "category";
+    private static final String FIELD_RATING = "rating";
+
+    private static final String TYPE_POST = "POST";
+    private static final String TYPE_GAME = "GAME";
+
+    // 本实例标识，过滤自己广播出去的变更
+    private final String node = UUID.randomUUID().toString();
+
+    // CJK按二元组切分，英文按词切分并转小写
+    private final Analyzer analyzer = new CJKAnalyzer();
+    private IndexHolder postIndex;
+    private IndexHolder gameIndex;
+    // 重建期间查询回退到数据库
+    private volatile boolean ready = false;
+
+    @PostConstruct
+    public void init() throws IOException {
+        postIndex = new IndexHolder(Paths.get(searchProperties.getIndexPath(), "posts").toString(), analyzer);
+        gameIndex = new IndexHolder(Paths.get(searchProperties.getIndexPath(), "games").toString(), analyzer);
+    }
+
+    @PreDestroy
+    public void close() {
+        postIndex.close();
+        gameIndex.close();
+    }
+
+    @Override
+    public void indexPost(Post post) {
+        if (post.getStatus() != Post.PostStatus.NORMAL) {
+            removePost(post.getId());
+            return;
+        }
+        // 在事务内取出字段，提交后再写索引
+        Document document = toDocument(post);
+        String id = post.getId().toString();
+        TransactionUtils.afterCommit(() -> {
+            postIndex.update(id, document);
+            publish(TYPE_POST, post.getId());
+        });
+    }
+
+    @Override
+    public void removePost(Long postId) {
+        TransactionUtils.afterCommit(() -> {
+            postIndex.delete(postId.toString());
+            publish(TYPE_POST, postId);
+        });
+    }
+
+    @Override
+    public void indexGame(Game game) {
+        Document document = toDocument(game);
+        String id = game.getId().toString();
+        TransactionUtils.afterCommit(() -> {
+            gameIndex.update(id, document);
+            publish(TYPE_GAME, game.getId());
+        });
+    }
+
+    @Override
+    public void removeGame(Long gameId) {
+        TransactionUtils.afterCommit(() -> {
+            gameIndex.delete(gameId.toString());
+            publish(TYPE_GAME, gameId);
+        });
+    }
+
+    @Override
+    public void applyRemoteChange(SearchIndexMessage message) {
+        if (node.equals(message.getNode())) {
+            return;
+        }
+        String id = message.getId().toString();
+        if (TYPE_POST.equals(message.getType())) {
+            // 消息只带ID，按数据库中的最新状态更新，消息乱序也不会写入旧内容
+            Document document = transactionTemplate.execute(status -> postRepository.findById(message.getId())
+                    .filter(post -> post.getStatus() == Post.PostStatus.NORMAL)
+                    .map(this::toDocument)
+                    .orElse(null));
+            if (document != null) {
+                postIndex.update(id, document);
+            } else {
+                postIndex.delete(id);
+            }
+        } else if (TYPE_GAME.equals(message.getType())) {
+            Document document = transactionTemplate.execute(status -> gameRepository.findById(message.getId())
+                    .map(this::toDocument)
+                    .orElse(null));
+            if (document != null) {
+                gameIndex.update(id, document);
+            } else {
+                gameIndex.delete(id);
+            }
+        }
+    }
+
+    @Override
+    public Page<Long> searchPosts(String keyword, Pageable pageable) {
+        if (!ready || !SearchIndexService.isRelevanceOrder(pageable)) {
+            return null;
+        }
+        Query query = buildTextQuery(keyword);
+        if (query == null) {
+            return null;
+        }
+        return postIndex.search(query, pageable, searchProperties.getMaxResults());
+    }
+
+    @Override
+    public Page<Long> searchGames(GameSearchDTO searchDTO, Pageable pageable) {
+        if (!ready || !SearchIndexService.isRelevanceOrder(pageable)) {
+            return null;
+        }
+        BooleanQuery.Builder builder = new BooleanQuery.Builder();
+        boolean scored = false;
+        if (searchDTO.getTitle() != null && !searchDTO.getTitle().trim().isEmpty()) {
+            Query text = buildTextQuery(searchDTO.getTitle());
+            if (text == null) {
+                return null;
+            }
+            builder.add(text, BooleanClause.Occur.MUST);
+            scored = true;
+        }
+        if (searchDTO.getCategories() != null && !searchDTO.getCategories().isEmpty()) {
+            BooleanQuery.Builder categories = new BooleanQuery.Builder();
+            for (String category : searchDTO.getCategories()) {
+                categories.add(new TermQuery(new Term(FIELD_CATEGORY, category)), BooleanClause.Occur.SHOULD);
+            }
+            builder.add(categories.build(), BooleanClause.Occur.FILTER);
+        }
+        if (searchDTO.getMinRating() != null) {
+            builder.add(DoublePoint.newRangeQuery(FIELD_RATING, searchDTO.getMinRating(), Double.POSITIVE_INFINITY),
+                    BooleanClause.Occur.FILTER);
+        }
+        if (!scored) {
+            builder.add(new MatchAllDocsQuery(), BooleanClause.Occur.MUST);
+        }
+        return gameIndex.search(builder.build(), pageable, searchProperties.getMaxResults());
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${search.commit-interval:30000}")
+    public void commit() {
+        postIndex.commit();
+        gameIndex.commit();
+    }
+
+    @Override
+    @Scheduled(cron = "${search.rebuild-cron:0 30 4 * * ?}")
+    public void rebuildIndex() {
+        ready = false;
+        try {
+            postIndex.clear();
+            int posts = reindexAll(postIndex, lastId -> postRepository.findByIdGreaterThanOrderByIdAsc(
+                    lastId, PageRequest.of(0, searchProperties.getRebuildBatchSize())),
+                    Post::getId, post -> post.getStatus() == Post.PostStatus.NORMAL ? toDocument(post) : null);
+
+            gameIndex.clear();
+            int games = reindexAll(gameIndex, lastId -> gameRepository.findByIdGreaterThanOrderByIdAsc(
+                    lastId, PageRequest.of(0, searchProperties.getRebuildBatchSize())),
+                    Game::getId, this::toDocument);
+
+            commit();
+            postIndex.refresh();
+            gameIndex.refresh();
+            ready = true;
+            log.info("搜索索引重建完成: posts={}, games={}", posts, games);
+        } catch (Exception e) {
+            // 索引不完整，保持回退到数据库查询直到下次重建成功
+            log.error("搜索索引重建失败: {}", e.getMessage());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        try {
+            // 索引目录为空（首次启动或被清理）时从数据库全量构建
+            if (postIndex.numDocs() == 0 && postRepository.count() > 0
+                    || gameIndex.numDocs() == 0 && gameRepository.count() > 0) {
+                rebuildIndex();
+            } else {
+                ready = true;
+            }
+        } catch (Exception e) {
+            log.error("搜索索引预热失败: {}", e.getMessage());
+        }
+    }
+
+    // 私有辅助方法
+
+    // 广播失败时其他实例的索引暂时落后，由每日全量重建修正
+    private void publish(String type, Long id) {
+        try {
+            jmsTemplate.convertAndSend(searchIndexTopic, new SearchIndexMessage(node, type, id));
+        } catch (Exception e) {
+            log.error("广播搜索索引变更失败: type={}, id={}, error={}", type, id, e.getMessage());
+        }
+    }
+
+    private <T> int reindexAll(IndexHolder index, Function<Long, List<T>> batchLoader,
+                               Function<T, Long> idGetter, Function<T, Document> converter) {
+        int total = 0;
+        long lastId = 0L;
+        while (true) {
+            long afterId = lastId;
+            // 每批单独开只读事务，便于加载懒加载的集合属性
+            List<Document> documents = new ArrayList<>();
+            Long batchLastId = transactionTemplate.execute(status -> {
+                List<T> batch = batchLoader.apply(afterId);
+                for (T entity : batch) {
+                    Document document = converter.apply(entity);
+                    if (document != null) {
+                        documents.add(document);
+                    }
+                }
+                return batch.isEmpty() ? null : idGetter.apply(batch.get(batch.size() - 1));
+            });
+            if (batchLastId == null) {
+                return total;
+            }
+            for (Document document : documents) {
+                index.update(document.get(FIELD_ID), document, false);
+            }
+            total += documents.size();
+            lastId = batchLastId;
+        }
+    }
+
+    // 返回null表示索引无法处理该关键词，由调用方回退到数据库
+    private Query buildTextQuery(String keyword) {
+        String text = keyword.trim();
+        // 索引中汉字按二元组存储，单字查询无法命中
+        if (text.length() < 2) {
+            return null;
+        }
+        QueryBuilder queryBuilder = new QueryBuilder(analyzer);
+        BooleanQuery.Builder builder = new BooleanQuery.Builder();
+        int clauses = 0;
+
+        // 短语匹配相当于子串命中，标题权重更高；词项匹配兜底召回
+        clauses += addClause(builder, queryBuilder.createPhraseQuery(FIELD_TITLE, text), 6f);
+        clauses += addClause(builder, queryBuilder.createPhraseQuery(FIELD_CONTENT, text), 3f);
+        clauses += addClause(builder, queryBuilder.createMinShouldMatchQuery(FIELD_TITLE, text, 0.6f), 2f);
+        clauses += addClause(builder, queryBuilder.createMinShouldMatchQuery(FIELD_CONTENT, text, 0.6f), 1f);
+
+        return clauses > 0 ? builder.build() : null;
+    }
+
+    private int addClause(BooleanQuery.Builder builder, Query query, float boost) {
+        if (query == null) {
+            return 0;
+        }
+        builder.add(new BoostQuery(query, boost), BooleanClause.Occur.SHOULD);
+        return 1;
+    }
+
+    private Document toDocument(Post post) {
+        Document document = new Document();
+        document.add(new StringField(FIELD_ID, post.getId().toString(), Field.Store.YES));
+        document.add(new TextField(FIELD_TITLE, nullToEmpty(post.getTitle()), Field.Store.NO));
+        document.add(new TextField(FIELD_CONTENT, nullToEmpty(post.getContent()), Field.Store.NO));
+        return document;
+    }
+
+    private Document toDocument(Game game) {
+        Document document = new Document();
+        document.add(new StringField(FIELD_ID, game.getId().toString(), Field.Store.YES));
+        document.add(new TextField(FIELD_TITLE, nullToEmpty(game.getTitle()), Field.Store.NO));
+        document.add(new TextField(FIELD_CONTENT, nullToEmpty(game.getDescription()), Field.Store.NO));
+        if (game.getCategories() != null) {
+            for (String category : game.getCategories()) {
+                document.add(new StringField(FIELD_CATEGORY, category, Field.Store.NO));
+            }
+        }
+        document.add(new DoublePoint(FIELD_RATING, game.getRating() != null ? game.getRating() : 0.0));
+        return document;
+    }
+
+    private String nullToEmpty(String value) {
+        return value != null ? value : "";
+    }
+
+    // 单个索引目录：常驻IndexWriter，配合SearcherManager做近实时查询
+    private static class IndexHolder {
+        private final String path;
+        private final Directory directory;
+        private final IndexWriter writer;
+        private final SearcherManager searcherManager;
+
+        IndexHolder(String path, Analyzer analyzer) throws IOException {
+            this.path = path;
+            this.directory = FSDirectory.open(Paths.get(path));
+            IndexWriterConfig config = new IndexWriterConfig(analyzer);
+            config.setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND);
+            this.writer = new IndexWriter(directory, config);
+            this.searcherManager = new SearcherManager(writer, null);
+        }
+
+        void update(String id, Document document) {
+            update(id, document, true);
+        }
+
+        void update(String id, Document document, boolean refresh) {
+            try {
+                writer.updateDocument(new Term(FIELD_ID, id), document);
+                if (refresh) {
+                    searcherManager.maybeRefresh();
+                }
+            } catch (IOException e) {
+                log.error("写入搜索索引失败: path={}, id={}, error={}", path, id, e.getMessage());
+            }
+        }
+
+        void delete(String id) {
+            try {
+                writer.deleteDocuments(new Term(FIELD_ID, id));
+                searcherManager.maybeRefresh();
+            } catch (IOException e) {
+                log.error("删除搜索索引失败: path={}, id={}, error={}", path, id, e.getMessage());
+            }
+        }
+
+        Page<Long> search(Query query, Pageable pageable, int maxResults) {
+            int offset = (int) Math.min(pageable.getOffset(), maxResults);
+            int limit = Math.min(offset + pageable.getPageSize(), maxResults);
+            IndexSearcher searcher = null;
+            try {
+                searcher = searcherManager.acquire();
+                TopScoreDocCollector collector = TopScoreDocCollector.create(Math.max(limit, 1), Integer.MAX_VALUE);
+                searcher.search(query, collector);
+                TopDocs topDocs = collector.topDocs(offset, limit - offset);
+
+                List<Long> ids = new ArrayList<>(topDocs.scoreDocs.length);
+                for (ScoreDoc scoreDoc : topDocs.scoreDocs) {
+                    ids.add(Long.valueOf(searcher.doc(scoreDoc.doc).get(FIELD_ID)));
+                }
+                long total = Math.min(collector.getTotalHits(), maxResults);
+                return new PageImpl<>(ids, pageable, total);
+            } catch (IOException e) {
+                throw new IllegalStateException("搜索索引查询失败: " + e.getMessage(), e);
+            } finally {
+                if (searcher != null) {
+                    try {
+                        searcherManager.release(searcher);
+                    } catch (IOException e) {
+                        log.warn("释放索引搜索器失败: {}", e.getMessage());
+                    }
+                }
+            }
+        }
+
+        void clear() throws IOException {
+            writer.deleteAll();
+        }
+
+        void refresh() throws IOException {
+            searcherManager.maybeRefreshBlocking();
+        }
+
+        void commit() {
+            try {
+                if (writer.hasUncommittedChanges()) {
+                    writer.commit();
+                }
+            } catch (IOException e) {
+                log.error("搜索索引落盘失败: path={}, error={}", path, e.getMessage());
+            }
+        }
+
+        int numDocs() {
+            return writer.getDocStats().numDocs;
+        }
+
+        void close() {
+            try {
+                searcherManager.close();
+                writer.close();
+                directory.close();
+            } catch (IOException e) {
+                log.error("关闭搜索索引失败: path={}, error={}", path, e.getMessage());
+            }
+        }
+    }
+}
@@ -3,6 +3,7 @@ package com.gameplatform.service.impl;
 import com.gameplatform.model.dto.StatisticsDTO;
 import com.gameplatform.model.entity.*;
 import com.gameplatform.repository.*;
+import com.gameplatform.service.GameHistogramService;
 import com.gameplatform.service.StatisticsService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.cache.annotation.Cacheable;
@@ -32,6 +33,7 @@ public class StatisticsServiceImpl implements StatisticsService {
     private final EventRegistrationRepository eventRegistrationRepository;
     private final UserGameRepository userGameRepository;
     private final DailyStatisticsRepository dailyStatisticsRepository;
+    private final GameHistogramService gameHistogramService;
 
     @Override
     @Cacheable(value = "statistics", key = "'overview'")
@@ -116,11 +118,11 @@ public class StatisticsServiceImpl implements StatisticsService {
         stats.put("eventCount", eventRepository.countByGameId(gameId));
 
         // 玩家数据分布
-        Map<String, Long> playTimeDistribution = userGameRepository.getPlayTimeDistribution(gameId);
+        Map<String, Long> playTimeDistribution = gameHistogramService.getPlayTimeDistribution(gameId);
         stats.put("playTimeDistribution", playTimeDistribution);
 
         // 评分分布
-        Map<Integer, Long> ratingDistribution = userGameRepository.getRatingDistribution(gameId);
+        Map<Integer, Long> ratingDistribution = gameHistogramService.getRatingDistribution(gameId);
         stats.put("ratingDistribution", ratingDistribution);
 
         return stats;
@@ -0,0 +1,213 @@
+package com.gameplatform.service.impl;
+
+import com.gameplatform.config.properties.PostProperties;
+import com.gameplatform.repository.PostRepository;
+import com.gameplatform.repository.UserRepository;
+import com.gameplatform.service.TimelineService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * @author SakurazawaRyoko
+ * @version 1.0
+ * @date 2025/01/11 15:35
+ * @description TODO
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TimelineServiceImpl implements TimelineService {
+
+    private final UserRepository userRepository;
+    private final PostRepository postRepository;
+    private final RedisTemplate<String, String> redisTemplate;
+    private final PostProperties postProperties;
+
+    private static final String TIMELINE_PREFIX = "timeline:";
+    private static final String TIMELINE_BUILT_PREFIX = "timeline:built:";
+    private static final String OUTBOX_PREFIX = "timeline:outbox:";
+    private static final String CELEBRITIES_KEY = "timeline:celebrities";
+    // 用户关注的作者ID集合，与时间线一起重建，读取时和大V集合在Redis中求交集
+    private static final String FOLLOWING_PREFIX = "timeline:following:";
+
+    @Override
+    @Async("timelineFanOutExecutor")
+    public void fanOutPost(Long postId, Long authorId, LocalDateTime createdAt) {
+        PostProperties.Timeline config = postProperties.getTimeline();
+        String member = postId.toString();
+        long score = toScore(createdAt);
+        try {
+            // 作者发件箱：供大V的粉丝拉取，也用于重建
+            String outbox = OUTBOX_PREFIX + authorId;
+            redisTemplate.opsForZSet().add(outbox, member, score);
+            redisTemplate.opsForZSet().removeRange(outbox, 0, -config.getCapacity() - 1);
+
+            long followerCount = userRepository.countFollowersByUserId(authorId);
+            if (followerCount > config.getFanOutThreshold()) {
+                // 粉丝过多的作者不推送，由读取方合并其发件箱
+                redisTemplate.opsForSet().add(CELEBRITIES_KEY, authorId.toString());
+                log.debug("作者粉丝数 {} 超过推送阈值，改为拉取模式: authorId={}", followerCount, authorId);
+                return;
+            }
+            redisTemplate.opsForSet().remove(CELEBRITIES_KEY, authorId.toString());
+
+            long lastFollowerId = 0L;
+            int pushed = 0;
+            while (true) {
+                List<Long> followerIds = userRepository.findFollowerIdsAfter(authorId, lastFollowerId,
+                        PageRequest.of(0, config.getFanOutBatchSize()));
+                if (followerIds.isEmpty()) {
+                    break;
+                }
+                pushToTimelines(followerIds, member, score);
+                pushed += followerIds.size();
+                lastFollowerId = followerIds.get(followerIds.size() - 1);
+            }
+            log.debug("帖子推送完成: postId={}, followers={}", postId, pushed);
+        } catch (Exception e) {
+            log.error("帖子推送到关注者时间线失败: postId={}, error={}", postId, e.getMessage());
+        }
+    }
+
+    @Override
+    public Page<Long> getTimelinePostIds(Long userId, Pageable pageable) {
+        String key = TIMELINE_PREFIX + userId;
+        ensureTimeline(userId);
+
+        long start = pageable.getOffset();
+        long end = start + pageable.getPageSize() - 1;
+
+        List<Long> celebrities = getFollowedCelebrities(userId);
+        if (celebrities.isEmpty()) {
+            // 普通情况：一次范围读取
+            Set<String> members = redisTemplate.opsForZSet().reverseRange(key, start, end);
+            Long total = redisTemplate.opsForZSet().zCard(key);
+            return new PageImpl<>(toIds(members), pageable, total != null ? total : 0L);
+        }
+
+        // 混合模式：时间线与关注的大V发件箱按时间归并
+        Map<String, Double> merged = new HashMap<>();
+        long unread = 0;
+        List<String> keys = new ArrayList<>();
+        keys.add(key);
+        celebrities.forEach(id -> keys.add(OUTBOX_PREFIX + id));
+        for (String source : keys) {
+            Set<ZSetOperations.TypedTuple<String>> tuples =
+                    redisTemplate.opsForZSet().reverseRangeWithScores(source, 0, end);
+            if (tuples != null) {
+                tuples.forEach(tuple -> merged.merge(tuple.getValue(), tuple.getScore(), Math::max));
+            }
+            Long size = redisTemplate.opsForZSet().zCard(source);
+            unread += Math.max(0L, (size != null ? size : 0L) - (end + 1));
+        }
+        // 已读取部分按去重后的数量计算，同一帖子可能同时在时间线和发件箱中；
+        // 超出读取范围的部分无法去重，按上界计入
+        long total = merged.size() + unread;
+        List<Long> ids = merged.entrySet().stream()
+                .sorted(Map.Entry.<String, Double>comparingByValue().reversed())
+                .skip(start)
+                .limit(pageable.getPageSize())
+                .map(entry -> Long.valueOf(entry.getKey()))
+                .collect(Collectors.toList());
+        return new PageImpl<>(ids, pageable, total);
+    }
+
+    @Override
+    public void invalidateTimeline(Long userId) {
+        try {
+            redisTemplate.delete(Arrays.asList(TIMELINE_PREFIX + userId, TIMELINE_BUILT_PREFIX + userId,
+                    FOLLOWING_PREFIX + userId));
+        } catch (Exception e) {
+            log.error("清除时间线失败: userId={}, error={}", userId, e.getMessage());
+        }
+    }
+
+    // 私有辅助方法
+    private void ensureTimeline(Long userId) {
+        PostProperties.Timeline config = postProperties.getTimeline();
+        String key = TIMELINE_PREFIX + userId;
+        String builtKey = TIMELINE_BUILT_PREFIX + userId;
+        String followingKey = FOLLOWING_PREFIX + userId;
+        if (Boolean.TRUE.equals(redisTemplate.hasKey(builtKey))) {
+            redisTemplate.expire(key, config.getTtlDays(), TimeUnit.DAYS);
+            redisTemplate.expire(followingKey, config.getTtlDays(), TimeUnit.DAYS);
+            redisTemplate.expire(builtKey, config.getTtlDays(), TimeUnit.DAYS);
+            return;
+        }
+
+        // 关注列表随时间线一起加载，关注或取消关注时一起失效
+        List<Long> following = userRepository.findFollowingIds(userId);
+        redisTemplate.delete(followingKey);
+        if (!following.isEmpty()) {
+            redisTemplate.opsForSet().add(followingKey,
+                    following.stream().map(String::valueOf).toArray(String[]::new));
+            redisTemplate.expire(followingKey, config.getTtlDays(), TimeUnit.DAYS);
+        }
+
+        // 时间线不存在或已过期时从数据库重建
+        List<Object[]> entries = postRepository.findFeedEntriesByFollower(userId,
+                PageRequest.of(0, config.getCapacity()));
+        redisTemplate.delete(key);
+        for (Object[] entry : entries) {
+            LocalDateTime createdAt = (LocalDateTime) entry[1];
+            redisTemplate.opsForZSet().add(key, entry[0].toString(), toScore(createdAt));
+        }
+        redisTemplate.expire(key, config.getTtlDays(), TimeUnit.DAYS);
+        redisTemplate.opsForValue().set(builtKey, "1", config.getTtlDays(), TimeUnit.DAYS);
+        log.debug("时间线重建完成: userId={}, posts={}", userId, entries.size());
+    }
+
+    // 作者超过推送阈值时加入大V集合，求交集即可得到，无需查询数据库
+    private List<Long> getFollowedCelebrities(Long userId) {
+        return toIds(redisTemplate.opsForSet().intersect(FOLLOWING_PREFIX + userId, CELEBRITIES_KEY));
+    }
+
+    private void pushToTimelines(List<Long> followerIds, String member, long score) {
+        PostProperties.Timeline config = postProperties.getTimeline();
+        redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) throws DataAccessException {
+                RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+                for (Long followerId : followerIds) {
+                    String key = TIMELINE_PREFIX + followerId;
+                    ops.opsForZSet().add(key, member, score);
+                    ops.opsForZSet().removeRange(key, 0, -config.getCapacity() - 1);
+                    ops.expire(key, config.getTtlDays(), TimeUnit.DAYS);
+                }
+                return null;
+            }
+        });
+    }
+
+    private List<Long> toIds(Collection<String> members) {
+        if (members == null) {
+            return Collections.emptyList();
+        }
+        return members.stream().map(Long::valueOf).collect(Collectors.toList());
+    }
+
+    private long toScore(LocalDateTime createdAt) {
+        if (createdAt == null) {
+            return System.currentTimeMillis();
+        }
+        return createdAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
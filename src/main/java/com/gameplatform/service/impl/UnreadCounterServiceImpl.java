@@ -0,0 +1,210 @@
+package com.gameplatform.service.impl;
+
+import com.gameplatform.config.properties.NotificationProperties;
+import com.gameplatform.model.dto.UnreadCountDTO;
+import com.gameplatform.model.entity.Notification;
+import com.gameplatform.repository.NotificationRepository;
+import com.gameplatform.service.UnreadCounterService;
+import com.gameplatform.util.TransactionUtils;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author SakurazawaRyoko
+ * @version 1.0
+ * @date 2025/01/13 14:10
+ * @description TODO
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class UnreadCounterServiceImpl implements UnreadCounterService {
+
+    private final NotificationRepository notificationRepository;
+    private final RedisTemplate<String, String> redisTemplate;
+    private final NotificationProperties notificationProperties;
+
+    private static final String UNREAD_PREFIX = "notification:unread:";
+    // 计数未加载期间发生的变更次数，重建前后不一致说明读到的数据库结果可能已过时
+    private static final String VERSION_PREFIX = "notification:unread:version:";
+
+    // 只在计数已加载时调整，未加载时递增版本号使进行中的重建作废；计数不会减到负数
+    private static final byte[] ADJUST_SCRIPT = ("if redis.call('EXISTS', KEYS[1]) == 0 then " +
+            "redis.call('INCR', KEYS[2]) redis.call('EXPIRE', KEYS[2], ARGV[3]) return -1 end " +
+            "local value = redis.call('HINCRBY', KEYS[1], ARGV[1], ARGV[2]) " +
+            "if value < 0 then redis.call('HSET', KEYS[1], ARGV[1], 0) return 0 end " +
+            "return value").getBytes(StandardCharsets.UTF_8);
+
+    private static final byte[] INVALIDATE_SCRIPT = ("redis.call('DEL', KEYS[1]) " +
+            "local version = redis.call('INCR', KEYS[2]) redis.call('EXPIRE', KEYS[2], ARGV[1]) " +
+            "return version").getBytes(StandardCharsets.UTF_8);
+
+    // 计数仍未加载且期间没有变更时才写入重建结果，否则放弃，下次读取再重建
+    private static final DefaultRedisScript<Long> REBUILD_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('EXISTS', KEYS[1]) == 1 then return 0 end " +
+            "if (redis.call('GET', KEYS[2]) or '') ~= ARGV[1] then return 0 end " +
+            "for i = 3, #ARGV, 2 do redis.call('HSET', KEYS[1], ARGV[i], ARGV[i + 1]) end " +
+            "redis.call('EXPIRE', KEYS[1], ARGV[2]) " +
+            "return 1", Long.class);
+
+    @Override
+    public void onCreated(Long userId, Notification.NotificationType type) {
+        onCreated(Collections.singletonList(userId), type);
+    }
+
+    @Override
+    public void onCreated(List<Long> userIds, Notification.NotificationType type) {
+        TransactionUtils.afterCommit(() -> adjust(userIds, type, 1));
+    }
+
+    @Override
+    public void onRead(Long userId, Notification.NotificationType type) {
+        TransactionUtils.afterCommit(() -> adjust(Collections.singletonList(userId), type, -1));
+    }
+
+    @Override
+    public void onAllRead(Long userId) {
+        TransactionUtils.afterCommit(() -> {
+            try {
+                Map<String, String> zeros = new HashMap<>();
+                for (Notification.NotificationType type : Notification.NotificationType.values()) {
+                    zeros.put(type.name(), "0");
+                }
+                String key = UNREAD_PREFIX + userId;
+                redisTemplate.opsForHash().putAll(key, zeros);
+                redisTemplate.expire(key, notificationProperties.getUnread().getTtlHours(), TimeUnit.HOURS);
+            } catch (Exception e) {
+                log.error("重置未读计数失败: userId={}, error={}", userId, e.getMessage());
+                evict(userId);
+            }
+        });
+    }
+
+    @Override
+    public void evict(Long userId) {
+        try {
+            invalidate(Collections.singletonList(userId));
+        } catch (Exception e) {
+            log.error("清除未读计数失败: userId={}, error={}", userId, e.getMessage());
+        }
+    }
+
+    @Override
+    public UnreadCountDTO getUnreadCount(Long userId) {
+        String key = UNREAD_PREFIX + userId;
+        String versionKey = VERSION_PREFIX + userId;
+        Map<Object, Object> hash;
+        String version;
+        try {
+            hash = redisTemplate.opsForHash().entries(key);
+            version = hash.isEmpty() ? redisTemplate.opsForValue().get(versionKey) : null;
+        } catch (Exception e) {
+            log.error("读取未读计数失败，回退到数据库: {}", e.getMessage());
+            return toDTO(loadCounts(userId));
+        }
+        if (!hash.isEmpty()) {
+            Map<String, Long> counts = new HashMap<>();
+            hash.forEach((type, count) -> counts.put((String) type, Long.parseLong((String) count)));
+            return toDTO(counts);
+        }
+
+        // 未命中时一次分组查询重建，所有类型都写入，计数为0的用户也能命中；
+        // 版本号在查询前读取，查询期间提交的变更会使本次重建放弃写入
+        Map<String, Long> counts = loadCounts(userId);
+        try {
+            List<String> args = new ArrayList<>();
+            args.add(version != null ? version : "");
+            args.add(Long.toString(ttlSeconds()));
+            counts.forEach((type, count) -> {
+                args.add(type);
+                args.add(count.toString());
+            });
+            redisTemplate.execute(REBUILD_SCRIPT, Arrays.asList(key, versionKey), args.toArray());
+        } catch (Exception e) {
+            log.error("写入未读计数失败: userId={}, error={}", userId, e.getMessage());
+        }
+        return toDTO(counts);
+    }
+
+    // 私有辅助方法
+    private void adjust(List<Long> userIds, Notification.NotificationType type, int delta) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        byte[] field = type.name().getBytes(StandardCharsets.UTF_8);
+        byte[] amount = Integer.toString(delta).getBytes(StandardCharsets.UTF_8);
+        byte[] ttl = Long.toString(ttlSeconds()).getBytes(StandardCharsets.UTF_8);
+        try {
+            // 批量发送时用管道，一次往返调整整批用户
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (Long userId : userIds) {
+                    connection.scriptingCommands().eval(ADJUST_SCRIPT, ReturnType.INTEGER, 2,
+                            bytes(UNREAD_PREFIX + userId), bytes(VERSION_PREFIX + userId), field, amount, ttl);
+                }
+                return null;
+            });
+        } catch (Exception e) {
+            // 无法确认哪些已生效，清除后下次读取重建
+            log.error("调整未读计数失败: count={}, error={}", userIds.size(), e.getMessage());
+            try {
+                invalidate(userIds);
+            } catch (Exception ex) {
+                log.error("清除未读计数失败: {}", ex.getMessage());
+            }
+        }
+    }
+
+    // 删除计数并递增版本号，进行中的重建不会再把旧结果写回
+    private void invalidate(List<Long> userIds) {
+        byte[] ttl = Long.toString(ttlSeconds()).getBytes(StandardCharsets.UTF_8);
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (Long userId : userIds) {
+                connection.scriptingCommands().eval(INVALIDATE_SCRIPT, ReturnType.INTEGER, 2,
+                        bytes(UNREAD_PREFIX + userId), bytes(VERSION_PREFIX + userId), ttl);
+            }
+            return null;
+        });
+    }
+
+    private long ttlSeconds() {
+        return TimeUnit.HOURS.toSeconds(notificationProperties.getUnread().getTtlHours());
+    }
+
+    private byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private Map<String, Long> loadCounts(Long userId) {
+        Map<String, Long> counts = new HashMap<>();
+        for (Notification.NotificationType type : Notification.NotificationType.values()) {
+            counts.put(type.name(), 0L);
+        }
+        for (Object[] row : notificationRepository.countUnreadGroupByType(userId)) {
+            counts.put(((Notification.NotificationType) row[0]).name(), (Long) row[1]);
+        }
+        return counts;
+    }
+
+    private UnreadCountDTO toDTO(Map<String, Long> counts) {
+        UnreadCountDTO dto = new UnreadCountDTO();
+        long total = 0;
+        for (long count : counts.values()) {
+            total += count;
+        }
+        dto.setTotal(total);
+        dto.setSystem(counts.getOrDefault(Notification.NotificationType.SYSTEM.name(), 0L));
+        dto.setGameDiscount(counts.getOrDefault(Notification.NotificationType.GAME_DISCOUNT.name(), 0L));
+        dto.setEventReminder(counts.getOrDefault(Notification.NotificationType.EVENT_REMINDER.name(), 0L));
+        dto.setPostReply(counts.getOrDefault(Notification.NotificationType.POST_REPLY.name(), 0L));
+        return dto;
+    }
+}
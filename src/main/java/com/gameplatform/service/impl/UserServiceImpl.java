@@ -10,9 +10,11 @@ import com.gameplatform.repository.UserRepository;
 import com.gameplatform.repository.UserSettingRepository;
 import com.gameplatform.service.CacheService;
 import com.gameplatform.service.EmailService;
+import com.gameplatform.service.TimelineService;
 import com.gameplatform.service.UserService;
 import com.gameplatform.util.FileUtil;
 import com.gameplatform.util.JwtUtil;
+import com.gameplatform.util.TransactionUtils;
 import com.gameplatform.util.VerificationCodeUtil;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -52,6 +54,7 @@ public class UserServiceImpl implements UserService {
     private final EmailService emailService;
     private final CacheService cacheService;
     private final VerificationCodeUtil verificationCodeUtil;
+    private final TimelineService timelineService;
 
     private static final String VERIFICATION_CODE_PREFIX = "verificationCode:";
     private static final String RESET_TOKEN_PREFIX = "resetToken:";
@@ -438,6 +441,8 @@ public class UserServiceImpl implements UserService {
 
         user.follow(targetUser);
         userRepository.save(user);
+        // 关注关系变化后重建时间线
+        TransactionUtils.afterCommit(() -> timelineService.invalidateTimeline(userId));
     }
 
     @Override
@@ -450,6 +455,7 @@ public class UserServiceImpl implements UserService {
 
         user.unfollow(targetUser);
         userRepository.save(user);
+        TransactionUtils.afterCommit(() -> timelineService.invalidateTimeline(userId));
     }
 
     @Override
@@ -1,17 +1,20 @@
 package com.gameplatform.service.message;
 
 import com.gameplatform.config.properties.NotificationProperties;
-import com.gameplatform.exception.BusinessException;
-import com.gameplatform.model.entity.User;
-import com.gameplatform.model.entity.UserSetting;
+import com.gameplatform.model.message.NotificationBatchMessage;
 import com.gameplatform.model.message.NotificationMessage;
 import com.gameplatform.repository.UserRepository;
-import com.gameplatform.service.EmailService;
+import com.gameplatform.service.EmailDispatchService;
+import com.gameplatform.service.NotificationPreferenceService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.jms.annotation.JmsListener;
 import org.springframework.stereotype.Component;
 
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
 /**
  * @author SakurazawaRyoko
  * @version 1.0
@@ -23,54 +26,50 @@ import org.springframework.stereotype.Component;
 @RequiredArgsConstructor
 public class NotificationListener {
 
-    private final EmailService emailService;
+    private final EmailDispatchService emailDispatchService;
     private final UserRepository userRepository;
+    private final NotificationPreferenceService notificationPreferenceService;
     private final NotificationProperties notificationProperties;
 
+    // 兼容升级前已入队的单条消息
     @JmsListener(destination = "${notification.queue}")
     public void handleNotification(NotificationMessage message) {
         try {
-            if (shouldSendEmail(message)) {
-                sendEmailNotification(message);
-            }
+            sendEmails(Collections.singletonList(message.getUserId()),
+                    message.getType(), message.getTitle(), message.getContent());
         } catch (Exception e) {
             log.error("处理通知消息失败", e);
         }
     }
 
-    private boolean shouldSendEmail(NotificationMessage message) {
-        User user = userRepository.findById(message.getUserId())
-                .orElseThrow(() -> new BusinessException("用户不存在"));
-
-        UserSetting emailSetting = user.getSetting("email_notification");
-        if (emailSetting == null || !Boolean.parseBoolean(emailSetting.getValue())) {
-            return false;
+    @JmsListener(destination = "${notification.batch-queue}")
+    public void handleBatch(NotificationBatchMessage message) {
+        try {
+            sendEmails(message.getUserIds(), message.getType(), message.getTitle(), message.getContent());
+        } catch (Exception e) {
+            log.error("处理批量通知消息失败: recipients={}",
+                    message.getUserIds() != null ? message.getUserIds().size() : 0, e);
         }
-
-        return notificationProperties.getEmailTypes().contains(message.getType());
     }
 
-    private void sendEmailNotification(NotificationMessage message) {
-        User user = userRepository.findById(message.getUserId()).orElseThrow();
-
-        String emailContent = createEmailContent(message);
+    private void sendEmails(List<Long> userIds, String type, String title, String content) {
+        // 先按类型过滤，不需要邮件的通知不查询任何数据
+        if (userIds == null || userIds.isEmpty()
+                || !notificationProperties.getEmailTypes().contains(type)) {
+            return;
+        }
 
-        emailService.sendHtmlEmail(
-                user.getEmail(),
-                message.getTitle(),
-                emailContent
-        );
-    }
+        Set<Long> enabled = notificationPreferenceService.findEmailEnabled(userIds);
+        if (enabled.isEmpty()) {
+            return;
+        }
 
-    private String createEmailContent(NotificationMessage message) {
-        return """
-            <div style="padding: 20px; background-color: #f5f7fa;">
-                <h2 style="color: #409EFF;">%s</h2>
-                <div style="margin: 20px 0;">%s</div>
-                <div style="color: #909399; font-size: 12px;">
-                    此邮件由系统自动发送，请勿回复
-                </div>
-            </div>
-            """.formatted(message.getTitle(), message.getContent());
+        // 只加入汇总队列，SMTP发送由邮件发送线程完成，不占用消息监听线程；
+        // 消息在加入内存汇总后即确认，异常退出时尚未发出的邮件不会重新投递
+        for (Object[] row : userRepository.findEmailsByIdIn(enabled)) {
+            if (row[1] != null) {
+                emailDispatchService.enqueueNotification((Long) row[0], (String) row[1], title, content);
+            }
+        }
     }
-}
\ No newline at end of file
+}
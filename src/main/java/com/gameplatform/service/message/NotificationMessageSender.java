@@ -0,0 +1,50 @@
+package com.gameplatform.service.message;
+
+import com.gameplatform.config.properties.NotificationProperties;
+import com.gameplatform.model.dto.NotificationDTO;
+import com.gameplatform.model.message.NotificationBatchMessage;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jms.core.JmsTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author SakurazawaRyoko
+ * @version 1.0
+ * @date 2025/01/13 16:25
+ * @description TODO
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class NotificationMessageSender {
+
+    private final JmsTemplate jmsTemplate;
+    private final NotificationProperties notificationProperties;
+
+    @Value("${notification.batch-queue}")
+    private String batchQueue;
+
+    /**
+     * 按接收者分批发送，每批一条消息，返回成功投递的接收者数量
+     */
+    public int send(List<Long> userIds, NotificationDTO notification) {
+        int maxRecipients = notificationProperties.getJms().getMaxRecipients();
+        int sent = 0;
+        for (int i = 0; i < userIds.size(); i += maxRecipients) {
+            // 复制子列表，避免序列化时引用调用方的集合
+            List<Long> batch = new ArrayList<>(userIds.subList(i, Math.min(i + maxRecipients, userIds.size())));
+            try {
+                jmsTemplate.convertAndSend(batchQueue, new NotificationBatchMessage(batch, notification));
+                sent += batch.size();
+            } catch (Exception e) {
+                log.error("消息队列发送通知失败: recipients={}, error={}", batch.size(), e.getMessage());
+            }
+        }
+        return sent;
+    }
+}
@@ -0,0 +1,33 @@
+package com.gameplatform.service.message;
+
+import com.gameplatform.model.message.SearchIndexMessage;
+import com.gameplatform.service.SearchIndexService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jms.annotation.JmsListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * @author SakurazawaRyoko
+ * @version 1.0
+ * @date 2025/01/13 18:50
+ * @description TODO
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SearchIndexListener {
+
+    private final SearchIndexService searchIndexService;
+
+    // 每个实例各自维护本地索引，通过主题订阅其他实例的变更
+    @JmsListener(destination = "${search.index-topic}", containerFactory = "topicListenerContainerFactory")
+    public void handleChange(SearchIndexMessage message) {
+        try {
+            searchIndexService.applyRemoteChange(message);
+        } catch (Exception e) {
+            // 丢失的变更由每日全量重建修正
+            log.error("同步搜索索引失败: type={}, id={}, error={}", message.getType(), message.getId(), e.getMessage());
+        }
+    }
+}
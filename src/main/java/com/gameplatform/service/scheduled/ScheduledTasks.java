@@ -3,7 +3,7 @@ package com.gameplatform.service.scheduled;
 import com.gameplatform.model.dto.NotificationDTO;
 import com.gameplatform.model.entity.Event;
 import com.gameplatform.model.entity.Notification;
-import com.gameplatform.model.entity.User;
+import com.gameplatform.model.entity.NotificationBroadcastJob;
 import com.gameplatform.service.*;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -14,6 +14,7 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.Comparator;
 import java.util.List;
@@ -29,10 +30,10 @@ import java.util.List;
 @Slf4j
 public class ScheduledTasks {
 
-    private final UserService userService;
-    private final GameService gameService;
+    private final GamePopularityService gamePopularityService;
     private final StatisticsService statisticsService;
     private final NotificationService notificationService;
+    private final NotificationBroadcastService notificationBroadcastService;
     private final CacheService cacheService;
     private final EventService eventService;
 
@@ -82,12 +83,12 @@ public class ScheduledTasks {
         }
     }
 
-    // 每30分钟更新热门游戏列表
-    @Scheduled(fixedRate = 1800000)
+    // 更新游戏人气值，默认每30分钟一次
+    @Scheduled(cron = "${game.popularity.refresh-cron:0 */30 * * * ?}")
     public void updatePopularGames() {
         try {
             log.info("开始更新热门游戏列表");
-            gameService.updatePopularGames();
+            gamePopularityService.refreshPopularity();
             log.info("热门游戏列表更新完成");
         } catch (Exception e) {
             log.error("更新热门游戏列表失败", e);
@@ -99,18 +100,15 @@ public class ScheduledTasks {
     public void sendSystemNotifications() {
         try {
             log.info("开始发送系统通知");
-            // 获取需要发送通知的用户
-            List<User> users = userService.getActiveUsers();
-
-            // 批量发送通知
             NotificationDTO notification = new NotificationDTO();
             notification.setType(Notification.NotificationType.SYSTEM);
             notification.setTitle("每日登录提醒");
             notification.setContent("记得每天登录签到领取奖励哦！");
+            notification.setTargetType("SYSTEM");
 
-            users.forEach(user ->
-                    notificationService.sendNotification(user.getId(), notification)
-            );
+            // 按用户ID分批写入，每天一个任务，重启后从检查点继续而不会重复发送
+            notificationBroadcastService.broadcastOnce("daily-login:" + LocalDate.now(), notification,
+                    NotificationBroadcastJob.Audience.ACTIVE_USERS);
 
             log.info("系统通知发送完成");
         } catch (Exception e) {
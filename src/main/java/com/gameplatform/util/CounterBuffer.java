@@ -0,0 +1,76 @@
+package com.gameplatform.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * @author SakurazawaRyoko
+ * @version 1.0
+ * @date 2025/01/10 16:05
+ * @description TODO
+ */
+public class CounterBuffer {
+
+    // 每个ID一个分段计数器，高并发写入时不会争用同一把锁
+    private final Map<Long, LongAdder> counters = new ConcurrentHashMap<>();
+    // 写入方共享读锁，只有回收空闲计数器时才加写锁，保证不会写进已被移除的计数器
+    private final ReadWriteLock retireLock = new ReentrantReadWriteLock();
+
+    public void add(Long id, long delta) {
+        retireLock.readLock().lock();
+        try {
+            counters.computeIfAbsent(id, key -> new LongAdder()).add(delta);
+        } finally {
+            retireLock.readLock().unlock();
+        }
+    }
+
+    public long get(Long id) {
+        LongAdder adder = counters.get(id);
+        return adder != null ? adder.sum() : 0L;
+    }
+
+    /**
+     * 取出所有非零增量并清零，结果按ID排序，保证多个节点同时刷盘时加锁顺序一致
+     */
+    public Map<Long, Long> drain() {
+        Map<Long, Long> drained = new TreeMap<>();
+        List<Long> idle = new ArrayList<>();
+        counters.forEach((id, adder) -> {
+            long delta = adder.sumThenReset();
+            if (delta != 0) {
+                drained.put(id, delta);
+            } else {
+                idle.add(id);
+            }
+        });
+        retire(idle);
+        return drained;
+    }
+
+    // 上个周期没有变化的计数器回收，持有写锁期间没有进行中的写入，仍为零才移除
+    private void retire(List<Long> idle) {
+        if (idle.isEmpty()) {
+            return;
+        }
+        retireLock.writeLock().lock();
+        try {
+            for (Long id : idle) {
+                counters.computeIfPresent(id, (key, adder) -> adder.sum() == 0 ? null : adder);
+            }
+        } finally {
+            retireLock.writeLock().unlock();
+        }
+    }
+
+    // 写库失败时把增量放回缓冲区，等待下个周期重试
+    public void restore(Map<Long, Long> drained) {
+        drained.forEach(this::add);
+    }
+}
@@ -0,0 +1,80 @@
+package com.gameplatform.util;
+
+import com.gameplatform.common.CursorPage;
+import com.gameplatform.exception.BusinessException;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.UtilityClass;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * @author SakurazawaRyoko
+ * @version 1.0
+ * @date 2025/01/11 16:25
+ * @description TODO
+ */
+@UtilityClass
+public class CursorUtils {
+    public static final int MAX_SIZE = 100;
+
+    // 第一页的起点，比任何真实记录都新
+    private static final Cursor FIRST = new Cursor(LocalDateTime.of(9999, 12, 31, 0, 0), Long.MAX_VALUE);
+
+    // 游标格式为 "createdAt|id" 的Base64编码，客户端只需原样回传
+    public static String encode(LocalDateTime createdAt, Long id) {
+        String raw = createdAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static Cursor decode(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return FIRST;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf('|');
+            return new Cursor(LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new BusinessException(BusinessException.ErrorCode.INVALID_PARAMETER, "无效的分页游标");
+        }
+    }
+
+    // 多取一条用于判断是否还有下一页，不执行COUNT查询
+    public static Pageable limit(int size) {
+        return PageRequest.of(0, normalizeSize(size) + 1);
+    }
+
+    public static <T> CursorPage<T> toCursorPage(List<T> rows, int size,
+                                                 Function<T, LocalDateTime> createdAtGetter,
+                                                 Function<T, Long> idGetter) {
+        int pageSize = normalizeSize(size);
+        boolean hasNext = rows.size() > pageSize;
+        List<T> content = hasNext ? rows.subList(0, pageSize) : rows;
+        String nextCursor = null;
+        if (hasNext) {
+            T last = content.get(content.size() - 1);
+            nextCursor = encode(createdAtGetter.apply(last), idGetter.apply(last));
+        }
+        return new CursorPage<>(content, nextCursor, hasNext, content.size());
+    }
+
+    private static int normalizeSize(int size) {
+        return Math.max(1, Math.min(size, MAX_SIZE));
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    public static class Cursor {
+        private final LocalDateTime createdAt;
+        private final Long id;
+    }
+}
@@ -0,0 +1,37 @@
+package com.gameplatform.util;
+
+import lombok.experimental.UtilityClass;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.OutputStream;
+
+/**
+ * @author SakurazawaRyoko
+ * @version 1.0
+ * @date 2025/01/12 21:50
+ * @description TODO
+ */
+@UtilityClass
+public class ExportUtils {
+    private static final MediaType CSV = MediaType.parseMediaType("text/csv;charset=UTF-8");
+    private static final MediaType GZIP = MediaType.parseMediaType("application/gzip");
+
+    // 压缩时直接下载 .csv.gz 文件，而不是依赖 Content-Encoding 由浏览器解压；
+    // 在异步线程中直接写出响应，超时只对本次导出生效，线程池排满被拒绝时仍能返回错误信息
+    public static WebAsyncTask<Void> csv(HttpServletResponse response, String name, boolean gzip, long timeout,
+                                         StreamingResponseBody body) {
+        String filename = gzip ? name + ".csv.gz" : name + ".csv";
+        return new WebAsyncTask<>(timeout, () -> {
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"");
+            response.setContentType((gzip ? GZIP : CSV).toString());
+            OutputStream out = response.getOutputStream();
+            body.writeTo(out);
+            out.flush();
+            return null;
+        });
+    }
+}
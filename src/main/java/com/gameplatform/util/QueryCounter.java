@@ -0,0 +1,31 @@
+package com.gameplatform.util;
+
+import lombok.experimental.UtilityClass;
+
+/**
+ * @author SakurazawaRyoko
+ * @version 1.0
+ * @date 2025/01/11 18:10
+ * @description TODO
+ */
+@UtilityClass
+public class QueryCounter {
+    // 按线程统计执行的SQL数量，一个请求在同一线程内完成
+    private static final ThreadLocal<int[]> COUNTER = ThreadLocal.withInitial(() -> new int[1]);
+
+    public static void increment() {
+        COUNTER.get()[0]++;
+    }
+
+    public static int get() {
+        return COUNTER.get()[0];
+    }
+
+    public static void reset() {
+        COUNTER.get()[0] = 0;
+    }
+
+    public static void clear() {
+        COUNTER.remove();
+    }
+}
@@ -0,0 +1,126 @@
+package com.gameplatform.service.assembler;
+
+import com.gameplatform.model.dto.PostDTO;
+import com.gameplatform.model.entity.Game;
+import com.gameplatform.model.entity.Post;
+import com.gameplatform.model.entity.User;
+import com.gameplatform.repository.GameRepository;
+import com.gameplatform.repository.UserRepository;
+import com.gameplatform.service.LikeCounterService;
+import com.gameplatform.service.PostViewCountService;
+import com.gameplatform.util.QueryCounter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Answers;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * @author SakurazawaRyoko
+ * @version 1.0
+ * @date 2025/01/13 19:00
+ * @description TODO
+ */
+class PostDTOAssemblerTest {
+
+    // 作者一条IN查询、游戏一条IN查询
+    private static final int MAX_QUERIES = 2;
+
+    private PostDTOAssembler assembler;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        UserRepository userRepository = mock(UserRepository.class);
+        GameRepository gameRepository = mock(GameRepository.class);
+        // 每次仓库查询计为一条SQL，与QueryCountInspector的统计口径一致
+        when(userRepository.findAllWithRolesByIdIn(any())).thenAnswer(invocation -> {
+            QueryCounter.increment();
+            return ((Collection<Long>) invocation.getArgument(0)).stream().map(id -> {
+                User user = new User();
+                user.setId(id);
+                user.setUsername("user" + id);
+                return user;
+            }).collect(Collectors.toList());
+        });
+        when(gameRepository.findAllById(any())).thenAnswer(invocation -> {
+            QueryCounter.increment();
+            List<Game> games = new ArrayList<>();
+            for (Long id : (Iterable<Long>) invocation.getArgument(0)) {
+                Game game = new Game();
+                game.setId(id);
+                game.setTitle("game" + id);
+                games.add(game);
+            }
+            return games;
+        });
+        assembler = new PostDTOAssembler(userRepository, gameRepository,
+                mock(PostViewCountService.class), mock(LikeCounterService.class));
+        QueryCounter.reset();
+    }
+
+    @AfterEach
+    void tearDown() {
+        QueryCounter.clear();
+    }
+
+    @Test
+    void pageOfTwentyPostsIssuesBoundedQueries() {
+        Page<Post> page = new PageImpl<>(posts(20), PageRequest.of(0, 20), 100);
+
+        Page<PostDTO> dtos = assembler.toDTOPage(page);
+
+        assertEquals(20, dtos.getContent().size());
+        assertTrue(QueryCounter.get() <= MAX_QUERIES, "queries=" + QueryCounter.get());
+        PostDTO first = dtos.getContent().get(0);
+        assertEquals("user" + first.getAuthor().getId(), first.getAuthor().getUsername());
+        assertEquals("game" + first.getGameId(), first.getGameName());
+    }
+
+    @Test
+    void queryCountDoesNotGrowWithPageSize() {
+        assembler.toDTOs(posts(1));
+        int single = QueryCounter.get();
+
+        QueryCounter.reset();
+        assembler.toDTOs(posts(20));
+
+        assertEquals(single, QueryCounter.get());
+    }
+
+    // 作者和游戏使用懒加载代理：除getId外的任何访问都会触发一次初始化查询
+    private List<Post> posts(int count) {
+        List<Post> posts = new ArrayList<>();
+        for (long i = 1; i <= count; i++) {
+            Post post = new Post();
+            post.setId(i);
+            post.setTitle("post" + i);
+            post.setContent("content" + i);
+            post.setAuthor(lazyProxy(User.class, i % 7 + 1));
+            post.setGame(lazyProxy(Game.class, i % 3 + 1));
+            posts.add(post);
+        }
+        return posts;
+    }
+
+    private <T> T lazyProxy(Class<T> type, Long id) {
+        return mock(type, invocation -> {
+            if (invocation.getMethod().getName().equals("getId")) {
+                return id;
+            }
+            QueryCounter.increment();
+            return Answers.RETURNS_DEFAULTS.answer(invocation);
+        });
+    }
+}
@@ -0,0 +1,288 @@
+package com.gameplatform.service.impl;
+
+import com.gameplatform.config.properties.EmailProperties;
+import com.gameplatform.exception.BusinessException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import javax.mail.Multipart;
+import javax.mail.Part;
+import javax.mail.Session;
+import javax.mail.internet.MimeMessage;
+import java.io.*;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author SakurazawaRyoko
+ * @version 1.0
+ * @date 2025/01/13 17:40
+ * @description TODO
+ */
+class EmailDispatchServiceImplTest {
+
+    private FakeSmtpServer server;
+    private ThreadPoolTaskExecutor executor;
+    private EmailProperties properties;
+    private EmailDispatchServiceImpl dispatchService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new FakeSmtpServer();
+
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("localhost");
+        mailSender.setPort(server.getPort());
+        mailSender.getJavaMailProperties().setProperty("mail.from", "noreply@gameplatform.test");
+
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(2);
+        executor.initialize();
+
+        properties = new EmailProperties();
+        properties.getDispatch().setPoolSize(2);
+        properties.getDispatch().setDefaultDomainRate(0);
+        properties.getDigest().setWindow(0L);
+
+        dispatchService = new EmailDispatchServiceImpl(mailSender, properties, executor, new SimpleMeterRegistry());
+        dispatchService.init();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        server.heldRelease.countDown();
+        dispatchService.shutdown();
+        executor.shutdown();
+        server.close();
+    }
+
+    @Test
+    void sendNowReusesPooledConnection() {
+        dispatchService.sendNow("a@example.com", "验证码", "<p>1</p>");
+        dispatchService.sendNow("b@example.com", "验证码", "<p>2</p>");
+        dispatchService.sendNow("c@example.com", "验证码", "<p>3</p>");
+
+        assertEquals(3, server.messages.size());
+        assertEquals(1, server.connections.get());
+    }
+
+    @Test
+    void rejectedRecipientKeepsConnection() {
+        assertThrows(BusinessException.class,
+                () -> dispatchService.sendNow("rejected@example.com", "验证码", "<p>1</p>"));
+        dispatchService.sendNow("a@example.com", "验证码", "<p>2</p>");
+
+        assertEquals(1, server.messages.size());
+        assertEquals(1, server.connections.get());
+    }
+
+    @Test
+    void notificationsWithinWindowAreCoalesced() throws Exception {
+        properties.getDigest().setWindow(200L);
+        dispatchService.enqueueNotification(1L, "one@example.com", "通知一", "内容一");
+        dispatchService.enqueueNotification(1L, "one@example.com", "通知二", "内容二");
+        dispatchService.enqueueNotification(1L, "one@example.com", "通知三", "内容三");
+        dispatchService.enqueueNotification(2L, "two@example.com", "单条通知", "内容");
+
+        dispatchService.flush();
+        assertEquals(0, server.messages.size());
+
+        Thread.sleep(300);
+        dispatchService.flush();
+        assertEquals(2, server.messages.size());
+        // 同一批次在一个连接上发送
+        assertEquals(1, server.connections.get());
+
+        MimeMessage digest = server.find("one@example.com");
+        assertEquals("您有 3 条新通知", digest.getSubject());
+        String body = text(digest);
+        assertTrue(body.contains("通知一") && body.contains("通知二") && body.contains("通知三"));
+        assertEquals("单条通知", server.find("two@example.com").getSubject());
+    }
+
+    @Test
+    void domainRateLimitDefersExtraMessages() throws Exception {
+        properties.getDispatch().getDomainRates().put("slow.example.com", 2);
+        for (long userId = 1; userId <= 5; userId++) {
+            dispatchService.enqueueNotification(userId, "user" + userId + "@slow.example.com", "通知", "内容");
+        }
+        dispatchService.enqueueNotification(6L, "user6@fast.example.com", "通知", "内容");
+
+        dispatchService.flush();
+        assertEquals(3, server.messages.size());
+        dispatchService.flush();
+        assertEquals(3, server.messages.size());
+
+        Thread.sleep(1100);
+        dispatchService.flush();
+        assertEquals(5, server.messages.size());
+    }
+
+    @Test
+    void sendNowIsNotBlockedByBatches() throws Exception {
+        properties.getDispatch().setBatchSize(1);
+        dispatchService.enqueueNotification(1L, "held1@example.com", "通知", "内容");
+        dispatchService.enqueueNotification(2L, "held2@example.com", "通知", "内容");
+
+        Thread flusher = new Thread(dispatchService::flush);
+        flusher.start();
+        assertTrue(server.heldArrived.await(5, TimeUnit.SECONDS));
+
+        // 批量发送只能占用一个连接，另一个留给即时邮件
+        assertTimeoutPreemptively(Duration.ofSeconds(5),
+                () -> dispatchService.sendNow("a@example.com", "验证码", "<p>1</p>"));
+        assertEquals(1, server.messages.size());
+
+        server.heldRelease.countDown();
+        flusher.join(5000);
+        assertEquals(3, server.messages.size());
+        assertEquals(2, server.connections.get());
+    }
+
+    private String text(Part part) throws Exception {
+        Object content = part.getContent();
+        if (content instanceof Multipart) {
+            Multipart multipart = (Multipart) content;
+            StringBuilder builder = new StringBuilder();
+            for (int i = 0; i < multipart.getCount(); i++) {
+                builder.append(text(multipart.getBodyPart(i)));
+            }
+            return builder.toString();
+        }
+        return String.valueOf(content);
+    }
+
+    // 进程内的最小SMTP服务，记录连接数和收到的邮件，收件人包含 rejected 时拒收，
+    // 包含 held 时收到邮件内容后等待 heldRelease 再应答
+    private static class FakeSmtpServer implements Closeable {
+        private final ServerSocket serverSocket;
+        private final AtomicInteger connections = new AtomicInteger();
+        private final List<Received> messages = new CopyOnWriteArrayList<>();
+        private final CountDownLatch heldArrived = new CountDownLatch(1);
+        private final CountDownLatch heldRelease = new CountDownLatch(1);
+
+        private FakeSmtpServer() throws IOException {
+            serverSocket = new ServerSocket(0);
+            Thread acceptor = new Thread(this::acceptLoop, "fake-smtp");
+            acceptor.setDaemon(true);
+            acceptor.start();
+        }
+
+        private int getPort() {
+            return serverSocket.getLocalPort();
+        }
+
+        private MimeMessage find(String recipient) throws Exception {
+            for (Received received : messages) {
+                if (received.recipients.contains(recipient)) {
+                    return new MimeMessage(Session.getInstance(new Properties()),
+                            new ByteArrayInputStream(received.data.getBytes(StandardCharsets.UTF_8)));
+                }
+            }
+            throw new AssertionError("没有收到邮件: " + recipient);
+        }
+
+        private void acceptLoop() {
+            while (!serverSocket.isClosed()) {
+                try {
+                    Socket socket = serverSocket.accept();
+                    connections.incrementAndGet();
+                    Thread handler = new Thread(() -> handle(socket), "fake-smtp-session");
+                    handler.setDaemon(true);
+                    handler.start();
+                } catch (IOException e) {
+                    return;
+                }
+            }
+        }
+
+        private void handle(Socket socket) {
+            try (socket;
+                 BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+                 Writer out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8)) {
+                reply(out, "220 localhost ESMTP");
+                List<String> recipients = new CopyOnWriteArrayList<>();
+                String line;
+                while ((line = in.readLine()) != null) {
+                    String command = line.toUpperCase();
+                    if (command.startsWith("RCPT TO:")) {
+                        String address = line.substring(line.indexOf('<') + 1, line.indexOf('>'));
+                        if (address.contains("rejected")) {
+                            reply(out, "550 mailbox unavailable");
+                        } else {
+                            recipients.add(address);
+                            reply(out, "250 OK");
+                        }
+                    } else if (command.equals("DATA")) {
+                        reply(out, "354 End data with <CR><LF>.<CR><LF>");
+                        StringBuilder data = new StringBuilder();
+                        while (!(line = in.readLine()).equals(".")) {
+                            data.append(line.startsWith("..") ? line.substring(1) : line).append("\r\n");
+                        }
+                        if (recipients.stream().anyMatch(address -> address.contains("held"))) {
+                            heldArrived.countDown();
+                            awaitRelease();
+                        }
+                        messages.add(new Received(List.copyOf(recipients), data.toString()));
+                        recipients.clear();
+                        reply(out, "250 OK");
+                    } else if (command.equals("QUIT")) {
+                        reply(out, "221 Bye");
+                        return;
+                    } else {
+                        if (command.startsWith("RSET") || command.startsWith("MAIL FROM:")) {
+                            recipients.clear();
+                        }
+                        // EHLO、HELO、MAIL、RSET、NOOP 均直接接受
+                        reply(out, "250 OK");
+                    }
+                }
+            } catch (IOException ignored) {
+                // 客户端断开连接
+            }
+        }
+
+        private void awaitRelease() {
+            try {
+                heldRelease.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void reply(Writer out, String line) throws IOException {
+            out.write(line + "\r\n");
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            serverSocket.close();
+        }
+    }
+
+    private static class Received {
+        private final List<String> recipients;
+        private final String data;
+
+        private Received(List<String> recipients, String data) {
+            this.recipients = recipients;
+            this.data = data;
+        }
+    }
+}
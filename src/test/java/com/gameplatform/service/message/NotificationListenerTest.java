@@ -0,0 +1,149 @@
+package com.gameplatform.service.message;
+
+import com.gameplatform.config.ActiveMQConfig;
+import com.gameplatform.config.properties.NotificationProperties;
+import com.gameplatform.model.dto.NotificationDTO;
+import com.gameplatform.model.entity.Notification;
+import com.gameplatform.model.entity.UserSetting;
+import com.gameplatform.model.message.NotificationBatchMessage;
+import com.gameplatform.repository.UserRepository;
+import com.gameplatform.repository.UserSettingRepository;
+import com.gameplatform.service.EmailDispatchService;
+import com.gameplatform.service.impl.NotificationPreferenceServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.jms.core.JmsTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * @author SakurazawaRyoko
+ * @version 1.0
+ * @date 2025/01/13 16:40
+ * @description TODO
+ */
+@SpringJUnitConfig(NotificationListenerTest.TestConfig.class)
+@TestPropertySource(properties = {
+        "spring.activemq.broker-url=vm://notification-test?broker.persistent=false&broker.useJmx=false",
+        "spring.activemq.user=",
+        "spring.activemq.password=",
+        "notification.queue=notification.queue",
+        "notification.batch-queue=notification.batch.queue",
+        "notification.email-types=SYSTEM,EVENT_REMINDER",
+        "notification.jms.max-recipients=2",
+        // 单消费者保证消息按发送顺序处理
+        "notification.jms.concurrency=1"
+})
+class NotificationListenerTest {
+
+    @Configuration
+    @EnableConfigurationProperties(NotificationProperties.class)
+    @Import({ActiveMQConfig.class, NotificationListener.class, NotificationMessageSender.class,
+            NotificationPreferenceServiceImpl.class})
+    static class TestConfig {
+    }
+
+    @MockBean
+    private EmailDispatchService emailDispatchService;
+
+    @MockBean
+    private UserRepository userRepository;
+
+    @MockBean
+    private UserSettingRepository userSettingRepository;
+
+    @Autowired
+    private JmsTemplate jmsTemplate;
+
+    @Autowired
+    private NotificationMessageSender notificationMessageSender;
+
+    @Value("${notification.batch-queue}")
+    private String batchQueue;
+
+    @BeforeEach
+    void setUp() {
+        // 每个用户的邮箱为 user{id}@test.com
+        when(userRepository.findEmailsByIdIn(anyCollection())).thenAnswer(invocation -> {
+            List<Object[]> rows = new ArrayList<>();
+            for (Object id : (Collection<?>) invocation.getArgument(0)) {
+                rows.add(new Object[]{id, "user" + id + "@test.com"});
+            }
+            return rows;
+        });
+    }
+
+    @Test
+    void batchMessageResolvesRecipientsInBulk() {
+        when(userSettingRepository.findByKeyInAndUserIdIn(anyCollection(), anyCollection()))
+                .thenReturn(Arrays.asList(setting(101L, "true"), setting(102L, "false")));
+
+        jmsTemplate.convertAndSend(batchQueue,
+                new NotificationBatchMessage(Arrays.asList(101L, 102L, 103L), "SYSTEM", "标题", "内容"));
+
+        verify(emailDispatchService, timeout(5000)).enqueueNotification(101L, "user101@test.com", "标题", "内容");
+        verify(emailDispatchService, timeout(5000)).enqueueNotification(103L, "user103@test.com", "标题", "内容");
+        verify(emailDispatchService, never()).enqueueNotification(eq(102L), anyString(), anyString(), anyString());
+        verify(userSettingRepository, times(1)).findByKeyInAndUserIdIn(anyCollection(), anyCollection());
+        verify(userRepository, times(1)).findEmailsByIdIn(anyCollection());
+        verify(userRepository, never()).findById(any());
+    }
+
+    @Test
+    void nonEmailTypeSkipsLookups() {
+        jmsTemplate.convertAndSend(batchQueue,
+                new NotificationBatchMessage(Arrays.asList(201L, 202L), "POST_LIKE", "点赞", "内容"));
+        jmsTemplate.convertAndSend(batchQueue,
+                new NotificationBatchMessage(List.of(203L), "SYSTEM", "系统", "内容"));
+
+        verify(emailDispatchService, timeout(5000)).enqueueNotification(203L, "user203@test.com", "系统", "内容");
+        verify(emailDispatchService, never()).enqueueNotification(anyLong(), anyString(), eq("点赞"), anyString());
+        verify(userSettingRepository, times(1)).findByKeyInAndUserIdIn(anyCollection(), anyCollection());
+    }
+
+    @Test
+    void senderSplitsRecipientsAndPreferencesAreCached() {
+        NotificationDTO notification = new NotificationDTO();
+        notification.setType(Notification.NotificationType.EVENT_REMINDER);
+        notification.setTitle("活动提醒");
+        notification.setContent("内容");
+        List<Long> userIds = Arrays.asList(301L, 302L, 303L, 304L, 305L);
+
+        int sent = notificationMessageSender.send(userIds, notification);
+        verify(emailDispatchService, timeout(5000).times(5))
+                .enqueueNotification(anyLong(), anyString(), eq("活动提醒"), anyString());
+        // 每条消息最多两个接收者，共三条消息
+        verify(userRepository, times(3)).findEmailsByIdIn(anyCollection());
+        verify(userSettingRepository, times(3)).findByKeyInAndUserIdIn(anyCollection(), anyCollection());
+
+        notificationMessageSender.send(userIds, notification);
+        verify(emailDispatchService, timeout(5000).times(10))
+                .enqueueNotification(anyLong(), anyString(), eq("活动提醒"), anyString());
+        // 第二次发送命中偏好缓存，不再查询设置表
+        verify(userSettingRepository, times(3)).findByKeyInAndUserIdIn(anyCollection(), anyCollection());
+        assertEquals(5, sent);
+    }
+
+    private UserSetting setting(Long userId, String value) {
+        UserSetting setting = new UserSetting();
+        setting.setUserId(userId);
+        setting.setKey("email_notification");
+        setting.setValue(value);
+        return setting;
+    }
+}